@@ -7,10 +7,24 @@ repositories {
     mavenCentral()
 }
 
+// JMH benchmarks of the data-flow solvers, run by task "jmh"
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     implementation(files("lib/tai-e-assignment.jar"))
     implementation(files("../../lib/dependencies.jar"))
     testImplementation("junit:junit:4.13")
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 application {
@@ -19,12 +33,29 @@ application {
 
 tasks.compileJava { options.encoding = "UTF-8" }
 tasks.compileTestJava { options.encoding = "UTF-8" }
+tasks.named<JavaCompile>("compileJmhJava") { options.encoding = "UTF-8" }
 
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
 }
 
+// Usage: ./gradlew jmh [-PjmhArgs="<JMH options>"], e.g.,
+// -PjmhArgs="SolverBenchmark -p program=loop-nest -p loopDepth=10"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks, with allocation profiling."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    maxHeapSize = "4G"
+    // -prof gc reports allocation rate per operation, i.e., per method analyzed
+    args("-prof", "gc")
+    (project.findProperty("jmhArgs") as String?)
+        ?.split(" ")
+        ?.filter { it.isNotBlank() }
+        ?.let { args(it) }
+}
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(17))
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the data-flow solvers running {@link LiveVariableAnalysis}
+ * and {@link ConstantPropagation}.
+ * <p>
+ * The analyzed program is either a class of the test resources of
+ * dead code detection, or a synthetic program of the shape given by
+ * {@link SyntheticPrograms}. Each operation analyzes one method of the
+ * program, in turn, thus the throughput is the number of methods analyzed
+ * per second, and the allocation rate per operation reported by
+ * {@code -prof gc} is the allocation per method analyzed.
+ * <p>
+ * The world of Tai-e is a singleton, thus every combination of the
+ * parameters runs in its own fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    private static final String RESOURCES = "src/test/resources/dataflow/deadcode/";
+
+    /**
+     * Kind of the solver, or "default" for the default solver of the
+     * analysis, e.g., the gen/kill solver of live variable analysis.
+     */
+    @Param({"default", Solver.WORK_LIST, Solver.PRIORITY, Solver.WTO})
+    public String solver;
+
+    @Param({LiveVariableAnalysis.ID, ConstantPropagation.ID})
+    public String analysis;
+
+    /**
+     * Name of a class in the test resources, or a shape of
+     * {@link SyntheticPrograms}.
+     */
+    @Param({"Loops", "UnreachableSwitchBranch",
+            SyntheticPrograms.LOOP_NEST,
+            SyntheticPrograms.WIDE_SWITCH,
+            SyntheticPrograms.STRAIGHT_LINE})
+    public String program;
+
+    /**
+     * Depth of the loop nest of {@link SyntheticPrograms#LOOP_NEST}.
+     */
+    @Param("6")
+    public int loopDepth;
+
+    /**
+     * Number of cases of {@link SyntheticPrograms#WIDE_SWITCH}.
+     */
+    @Param("256")
+    public int switchWidth;
+
+    /**
+     * Number of statements of {@link SyntheticPrograms#STRAIGHT_LINE}.
+     */
+    @Param("2000")
+    public int lineLength;
+
+    private MethodAnalysis methodAnalysis;
+
+    private IR[] irs;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String classPath;
+        String mainClass;
+        if (SyntheticPrograms.isShape(program)) {
+            int size = switch (program) {
+                case SyntheticPrograms.LOOP_NEST -> loopDepth;
+                case SyntheticPrograms.WIDE_SWITCH -> switchWidth;
+                default -> lineLength;
+            };
+            Path dir = SyntheticPrograms.generate(program, size);
+            classPath = dir.toString();
+            mainClass = SyntheticPrograms.CLASS_NAME;
+        } else {
+            classPath = RESOURCES;
+            mainClass = program;
+        }
+        Main.buildWorld("-pp", "-cp", classPath, "-m", mainClass);
+        CFGBuilder cfgBuilder = new CFGBuilder(
+                new AnalysisConfig(CFGBuilder.ID, "exception", null, "dump", false));
+        // constructors and static initializers are trivial in these programs
+        List<JMethod> methods = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .filter(m -> !m.getName().startsWith("<"))
+                .toList();
+        irs = new IR[methods.size()];
+        for (int i = 0; i < irs.length; ++i) {
+            IR ir = methods.get(i).getIR();
+            ir.storeResult(CFGBuilder.ID, cfgBuilder.analyze(ir));
+            irs[i] = ir;
+        }
+        methodAnalysis = makeAnalysis();
+    }
+
+    private MethodAnalysis makeAnalysis() {
+        Object[] options = solver.equals("default")
+                ? new Object[0]
+                : new Object[]{"solver", solver};
+        return switch (analysis) {
+            case LiveVariableAnalysis.ID -> new LiveVariableAnalysis(
+                    new AnalysisConfig(LiveVariableAnalysis.ID, options));
+            case ConstantPropagation.ID -> new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID, options));
+            default -> throw new ConfigException("Unknown analysis: " + analysis);
+        };
+    }
+
+    @Benchmark
+    public Object analyzeMethod() {
+        IR ir = irs[next];
+        next = (next + 1) % irs.length;
+        return methodAnalysis.analyze(ir);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates Java programs of given CFG shapes for benchmarking.
+ * Each program is a class with one static method of the shape.
+ */
+final class SyntheticPrograms {
+
+    /**
+     * Name of the class of the generated programs.
+     */
+    static final String CLASS_NAME = "Synthetic";
+
+    static final String LOOP_NEST = "loop-nest";
+
+    static final String WIDE_SWITCH = "wide-switch";
+
+    static final String STRAIGHT_LINE = "straight-line";
+
+    private SyntheticPrograms() {
+    }
+
+    /**
+     * @return true if given name is a shape of synthetic programs.
+     */
+    static boolean isShape(String name) {
+        return name.equals(LOOP_NEST)
+                || name.equals(WIDE_SWITCH)
+                || name.equals(STRAIGHT_LINE);
+    }
+
+    /**
+     * Writes the source of the program of given shape into a new
+     * temporary directory.
+     *
+     * @param size depth of the loop nest, number of the switch cases,
+     *             or number of the statements of the straight line
+     * @return the directory, which is the class path of the program.
+     */
+    static Path generate(String shape, int size) {
+        String method = switch (shape) {
+            case LOOP_NEST -> loopNest(size);
+            case WIDE_SWITCH -> wideSwitch(size);
+            case STRAIGHT_LINE -> straightLine(size);
+            default -> throw new IllegalArgumentException(
+                    "Unknown shape: " + shape);
+        };
+        try {
+            Path dir = Files.createTempDirectory("tai-e-jmh");
+            Files.writeString(dir.resolve(CLASS_NAME + ".java"),
+                    "class " + CLASS_NAME + " {\n\n" + method + "}\n");
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Nested counting loops, whose innermost body updates the variables
+     * of every level, and branches on them.
+     */
+    private static String loopNest(int depth) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("    static int loopNest(int n) {\n");
+        sb.append("        int x = 0;\n");
+        sb.append("        int y = 1;\n");
+        for (int i = 0; i < depth; ++i) {
+            indent(sb, i + 2).append("for (int i").append(i).append(" = 0; i")
+                    .append(i).append(" < n; i").append(i).append("++) {\n");
+            indent(sb, i + 3).append("x = x + i").append(i).append(";\n");
+        }
+        indent(sb, depth + 2).append("y = y * 2 + x;\n");
+        indent(sb, depth + 2).append("if (x > y) {\n");
+        indent(sb, depth + 3).append("x = y - 1;\n");
+        indent(sb, depth + 2).append("}\n");
+        for (int i = depth - 1; i >= 0; --i) {
+            indent(sb, i + 2).append("}\n");
+        }
+        sb.append("        return x + y;\n");
+        sb.append("    }\n");
+        return sb.toString();
+    }
+
+    /**
+     * A switch of given number of cases, each of which assigns
+     * a variable from the others.
+     */
+    private static String wideSwitch(int width) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("    static int wideSwitch(int k) {\n");
+        sb.append("        int x = 0;\n");
+        sb.append("        int c = 1;\n");
+        sb.append("        switch (k) {\n");
+        for (int i = 0; i < width; ++i) {
+            sb.append("            case ").append(i).append(":\n");
+            sb.append("                x = c + ").append(i).append(";\n");
+            sb.append("                break;\n");
+        }
+        sb.append("            default:\n");
+        sb.append("                x = c;\n");
+        sb.append("        }\n");
+        sb.append("        return x;\n");
+        sb.append("    }\n");
+        return sb.toString();
+    }
+
+    /**
+     * A sequence of assignments, each of which uses the previous variable
+     * and one defined halfway back, so that many variables are live.
+     */
+    private static String straightLine(int length) {
+        String[] ops = {"+", "-", "*", "^"};
+        StringBuilder sb = new StringBuilder();
+        sb.append("    static int straightLine(int a) {\n");
+        sb.append("        int v0 = a;\n");
+        for (int i = 1; i < length; ++i) {
+            sb.append("        int v").append(i).append(" = v").append(i - 1)
+                    .append(' ').append(ops[i % ops.length])
+                    .append(" v").append(i / 2).append(";\n");
+        }
+        sb.append("        return v").append(Math.max(length - 1, 0)).append(";\n");
+        sb.append("    }\n");
+        return sb.toString();
+    }
+
+    private static StringBuilder indent(StringBuilder sb, int level) {
+        return sb.append("    ".repeat(level));
+    }
+}
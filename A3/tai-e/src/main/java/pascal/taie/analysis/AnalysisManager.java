@@ -0,0 +1,261 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.solver.MetricsSink;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.RequiredConfigs;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Creates and executes analyses based on given analysis configurations.
+ * <p>
+ * Class and method analyses are applied to the classes and methods in
+ * the scope in parallel. Their parallelism can be set by option "threads"
+ * of each analysis, which is the number of available processors by default.
+ * The results are stored in the analyzed classes and IRs, so the outcome
+ * does not depend on the number of threads or the order of execution.
+ * <p>
+ * The results of {@link CacheableMethodAnalysis} are kept across runs
+ * in the directory given by option "cache-dir" of the analysis, if any,
+ * see {@link MethodResultCache}. The cache of each such analysis is stored
+ * in {@link World} by {@link MethodResultCache#getResultKey(String)}.
+ */
+public class AnalysisManager {
+
+    private static final Logger logger = LogManager.getLogger(AnalysisManager.class);
+
+    /**
+     * Option for the number of threads used to run class and method analyses.
+     */
+    private static final String THREADS = "threads";
+
+    /**
+     * Option for the directory where the results of method analyses
+     * are cached across runs.
+     */
+    private static final String CACHE_DIR = "cache-dir";
+
+    /**
+     * The configs of the analyses to be executed.
+     */
+    private List<AnalysisConfig> plan;
+
+    private List<JClass> classScope;
+
+    private List<JMethod> methodScope;
+
+    public void execute(List<AnalysisConfig> analyses) {
+        plan = analyses;
+        try {
+            analyses.forEach(config -> Timer.runAndCount(
+                    () -> runAnalysis(config), config.getId()));
+        } finally {
+            // the metrics files stay open until the next run
+            MetricsSink.flushAll();
+        }
+    }
+
+    private void runAnalysis(AnalysisConfig config) {
+        try {
+            Class<?> clazz = Class.forName(config.getAnalysisClass());
+            Constructor<?> ctor = clazz.getConstructor(AnalysisConfig.class);
+            Object analysis = ctor.newInstance(config);
+            if (analysis instanceof ProgramAnalysis) {
+                runProgramAnalysis((ProgramAnalysis) analysis);
+            } else if (analysis instanceof ClassAnalysis) {
+                runClassAnalysis((ClassAnalysis) analysis);
+            } else if (analysis instanceof MethodAnalysis) {
+                runMethodAnalysis((MethodAnalysis) analysis, config);
+            } else {
+                logger.warn(clazz + " is not an analysis");
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException |
+                InstantiationException | IllegalAccessException |
+                InvocationTargetException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+    }
+
+    private void runProgramAnalysis(ProgramAnalysis analysis) {
+        Object result = analysis.analyze();
+        if (result != null) {
+            World.get().storeResult(analysis.getId(), result);
+        }
+    }
+
+    private void runClassAnalysis(ClassAnalysis analysis) {
+        runInParallel(analysis, getClassScope(), c -> {
+            Object result = analysis.analyze(c);
+            if (result != null) {
+                c.storeResult(analysis.getId(), result);
+            }
+        });
+    }
+
+    private List<JClass> getClassScope() {
+        if (classScope == null) {
+            String scope = World.get().getOptions().getScope();
+            // scope "reachable" is unsupported as there is no call graph
+            classScope = switch (scope) {
+                case "app" -> World.get()
+                        .getClassHierarchy()
+                        .applicationClasses()
+                        .toList();
+                case "all" -> World.get()
+                        .getClassHierarchy()
+                        .allClasses()
+                        .toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} classes in scope ({}) of class analyses",
+                    classScope.size(), scope);
+        }
+        return classScope;
+    }
+
+    private void runMethodAnalysis(MethodAnalysis analysis, AnalysisConfig config) {
+        String cacheDir = analysis.getOptions().getString(CACHE_DIR);
+        if (cacheDir != null) {
+            runCachedMethodAnalysis(analysis, config, Path.of(cacheDir));
+            return;
+        }
+        runInParallel(analysis, getMethodScope(), m -> {
+            IR ir = m.getIR();
+            Object result = analysis.analyze(ir);
+            if (result != null) {
+                ir.storeResult(analysis.getId(), result);
+            }
+        });
+    }
+
+    /**
+     * Runs given method analysis on the methods whose results are not
+     * in the cache, and takes the results of the other methods from the cache.
+     */
+    private void runCachedMethodAnalysis(
+            MethodAnalysis analysis, AnalysisConfig config, Path cacheDir) {
+        if (!(analysis instanceof CacheableMethodAnalysis<?> cacheable)) {
+            throw new ConfigException(analysis.getId()
+                    + " does not support option " + CACHE_DIR);
+        }
+        MethodResultCache cache = new MethodResultCache(cacheDir, analysis,
+                RequiredConfigs.getAllRequiredConfigs(config, plan));
+        runInParallel(analysis, getMethodScope(), m -> {
+            IR ir = m.getIR();
+            String key = cache.keyOf(ir);
+            ByteBuffer cached = cache.load(key);
+            Object result;
+            if (cached != null) {
+                result = cacheable.decodeResult(ir, cached);
+            } else {
+                result = analysis.analyze(ir);
+                if (result != null) {
+                    cache.store(key, encodeResult(cacheable, ir, result));
+                }
+            }
+            if (result != null) {
+                ir.storeResult(analysis.getId(), result);
+            }
+        });
+        logger.info(cache.getStats());
+        World.get().storeResult(MethodResultCache.getResultKey(analysis.getId()), cache);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> byte[] encodeResult(
+            CacheableMethodAnalysis<R> analysis, IR ir, Object result) {
+        return analysis.encodeResult(ir, (R) result);
+    }
+
+    private List<JMethod> getMethodScope() {
+        if (methodScope == null) {
+            String scope = World.get().getOptions().getScope();
+            // scope "reachable" is unsupported as there is no call graph
+            methodScope = switch (scope) {
+                case "app", "all" -> getClassScope()
+                        .stream()
+                        .map(JClass::getDeclaredMethods)
+                        .flatMap(Collection::stream)
+                        .filter(m -> !m.isAbstract() && !m.isNative())
+                        .toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} methods in scope ({}) of method analyses",
+                    methodScope.size(), scope);
+        }
+        return methodScope;
+    }
+
+    /**
+     * Applies given action to the elements in given scope with
+     * the number of threads specified by given analysis.
+     */
+    private static <T> void runInParallel(
+            Analysis analysis, List<T> scope, Consumer<T> action) {
+        int threads = getThreads(analysis.getOptions());
+        if (threads == 1) {
+            scope.forEach(action);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // parallel stream runs in the pool which submits it
+            pool.submit(() -> scope.parallelStream().forEach(action)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int getThreads(AnalysisOptions options) {
+        if (options.get(THREADS) == null) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        int threads = options.getInt(THREADS);
+        if (threads < 1) {
+            throw new ConfigException("Invalid number of threads: " + threads);
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.ir.IR;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Method analyses whose results can be stored in {@link MethodResultCache},
+ * so that the analyses can skip the methods which have not changed
+ * since a previous run.
+ *
+ * @param <R> type of the analysis results
+ */
+public interface CacheableMethodAnalysis<R> {
+
+    /**
+     * @return the result of the analysis on given IR, encoded as bytes.
+     */
+    byte[] encodeResult(IR ir, R result);
+
+    /**
+     * Reads the result of the analysis on given IR from the buffer,
+     * which holds the bytes given by {@link #encodeResult(IR, Object)}
+     * from the current position. The results of the analyses required
+     * by this analysis are available in the IR.
+     *
+     * @return a result equal to the encoded one.
+     */
+    R decodeResult(IR ir, ByteBuffer buffer);
+}
@@ -0,0 +1,234 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed on-disk cache of the results of a method analysis,
+ * which lives across runs.
+ * <p>
+ * Each result is stored in its own file, whose name is a hash of the
+ * analysis ID, the options of the analysis, the signature of the method
+ * and the content of its IR. Thus a result is found again only if none
+ * of them changed, and stale results are never read, but they are not
+ * removed either. Files are written to a temporary file first, and then
+ * moved in place, so concurrent runs sharing a directory see either
+ * a complete file or none.
+ * <p>
+ * The options of the analyses which the analysis requires, directly or
+ * transitively, are part of the key too, as the result may depend on them,
+ * e.g., the dead code found on the constants of constant propagation.
+ */
+public class MethodResultCache {
+
+    /**
+     * Version of the format of the cache files, which is part of the keys.
+     * Bump it when the encoding of any result changes.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Options which do not affect the results, and are excluded from the keys.
+     */
+    private static final Set<String> IGNORED_OPTIONS = Set.of("threads", "cache-dir", "metrics");
+
+    /**
+     * Converts the options to their entries, and writes the entries
+     * sorted by keys.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final Path dir;
+
+    private final String analysisKey;
+
+    private final String analysisId;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param dir      directory of the cache files
+     * @param analysis the analysis whose results are cached
+     * @param required configs of the analyses which the analysis
+     *                 requires, directly or transitively
+     */
+    public MethodResultCache(Path dir, Analysis analysis,
+                             Collection<AnalysisConfig> required) {
+        this.dir = dir;
+        this.analysisId = analysis.getId();
+        StringBuilder key = new StringBuilder()
+                .append(VERSION).append('|')
+                .append(analysisId).append('|')
+                .append(keyOf(analysis.getOptions()));
+        // sorts the configs, as the order of the requirements is arbitrary
+        required.stream()
+                .sorted(Comparator.comparing(AnalysisConfig::getId))
+                .forEach(config -> key.append('|')
+                        .append(config.getId()).append('|')
+                        .append(keyOf(config.getOptions())));
+        this.analysisKey = key.toString();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new ConfigException("Failed to create cache directory " + dir, e);
+        }
+    }
+
+    /**
+     * @return the key in {@link World} of the cache of given analysis,
+     * where the cache of the last run of the analysis is stored.
+     */
+    public static String getResultKey(String analysisId) {
+        return analysisId + ".cache";
+    }
+
+    /**
+     * @return the options which may affect the results, as a JSON object
+     * whose entries are sorted by keys.
+     */
+    static String keyOf(AnalysisOptions options) {
+        // AnalysisOptions is serialized as the map of its entries
+        Map<String, Object> entries = MAPPER.convertValue(options,
+                new TypeReference<Map<String, Object>>() {});
+        entries.keySet().removeAll(IGNORED_OPTIONS);
+        try {
+            return MAPPER.writeValueAsString(entries);
+        } catch (JsonProcessingException e) {
+            throw new ConfigException("Failed to write options " + options, e);
+        }
+    }
+
+    /**
+     * @return the key of the result of the analysis on given IR.
+     */
+    public String keyOf(IR ir) {
+        MessageDigest digest = newDigest();
+        update(digest, analysisKey);
+        update(digest, ir.getMethod().getSignature());
+        for (Var var : ir.getVars()) {
+            update(digest, var.getName() + ":" + var.getType());
+        }
+        for (Var param : ir.getParams()) {
+            update(digest, param.getName());
+        }
+        for (Stmt stmt : ir) {
+            update(digest, stmt.getIndex() + ":" + stmt);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Maps the cached result of given key into memory, and counts
+     * the lookup as a hit or a miss.
+     *
+     * @return a read-only buffer of the encoded result,
+     * or null if the result is not cached.
+     */
+    public ByteBuffer load(String key) {
+        try (FileChannel channel = FileChannel.open(fileOf(key), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            hits.increment();
+            return buffer;
+        } catch (NoSuchFileException e) {
+            misses.increment();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores the encoded result of given key.
+     */
+    public void store(String key, byte[] bytes) {
+        try {
+            Path temp = Files.createTempFile(dir, key, ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, fileOf(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return a line of statistics of the lookups of this cache.
+     */
+    public String getStats() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return String.format("Cache of %s: %d/%d hits (%.1f%%)", analysisId,
+                h, total, total == 0 ? 0.0 : 100.0 * h / total);
+    }
+
+    private Path fileOf(String key) {
+        return dir.resolve(key + ".bin");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        // separates the strings, so that their boundaries matter
+        digest.update((byte) 0);
+    }
+}
@@ -22,30 +22,236 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.CacheableMethodAnalysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.dataflow.fact.OffHeapDataflowResult;
+import pascal.taie.analysis.dataflow.solver.MetricsSink;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
 
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
-        implements DataflowAnalysis<Node, Fact> {
+        implements DataflowAnalysis<Node, Fact>,
+        CacheableMethodAnalysis<DataflowResult<Node, Fact>> {
+
+    /**
+     * Kind of the solver given by option "solver", or null if not specified.
+     */
+    private final String solverKind;
+
+    /**
+     * Minimum number of nodes of a CFG to be solved in parallel by
+     * {@link Solver#PARALLEL} solver, given by option "parallel-threshold".
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Sink of the metrics of the solvers, which writes them as JSON lines
+     * to the file given by option "metrics", or null if not specified.
+     */
+    private final MetricsSink metricsSink;
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * Whether the results are stored outside the Java heap,
+     * given by option "fact-store".
+     */
+    private final boolean offHeap;
+
+    /**
+     * Maximum number of decoded facts kept on the heap by an off-heap result.
+     */
+    private static final int OFF_HEAP_CACHE_SIZE = 1024;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solverKind = getOptions().getString("solver");
+        parallelThreshold = getParallelThreshold();
+        String metricsFile = getOptions().getString("metrics");
+        metricsSink = metricsFile != null
+                ? MetricsSink.jsonLines(Path.of(metricsFile), getId())
+                : null;
+        solver = makeSolver(this);
+        String factStore = getOptions().getString("fact-store");
+        if (factStore == null || factStore.equals("heap")) {
+            offHeap = false;
+        } else if (factStore.equals("off-heap")) {
+            offHeap = true;
+        } else {
+            throw new ConfigException("Unknown fact store: " + factStore);
+        }
+        // check the support of the options when they are parsed,
+        // instead of after solving the first method
+        if (!hasFactCodec()) {
+            if (offHeap) {
+                throw new ConfigException(getClass().getSimpleName()
+                        + " does not support fact store " + factStore);
+            }
+            if (getOptions().getString("cache-dir") != null) {
+                throw new ConfigException(getClass().getSimpleName()
+                        + " does not support cached results");
+            }
+        }
+    }
+
+    private int getParallelThreshold() {
+        if (getOptions().get("parallel-threshold") == null) {
+            return Solver.DEFAULT_PARALLEL_THRESHOLD;
+        }
+        int threshold = getOptions().getInt("parallel-threshold");
+        if (threshold < 0) {
+            throw new ConfigException("Invalid parallel threshold: " + threshold);
+        }
+        return threshold;
+    }
+
+    /**
+     * @return the kind of the solver given by option "solver",
+     * or null if it is not specified.
+     */
+    protected final String getSolverKind() {
+        return solverKind;
+    }
+
+    /**
+     * @return the sink of the metrics given by option "metrics",
+     * or null if not specified. Subclasses which solve this analysis
+     * without a {@link Solver} send their metrics to it.
+     */
+    protected final MetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
+    /**
+     * Creates a solver of the kind configured for this analysis, which
+     * reports its metrics if this analysis is configured to do so.
+     * Subclasses can use this to solve a specialized form of this analysis.
+     */
+    protected final Solver<Node, Fact> makeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        Solver<Node, Fact> solver = solverKind != null
+                ? Solver.makeSolver(analysis, solverKind, parallelThreshold)
+                : Solver.makeSolver(analysis);
+        solver.setMetricsSink(metricsSink);
+        return solver;
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        return store(cfg, solver.solve(cfg));
+    }
+
+    /**
+     * Moves given result of given CFG out of the Java heap if this analysis
+     * is configured to do so, otherwise returns the result itself.
+     */
+    protected final DataflowResult<Node, Fact> store(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        return offHeap
+                ? OffHeapDataflowResult.copyOf(result, cfg,
+                        getFactCodec(cfg), OFF_HEAP_CACHE_SIZE)
+                : result;
+    }
+
+    /**
+     * Encodes the facts of the {@link Indexable} nodes with the codec
+     * given by {@link #getFactCodec(CFG)}, as the number of nodes,
+     * followed by the index, the in fact and the out fact of each node.
+     */
+    @Override
+    public byte[] encodeResult(IR ir, DataflowResult<Node, Fact> result) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        FactCodec<Fact> codec = getFactCodec(cfg);
+        int size = Integer.BYTES;
+        for (Node node : cfg) {
+            size += Integer.BYTES + sizeOf(codec, result.getInFact(node))
+                    + sizeOf(codec, result.getOutFact(node));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(cfg.getNumberOfNodes());
+        for (Node node : cfg) {
+            buffer.putInt(indexOf(node));
+            encode(codec, result.getInFact(node), buffer);
+            encode(codec, result.getOutFact(node), buffer);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> decodeResult(IR ir, ByteBuffer buffer) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        FactCodec<Fact> codec = getFactCodec(cfg);
+        Map<Integer, Node> nodes = Maps.newMap(cfg.getNumberOfNodes());
+        for (Node node : cfg) {
+            nodes.put(indexOf(node), node);
+        }
+        DataflowResult<Node, Fact> result = IndexedDataflowResult.newResult(cfg);
+        for (int i = buffer.getInt(); i > 0; --i) {
+            Node node = nodes.get(buffer.getInt());
+            result.setInFact(node, decode(codec, buffer));
+            result.setOutFact(node, decode(codec, buffer));
+        }
+        return store(cfg, result);
+    }
+
+    private int indexOf(Node node) {
+        if (node instanceof Indexable indexable) {
+            return indexable.getIndex();
+        }
+        throw new ConfigException(getClass().getSimpleName()
+                + " does not support cached results");
+    }
+
+    // null facts are encoded as a single zero byte
+
+    private static <Fact> int sizeOf(FactCodec<Fact> codec, Fact fact) {
+        return 1 + (fact != null ? codec.sizeOf(fact) : 0);
+    }
+
+    private static <Fact> void encode(
+            FactCodec<Fact> codec, Fact fact, ByteBuffer buffer) {
+        buffer.put((byte) (fact != null ? 1 : 0));
+        if (fact != null) {
+            codec.encode(fact, buffer);
+        }
+    }
+
+    private static <Fact> Fact decode(FactCodec<Fact> codec, ByteBuffer buffer) {
+        return buffer.get() != 0 ? codec.decode(buffer) : null;
+    }
+
+    /**
+     * @return true if this analysis gives the codecs of its facts by
+     * {@link #getFactCodec(CFG)}, otherwise false.
+     */
+    protected boolean hasFactCodec() {
+        return false;
+    }
+
+    /**
+     * Analyses supporting off-heap or cached results override this method
+     * and {@link #hasFactCodec()} to encode their facts.
+     *
+     * @return the codec for the facts of given CFG.
+     */
+    protected FactCodec<Fact> getFactCodec(CFG<Node> cfg) {
+        throw new ConfigException(getClass().getSimpleName()
+                + " does not support encoded facts");
     }
 
     /**
@@ -49,6 +49,30 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * Analyses whose facts are shaped by the CFG being analyzed, e.g.,
+     * bit-vector facts over the variables of the method, can override
+     * this method to create such facts. Solvers always create initial
+     * facts through this method.
+     *
+     * @return new initial fact for non-boundary nodes of given CFG.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
+    /**
+     * Resets given fact, which was created by {@link #newInitialFact(CFG)},
+     * to the initial fact in place, so that solvers can reuse it as
+     * scratch space instead of creating new facts.
+     *
+     * @return true if the fact was reset, or false if this analysis
+     * cannot reset its facts, which is the default.
+     */
+    default boolean resetFact(Fact fact) {
+        return false;
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
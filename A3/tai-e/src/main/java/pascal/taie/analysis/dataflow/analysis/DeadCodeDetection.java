@@ -22,10 +22,15 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.CacheableMethodAnalysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
-import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.analysis.constprop.DemandConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.IntervalAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.IntervalFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.PackedValue;
+import pascal.taie.analysis.dataflow.analysis.constprop.SparseConstantPropagation;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
@@ -36,14 +41,44 @@ import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.*;
 
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
-public class DeadCodeDetection extends MethodAnalysis {
+public class DeadCodeDetection extends MethodAnalysis
+        implements CacheableMethodAnalysis<Set<Stmt>> {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Whether to take the reachability of branches from
+     * {@link SparseConstantPropagation}.
+     */
+    private final boolean sccp;
+
+    /**
+     * Whether to evaluate the branch conditions by
+     * {@link DemandConstantPropagation} instead of the result of
+     * {@link ConstantPropagation}. This is also done when the IR
+     * does not hold the result of {@link ConstantPropagation}.
+     */
+    private final boolean demandDriven;
+
+    /**
+     * Whether to also prune the branches whose conditions cannot hold
+     * according to the ranges of values given by {@link IntervalAnalysis}.
+     */
+    private final boolean intervals;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        sccp = getOptions().getBooleanOrDefault("sccp", false);
+        demandDriven = getOptions().getBooleanOrDefault("demand-driven", false);
+        intervals = getOptions().getBooleanOrDefault("intervals", false);
     }
 
     @Override
@@ -51,11 +86,10 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
+        DataflowResult<Stmt, CPFact> constants = demandDriven ? null
+                : ir.getResult(ConstantPropagation.ID);
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariableAnalysis.ID);
-        // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // TODO - finish me
         // Your task is to recognize dead code in ir and add it to deadCode
 
@@ -73,80 +107,141 @@ public class DeadCodeDetection extends MethodAnalysis {
         // 1.2.2 switch 语句
         //      对于一个 switch 语句，如果它的条件值是一个常数，那么不符合条件值的 case 分支就可能是不可达的。
 
-        Set<Stmt> reachableCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        Stmt entry = cfg.getEntry();
-        // 待检测的 stmt
-        Queue<Stmt> stmts = new LinkedList<>();
-        stmts.offer(entry);
-        while (!stmts.isEmpty()) {
-            Stmt stmt = stmts.poll();
-            // 防止重复添加节点，造成无法退出循环
-            if (!reachableCode.contains(stmt)) {
-                reachableCode.add(stmt);
-                // 检查条件值是不是常量
-                Value conditionValue = Value.getNAC();
-                if (stmt instanceof If exp) {
-                    conditionValue = ConstantPropagation.evaluate(exp.getCondition(), constants.getInFact(stmt));
-                }
-                else if (stmt instanceof SwitchStmt exp) {
-                    conditionValue = ConstantPropagation.evaluate(exp.getVar(), constants.getInFact(stmt));
-                }
-                // 需要对当前正在访问的节点使用 CFG.getOutEdgesOf() 来帮助获得之后要被访问的后继节点。
-                boolean inSwitchCase = false;
-                for (Edge edge: cfg.getOutEdgesOf(stmt)) {
-                    if (conditionValue.isConstant()) {
-                        int val = conditionValue.getConstant();
-                        System.out.println("ConditionValue is " + val);
-                        if (val == 1 && edge.getKind() == Edge.Kind.IF_TRUE) {
-                            // if true
-                            stmts.offer((Stmt) edge.getTarget());
-                        } else if (val == 0 && edge.getKind() == Edge.Kind.IF_FALSE) {
-                            // if false
-                            stmts.offer((Stmt) edge.getTarget());
-                        } else if (edge.getKind() == Edge.Kind.SWITCH_CASE && edge.getCaseValue() == val) {
-                            // switch case
-                            inSwitchCase = true;
-                            stmts.offer((Stmt) edge.getTarget());
-                        } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT && !inSwitchCase) {
-                            // switch default
-                            stmts.offer((Stmt) edge.getTarget());
-                        }
-                    } else {
-                        stmts.offer((Stmt) edge.getTarget());
-                    }
-                }
-            }
-        }
-
         // 2. 无用赋值（dead assignment）
         //      检测方式：为了检测无用赋值，我们需要预先对被检测代码施用活跃变量分析。
         //      对于一个赋值语句，如果它等号左侧的变量（LHS 变量）是一个无用变量（换句话说，not live），那么我们可以把它标记为一个无用赋值。
         //      副作用的代码除外。如果带有副作用，那么为了保证 safety，即使 x 不是一个活跃变量，你也不应该把这个赋值语句标记为死代码。
 
-        for (Stmt stmt: reachableCode) {
-            // 检测无用赋值
-            if (stmt instanceof DefinitionStmt<?,?> definitionStmt) {
-                LValue lValue = definitionStmt.getLValue();
-                RValue rValue = definitionStmt.getRValue();
-                // 检查左侧变量是否是 not live 变量
-                if (lValue instanceof Var lVar && !liveVars.getResult(stmt).contains(lVar) && hasNoSideEffect(rValue)) {
-                    deadCode.add(stmt);
+        // 使用 SCCP 时，分支是否可达直接由 SCCP 给出的可执行边决定
+        SparseConstantPropagation sparse = sccp ?
+                SparseConstantPropagation.getResult(ir) : null;
+        // 没有常量传播的结果时，只按需计算条件中变量的值
+        DemandConstantPropagation demand = sparse == null && constants == null ?
+                DemandConstantPropagation.getResult(ir) : null;
+        // 按区间分析的结果，剪掉条件不可能成立的分支
+        DataflowResult<Stmt, IntervalFact> ranges = intervals ?
+                IntervalAnalysis.getResult(ir) : null;
+        // 以 Stmt.getIndex() 为下标的位图：可达语句和无用赋值
+        BitSet reachable = new BitSet(cfg.getNumberOfNodes());
+        BitSet deadAssignments = new BitSet(cfg.getNumberOfNodes());
+        // 待检测的 stmt，入栈时即标记为可达，防止重复访问
+        Deque<Stmt> stmts = new ArrayDeque<>();
+        Stmt entry = cfg.getEntry();
+        reachable.set(entry.getIndex());
+        stmts.push(entry);
+        while (!stmts.isEmpty()) {
+            Stmt stmt = stmts.pop();
+            // 一次遍历中同时检测无用赋值
+            if (isDeadAssignment(stmt, liveVars)) {
+                deadAssignments.set(stmt.getIndex());
+            }
+            long conditionValue = sparse != null ? PackedValue.NAC
+                    : evaluateCondition(stmt, constants, demand);
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                boolean feasible = sparse != null
+                        ? sparse.isExecutable(edge)
+                        : isFeasible(stmt, edge, conditionValue);
+                if (feasible && ranges != null) {
+                    feasible = IntervalAnalysis.isFeasible(edge, ranges.getInFact(stmt));
+                }
+                Stmt target = edge.getTarget();
+                if (feasible && !reachable.get(target.getIndex())) {
+                    reachable.set(target.getIndex());
+                    stmts.push(target);
                 }
             }
         }
 
-        for (Stmt stmt: cfg) {
-            if (!reachableCode.contains(stmt)) {
-                deadCode.add(stmt);
-            }
+        // 不可达的语句和无用赋值都是死代码，按下标顺序加入结果，因此结果是有序的；
+        // 下标超出 IR 范围的是 entry 和 exit，它们不属于死代码
+        List<Stmt> irStmts = ir.getStmts();
+        BitSet dead = (BitSet) reachable.clone();
+        dead.flip(0, irStmts.size());
+        dead.or(deadAssignments);
+        Set<Stmt> deadCode = new LinkedHashSet<>();
+        for (int i = dead.nextSetBit(0); i >= 0 && i < irStmts.size();
+             i = dead.nextSetBit(i + 1)) {
+            deadCode.add(irStmts.get(i));
         }
+        return deadCode;
+    }
 
-        // special case: Exit should NOT be included
-        deadCode.remove(cfg.getExit());
+    /**
+     * Encodes the dead code as the number of statements,
+     * followed by their indexes.
+     */
+    @Override
+    public byte[] encodeResult(IR ir, Set<Stmt> deadCode) {
+        ByteBuffer buffer = ByteBuffer.allocate(
+                Integer.BYTES * (deadCode.size() + 1));
+        buffer.putInt(deadCode.size());
+        deadCode.forEach(stmt -> buffer.putInt(stmt.getIndex()));
+        return buffer.array();
+    }
 
+    @Override
+    public Set<Stmt> decodeResult(IR ir, ByteBuffer buffer) {
+        Set<Stmt> deadCode = new LinkedHashSet<>();
+        for (int i = buffer.getInt(); i > 0; --i) {
+            deadCode.add(ir.getStmt(buffer.getInt()));
+        }
         return deadCode;
     }
 
+    /**
+     * @return the value of the condition of given statement, by the result
+     * of constant propagation if it is given, otherwise by demand-driven
+     * constant propagation. Returns NAC for statements without condition.
+     */
+    private static long evaluateCondition(
+            Stmt stmt, DataflowResult<Stmt, CPFact> constants,
+            DemandConstantPropagation demand) {
+        Exp condition;
+        if (stmt instanceof If ifStmt) {
+            condition = ifStmt.getCondition();
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            condition = switchStmt.getVar();
+        } else {
+            return PackedValue.NAC;
+        }
+        return constants != null
+                ? ConstantPropagation.evaluatePacked(condition, constants.getInFact(stmt))
+                : demand.evaluate(stmt, condition);
+    }
+
+    /**
+     * @return true if given edge may be taken according to the value of
+     * the condition of its source.
+     */
+    private static boolean isFeasible(Stmt stmt, Edge<Stmt> edge, long conditionValue) {
+        // 检查条件值是不是常量
+        if (!PackedValue.isConstant(conditionValue)) {
+            return true;
+        }
+        int val = PackedValue.getConstant(conditionValue);
+        return switch (edge.getKind()) {
+            case IF_TRUE -> val == 1;
+            case IF_FALSE -> val == 0;
+            case SWITCH_CASE -> edge.getCaseValue() == val;
+            // 没有 case 匹配时才会走到 default
+            case SWITCH_DEFAULT -> !((SwitchStmt) stmt).getCaseValues().contains(val);
+            default -> true;
+        };
+    }
+
+    /**
+     * @return true if given statement assigns a variable that is not live
+     * after it, and the assignment has no side effect.
+     */
+    private static boolean isDeadAssignment(
+            Stmt stmt, DataflowResult<Stmt, SetFact<Var>> liveVars) {
+        // 检查左侧变量是否是 not live 变量
+        return stmt instanceof DefinitionStmt<?, ?> definitionStmt
+                && definitionStmt.getLValue() instanceof Var lVar
+                && !liveVars.getResult(stmt).contains(lVar)
+                && hasNoSideEffect(definitionStmt.getRValue());
+    }
+
     /**
      *
      *         int x = 10;
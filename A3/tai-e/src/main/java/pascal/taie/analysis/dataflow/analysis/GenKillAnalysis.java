@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.Indexable;
+
+import java.util.List;
+
+/**
+ * Data-flow analysis whose facts are sets of elements drawn from a fixed
+ * universe, and whose transfer functions have the form
+ * {@code OUT = GEN U (IN - KILL)} for forward analyses, and
+ * {@code IN = GEN U (OUT - KILL)} for backward analyses.
+ * <p>
+ * Such an analysis only declares its gen and kill sets, and is solved by
+ * {@link pascal.taie.analysis.dataflow.solver.GenKillSolver}, which can
+ * solve several analyses of the same direction together.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <E>    type of elements of the facts
+ */
+public interface GenKillAnalysis<Node, E extends Indexable> {
+
+    /**
+     * @return true if this analysis is forward, otherwise false.
+     */
+    boolean isForward();
+
+    /**
+     * @return true if the facts are met by union (may analysis),
+     * or false if they are met by intersection (must analysis).
+     */
+    boolean isMay();
+
+    /**
+     * @return the elements that may be contained in the facts of given CFG,
+     * where the element at position i must have index i.
+     */
+    List<E> getUniverse(CFG<Node> cfg);
+
+    /**
+     * Declares the gen and kill sets of the nodes of given CFG to {@code sets}.
+     * An element in both sets of a node is generated by the node.
+     */
+    void computeGenKill(CFG<Node> cfg, GenKillSets<Node, E> sets);
+
+    /**
+     * Receives the gen and kill sets of the nodes.
+     */
+    interface GenKillSets<Node, E> {
+
+        void gen(Node node, E e);
+
+        void kill(Node node, E e);
+    }
+}
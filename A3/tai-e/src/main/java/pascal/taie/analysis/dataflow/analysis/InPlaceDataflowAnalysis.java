@@ -0,0 +1,63 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+/**
+ * Extension of {@link DataflowAnalysis} for analyses whose functions
+ * update the target fact in place and report whether it changed as they
+ * go, instead of computing a new fact and comparing it with the old one.
+ * <p>
+ * Such an analysis must be monotone in the following sense: during solving,
+ * the target fact of a node transfer or a meet only moves up the lattice,
+ * so the solver never needs to reset a fact before recomputing it, and a
+ * node transfer can be skipped when its source fact did not change since
+ * the last transfer of the node. Solvers check for this interface and
+ * take advantage of it, thus they do not allocate any snapshot of facts.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface InPlaceDataflowAnalysis<Node, Fact>
+        extends DataflowAnalysis<Node, Fact> {
+
+    /**
+     * Meets a fact into another (target) fact in place.
+     *
+     * @return true if the target fact changed, otherwise false.
+     */
+    boolean mergeInto(Fact fact, Fact target);
+
+    @Override
+    default void meetInto(Fact fact, Fact target) {
+        mergeInto(fact, target);
+    }
+
+    /**
+     * Node transfer function that updates out (in) fact in place
+     * for forward (backward) analysis.
+     *
+     * @return true if the transfer changed the out (in) fact, otherwise false.
+     */
+    @Override
+    boolean transferNode(Node node, Fact in, Fact out);
+}
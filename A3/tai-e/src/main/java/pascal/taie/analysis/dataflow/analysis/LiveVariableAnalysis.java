@@ -22,21 +22,33 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.BitSetFactCodec;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
 import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.GenKillSolver;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
-import java.util.Optional;
+import java.util.List;
 
 /**
  * Implementation of classic live variable analysis.
+ * <p>
+ * By default, this analysis is solved as a {@link GenKillAnalysis}.
+ * If option "solver" is given, it is solved by the specified
+ * {@link pascal.taie.analysis.dataflow.solver.Solver} instead.
  */
 public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+        AbstractDataflowAnalysis<Stmt, SetFact<Var>>
+        implements InPlaceDataflowAnalysis<Stmt, SetFact<Var>>,
+        GenKillAnalysis<Stmt, Var> {
 
     public static final String ID = "livevar";
 
@@ -44,15 +56,58 @@ public class LiveVariableAnalysis extends
         super(config);
     }
 
+    @Override
+    public DataflowResult<Stmt, SetFact<Var>> analyze(IR ir) {
+        if (getSolverKind() != null) {
+            return super.analyze(ir);
+        }
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return store(cfg, GenKillSolver.solve(cfg, this, getMetricsSink()));
+    }
+
     @Override
     public boolean isForward() {
         return false;
     }
 
+    @Override
+    public boolean isMay() {
+        return true;
+    }
+
+    @Override
+    protected boolean hasFactCodec() {
+        return true;
+    }
+
+    @Override
+    protected FactCodec<SetFact<Var>> getFactCodec(CFG<Stmt> cfg) {
+        return new BitSetFactCodec<>(cfg.getIR().getVars());
+    }
+
+    @Override
+    public List<Var> getUniverse(CFG<Stmt> cfg) {
+        return cfg.getIR().getVars();
+    }
+
+    @Override
+    public void computeGenKill(CFG<Stmt> cfg, GenKillSets<Stmt, Var> sets) {
+        for (Stmt stmt : cfg) {
+            // KILL 为 defB，GEN 为 useB
+            if (stmt.getDef().orElse(null) instanceof Var def) {
+                sets.kill(stmt, def);
+            }
+            for (RValue rValue : stmt.getUses()) {
+                if (rValue instanceof Var use) {
+                    sets.gen(stmt, use);
+                }
+            }
+        }
+    }
+
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        SetFact<Var> ret = new SetFact<>();
-        return ret;
+        return newInitialFact(cfg);
     }
 
     @Override
@@ -61,45 +116,41 @@ public class LiveVariableAnalysis extends
         return ret;
     }
 
+    /**
+     * Facts of the solver are bit vectors over the variables of the method.
+     */
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        target.union(fact);
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        return new BitSetFact<>(cfg.getIR().getVars());
+    }
+
+    @Override
+    public boolean resetFact(SetFact<Var> fact) {
+        fact.clear();
+        return true;
+    }
+
+    @Override
+    public boolean mergeInto(SetFact<Var> fact, SetFact<Var> target) {
+        return target.union(fact);
     }
 
     @Override
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
         // IN[B] = useB U (OUT[B] - defB)
-        // 深度拷贝 in，目的是检查 in 是否改变了
-        SetFact<Var> inCopy = new SetFact<>();
-        inCopy.set(in);
-
-        // 1. IN[B] = useB
-        in.clear();
-        for (RValue rValue: stmt.getUses()) {
-            if (rValue instanceof Var) {
-                in.add((Var) rValue);
-            }
+        // OUT 在求解过程中只会增大，因此 IN 也只会增大，
+        // 直接在 IN 上原地累积，并同时记录 IN 是否改变
+        boolean changed;
+        if (stmt.getDef().orElse(null) instanceof Var def) {
+            changed = in.unionExcept(out, def);
+        } else {
+            changed = in.union(out);
         }
-
-        // 2. (OUT[B] - defB)
-
-        // 深度拷贝
-        SetFact<Var> outCopy = new SetFact<>();
-        outCopy.set(out);
-
-        Optional<LValue> o = stmt.getDef();
-        if (o.isPresent()) {
-            if (o.get() instanceof Var) {
-                Var defVar = (Var) o.get();
-                if (outCopy.contains(defVar)) {
-                    outCopy.remove(defVar);
-                }
+        for (RValue rValue : stmt.getUses()) {
+            if (rValue instanceof Var use) {
+                changed |= in.add(use);
             }
         }
-
-        in.union(outCopy);
-
-        // 观察 in 是否改变了
-        return !(in.equals(inCopy));
+        return changed;
     }
 }
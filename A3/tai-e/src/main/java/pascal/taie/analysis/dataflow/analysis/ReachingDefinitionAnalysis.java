@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.GenKillSolver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of classic reaching definition analysis, where the
+ * definitions are the statements that define variables.
+ */
+public class ReachingDefinitionAnalysis extends MethodAnalysis
+        implements GenKillAnalysis<Stmt, Stmt> {
+
+    public static final String ID = "reachdef";
+
+    public ReachingDefinitionAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public DataflowResult<Stmt, SetFact<Stmt>> analyze(IR ir) {
+        return GenKillSolver.solve(ir.getResult(CFGBuilder.ID), this);
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public boolean isMay() {
+        return true;
+    }
+
+    /**
+     * The universe consists of all statements of the method, as their
+     * indexes are the positions in the IR. Only the statements that
+     * define variables may be contained in the facts.
+     */
+    @Override
+    public List<Stmt> getUniverse(CFG<Stmt> cfg) {
+        return cfg.getIR().getStmts();
+    }
+
+    @Override
+    public void computeGenKill(CFG<Stmt> cfg, GenKillSets<Stmt, Stmt> sets) {
+        Map<Var, List<Stmt>> defs = Maps.newMap();
+        for (Stmt stmt : cfg.getIR()) {
+            if (stmt.getDef().orElse(null) instanceof Var var) {
+                defs.computeIfAbsent(var, v -> new ArrayList<>()).add(stmt);
+            }
+        }
+        // a definition kills all definitions of the same variable,
+        // and generates itself
+        defs.values().forEach(varDefs -> {
+            for (Stmt def : varDefs) {
+                for (Stmt killed : varDefs) {
+                    sets.kill(def, killed);
+                }
+                sets.gen(def, def);
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+/**
+ * Extension of {@link DataflowAnalysis} for analyses on lattices of
+ * infinite height, e.g., intervals, whose ascending chains must be cut
+ * short by widening so that solving terminates.
+ * <p>
+ * Solvers widen the facts at the heads of loops, and after the fixed
+ * point is reached, they run a bounded number of descending passes that
+ * narrow the facts at the loop heads and recompute the other facts from
+ * them. Thus the node transfer of such an analysis must compute the out
+ * (in) fact from the in (out) fact entirely, i.e., it must be able to
+ * lower the target fact, not only to raise it.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface WideningDataflowAnalysis<Node, Fact>
+        extends DataflowAnalysis<Node, Fact> {
+
+    /**
+     * Widens a fact into another (target) fact in place,
+     * i.e., target = target ∇ fact.
+     *
+     * @return true if the target fact changed, otherwise false.
+     */
+    boolean widenInto(Fact fact, Fact target);
+
+    /**
+     * Narrows a fact into another (target) fact in place,
+     * i.e., target = target Δ fact.
+     *
+     * @return true if the target fact changed, otherwise false.
+     */
+    boolean narrowInto(Fact fact, Fact target);
+}
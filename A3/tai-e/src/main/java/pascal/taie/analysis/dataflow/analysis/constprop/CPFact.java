@@ -23,10 +23,15 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.ir.exp.Var;
 
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,15 +42,21 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * The values are stored as {@link PackedValue}s in an open-addressing
+ * table indexed by {@link Var#getIndex()}, and the methods working on
+ * packed values, e.g., {@link #getPacked(Var)}, do not allocate objects.
+ * The {@link Value}s returned by the other methods are views of the packed
+ * values. Copies of a fact share the table until one of them is updated.
  */
-public class CPFact extends MapFact<Var, Value> {
+public class CPFact extends MapFact<Var, Value> implements VarValues {
 
     public CPFact() {
-        this(Collections.emptyMap());
+        this(new Table());
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    private CPFact(Table table) {
+        super(() -> table);
     }
 
     /**
@@ -54,23 +65,459 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        return PackedValue.toValue(getPacked(key));
+    }
+
+    /**
+     * @return the packed value of given variable in this fact,
+     * or {@link PackedValue#UNDEF} if the variable is absent in this fact.
+     */
+    @Override
+    public long getPacked(Var key) {
+        return table().getPacked(key);
     }
 
     @Override
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
-            // if the client code sets variable key to UNDEF,
-            // then we remove the variable from the CPFact
-            // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
+        return updatePacked(key, PackedValue.pack(value));
+    }
+
+    /**
+     * Updates the packed value of given variable in this fact.
+     * If the value is {@link PackedValue#UNDEF}, the variable is removed.
+     *
+     * @return if the update changes this fact.
+     */
+    public boolean updatePacked(Var key, long value) {
+        return table().putPacked(key, value) != value;
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = table().putPacked(key, PackedValue.UNDEF);
+        return PackedValue.isUndef(old) ? null : PackedValue.toValue(old);
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        Table other = ((CPFact) fact).table();
+        Table table = table();
+        if (table.isEmpty()) {
+            table.share(other);
+            return !table.isEmpty();
+        }
+        boolean changed = false;
+        for (int i = other.nextSlot(0); i >= 0; i = other.nextSlot(i + 1)) {
+            long value = other.valueAt(i);
+            changed |= table.putPacked(other.varAt(i), value) != value;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean copyFromExcept(MapFact<Var, Value> fact, Var excluded) {
+        Table other = ((CPFact) fact).table();
+        Table table = table();
+        boolean changed = false;
+        for (int i = other.nextSlot(0); i >= 0; i = other.nextSlot(i + 1)) {
+            Var var = other.varAt(i);
+            if (var != excluded) {
+                long value = other.valueAt(i);
+                changed |= table.putPacked(var, value) != value;
+            }
         }
+        return changed;
+    }
+
+    /**
+     * Copies the content from given fact to this fact, except the mapping
+     * of given key and the mappings of the variables not in {@code kept}.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFromExcept(CPFact fact, Var excluded, SetFact<Var> kept) {
+        Table other = fact.table();
+        Table table = table();
+        boolean changed = false;
+        for (int i = other.nextSlot(0); i >= 0; i = other.nextSlot(i + 1)) {
+            Var var = other.varAt(i);
+            if (var != excluded && kept.contains(var)) {
+                long value = other.valueAt(i);
+                changed |= table.putPacked(var, value) != value;
+            }
+        }
+        return changed;
     }
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        Table table = new Table();
+        table.share(table());
+        return new CPFact(table);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CPFact that)) {
+            return false;
+        }
+        return table().equals(that.table());
+    }
+
+    @Override
+    public int hashCode() {
+        return table().hashCode();
+    }
+
+    /**
+     * Returns the index of the first slot of the table holding a variable,
+     * starting at given index. Together with {@link #varAt(int)} and
+     * {@link #valueAt(int)}, this allows iterating over the fact without
+     * allocation:
+     * <pre>
+     * for (int i = fact.nextSlot(0); i >= 0; i = fact.nextSlot(i + 1)) ...
+     * </pre>
+     *
+     * @return the index of the slot, or -1 if there is no such slot.
+     */
+    int nextSlot(int from) {
+        return table().nextSlot(from);
+    }
+
+    /**
+     * @return the variable in given slot.
+     */
+    Var varAt(int slot) {
+        return table().varAt(slot);
+    }
+
+    /**
+     * @return the packed value in given slot.
+     */
+    long valueAt(int slot) {
+        return table().valueAt(slot);
+    }
+
+    private Table table() {
+        return (Table) map;
+    }
+
+    /**
+     * The arrays of a table. They may be shared by multiple tables,
+     * and they are copied before being modified by a table if shared.
+     */
+    private static final class Storage {
+
+        private static final Storage EMPTY = new Storage(0);
+
+        private final Var[] vars;
+
+        private final long[] values;
+
+        private int size;
+
+        /**
+         * Number of tables sharing this storage. It may be greater than
+         * the actual number, which only causes unnecessary copies.
+         * It is not counted for {@link #EMPTY}.
+         */
+        private int owners = 1;
+
+        private Storage(int capacity) {
+            vars = new Var[capacity];
+            values = new long[capacity];
+        }
+    }
+
+    /**
+     * Open-addressing table with linear probing, which maps variables to
+     * packed values. The slot of a variable is given by its index. As a
+     * {@link Map}, it maps variables to the {@link Value}s of packed values.
+     */
+    private static final class Table extends AbstractMap<Var, Value> {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private Storage storage = Storage.EMPTY;
+
+        private Set<Map.Entry<Var, Value>> entrySet;
+
+        private int find(Var var) {
+            Var[] vars = storage.vars;
+            if (storage.size == 0) {
+                return -1;
+            }
+            int mask = vars.length - 1;
+            for (int i = var.getIndex() & mask; ; i = (i + 1) & mask) {
+                Var v = vars[i];
+                if (v == var) {
+                    return i;
+                } else if (v == null) {
+                    return -1;
+                }
+            }
+        }
+
+        private long getPacked(Var var) {
+            int i = find(var);
+            return i >= 0 ? storage.values[i] : PackedValue.UNDEF;
+        }
+
+        /**
+         * Associates given variable with given packed value, or removes
+         * the variable if the value is UNDEF.
+         *
+         * @return the previous packed value of the variable.
+         */
+        private long putPacked(Var var, long value) {
+            int i = find(var);
+            if (i >= 0) {
+                long old = storage.values[i];
+                if (old != value) {
+                    ensureWritable(storage.size);
+                    if (PackedValue.isUndef(value)) {
+                        delete(i);
+                    } else {
+                        storage.values[i] = value;
+                    }
+                }
+                return old;
+            }
+            if (!PackedValue.isUndef(value)) {
+                ensureWritable(storage.size + 1);
+                Var[] vars = storage.vars;
+                int mask = vars.length - 1;
+                int j = var.getIndex() & mask;
+                while (vars[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                vars[j] = var;
+                storage.values[j] = value;
+                ++storage.size;
+            }
+            return PackedValue.UNDEF;
+        }
+
+        /**
+         * Ensures that the storage is owned by this table only and
+         * has enough capacity for given number of variables.
+         * This may move variables to other slots.
+         */
+        private void ensureWritable(int size) {
+            int capacity = storage.vars.length;
+            if (size * 2 > capacity) {
+                int newCapacity = Math.max(INITIAL_CAPACITY, capacity);
+                while (size * 2 > newCapacity) {
+                    newCapacity <<= 1;
+                }
+                rehash(newCapacity);
+            } else if (storage.owners > 1) {
+                Storage copy = new Storage(capacity);
+                System.arraycopy(storage.vars, 0, copy.vars, 0, capacity);
+                System.arraycopy(storage.values, 0, copy.values, 0, capacity);
+                copy.size = storage.size;
+                release();
+                storage = copy;
+            }
+        }
+
+        private void rehash(int capacity) {
+            Storage old = storage;
+            Storage s = new Storage(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.vars.length; ++i) {
+                Var var = old.vars[i];
+                if (var != null) {
+                    int j = var.getIndex() & mask;
+                    while (s.vars[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    s.vars[j] = var;
+                    s.values[j] = old.values[i];
+                }
+            }
+            s.size = old.size;
+            release();
+            storage = s;
+        }
+
+        /**
+         * Deletes the variable in given slot, and shifts the following
+         * variables back to keep them reachable from their home slots.
+         */
+        private void delete(int slot) {
+            Var[] vars = storage.vars;
+            long[] values = storage.values;
+            int mask = vars.length - 1;
+            int hole = slot;
+            vars[hole] = null;
+            for (int i = (hole + 1) & mask; vars[i] != null; i = (i + 1) & mask) {
+                int home = vars[i].getIndex() & mask;
+                // move the variable to the hole unless its home slot
+                // is cyclically in (hole, i]
+                boolean stay = hole < i ?
+                        hole < home && home <= i :
+                        hole < home || home <= i;
+                if (!stay) {
+                    vars[hole] = vars[i];
+                    values[hole] = values[i];
+                    vars[i] = null;
+                    hole = i;
+                }
+            }
+            --storage.size;
+        }
+
+        /**
+         * Lets this table share the storage of other table.
+         */
+        private void share(Table other) {
+            release();
+            storage = other.storage;
+            if (storage != Storage.EMPTY) {
+                ++storage.owners;
+            }
+        }
+
+        /**
+         * Releases the current storage of this table. The empty storage
+         * is never written, and thus its owners are not counted.
+         */
+        private void release() {
+            if (storage != Storage.EMPTY) {
+                --storage.owners;
+            }
+        }
+
+        private int nextSlot(int from) {
+            Var[] vars = storage.vars;
+            for (int i = from; i < vars.length; ++i) {
+                if (vars[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Var varAt(int slot) {
+            return storage.vars[slot];
+        }
+
+        private long valueAt(int slot) {
+            return storage.values[slot];
+        }
+
+        @Override
+        public int size() {
+            return storage.size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Var var && find(var) >= 0;
+        }
+
+        @Override
+        public Value get(Object key) {
+            if (key instanceof Var var) {
+                int i = find(var);
+                if (i >= 0) {
+                    return PackedValue.toValue(storage.values[i]);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Value put(Var key, Value value) {
+            long old = putPacked(key, PackedValue.pack(value));
+            return PackedValue.isUndef(old) ? null : PackedValue.toValue(old);
+        }
+
+        @Override
+        public Value remove(Object key) {
+            return key instanceof Var var ? put(var, Value.getUndef()) : null;
+        }
+
+        @Override
+        public void clear() {
+            release();
+            storage = Storage.EMPTY;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The entries are immutable, and the iterators do not support removal.
+         */
+        @Override
+        public Set<Map.Entry<Var, Value>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Map.Entry<Var, Value>> iterator() {
+                        return new Iterator<>() {
+                            private int next = nextSlot(0);
+
+                            @Override
+                            public boolean hasNext() {
+                                return next >= 0;
+                            }
+
+                            @Override
+                            public Map.Entry<Var, Value> next() {
+                                if (next < 0) {
+                                    throw new NoSuchElementException();
+                                }
+                                Map.Entry<Var, Value> entry = new SimpleImmutableEntry<>(
+                                        varAt(next), PackedValue.toValue(valueAt(next)));
+                                next = nextSlot(next + 1);
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return storage.size;
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Table that)) {
+                return super.equals(o);
+            }
+            if (storage == that.storage) {
+                return true;
+            }
+            if (storage.size != that.storage.size) {
+                return false;
+            }
+            for (int i = nextSlot(0); i >= 0; i = nextSlot(i + 1)) {
+                if (that.getPacked(varAt(i)) != valueAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (int i = nextSlot(0); i >= 0; i = nextSlot(i + 1)) {
+                h += varAt(i).hashCode() ^ PackedValue.hashCode(valueAt(i));
+            }
+            return h;
+        }
     }
 }
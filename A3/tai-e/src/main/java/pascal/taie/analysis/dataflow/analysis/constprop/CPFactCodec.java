@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.ir.exp.Var;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes {@link CPFact}s as the number of variables followed by
+ * (variable index, packed value) pairs.
+ */
+final class CPFactCodec implements FactCodec<CPFact> {
+
+    /**
+     * Variables of the method, ordered by their indexes.
+     */
+    private final List<Var> vars;
+
+    CPFactCodec(List<Var> vars) {
+        this.vars = vars;
+    }
+
+    @Override
+    public int sizeOf(CPFact fact) {
+        int count = 0;
+        for (int i = fact.nextSlot(0); i >= 0; i = fact.nextSlot(i + 1)) {
+            ++count;
+        }
+        return Integer.BYTES + count * (Integer.BYTES + Long.BYTES);
+    }
+
+    @Override
+    public void encode(CPFact fact, ByteBuffer buffer) {
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+        int count = 0;
+        for (int i = fact.nextSlot(0); i >= 0; i = fact.nextSlot(i + 1)) {
+            buffer.putInt(fact.varAt(i).getIndex());
+            buffer.putLong(fact.valueAt(i));
+            ++count;
+        }
+        buffer.putInt(countPosition, count);
+    }
+
+    @Override
+    public CPFact decode(ByteBuffer buffer) {
+        CPFact fact = new CPFact();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; ++i) {
+            Var var = vars.get(buffer.getInt());
+            fact.updatePacked(var, buffer.getLong());
+        }
+        return fact;
+    }
+}
@@ -23,7 +23,14 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.ArithmeticExp;
@@ -40,16 +47,63 @@ import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
+import java.util.function.IntBinaryOperator;
+
 import static pascal.taie.ir.exp.ArithmeticExp.Op.DIV;
 import static pascal.taie.ir.exp.ArithmeticExp.Op.REM;
 
 public class ConstantPropagation extends
-        AbstractDataflowAnalysis<Stmt, CPFact> {
+        AbstractDataflowAnalysis<Stmt, CPFact>
+        implements InPlaceDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to drop the variables that are not live from the facts.
+     * This does not change the values of live variables.
+     */
+    private final boolean pruneDead;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        pruneDead = getOptions().getBooleanOrDefault("prune-dead", false);
+    }
+
+    /**
+     * Solves constant propagation on given IR with the transfer functions
+     * compiled for its statements, which are cached in the IR.
+     */
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        DataflowResult<Stmt, SetFact<Var>> liveVars = pruneDead
+                ? getLiveVars(ir) : null;
+        return store(cfg, makeSolver(new CompiledConstantPropagation(
+                TransferFunctions.get(ir), liveVars)).solve(cfg));
+    }
+
+    @Override
+    protected boolean hasFactCodec() {
+        return true;
+    }
+
+    @Override
+    protected FactCodec<CPFact> getFactCodec(CFG<Stmt> cfg) {
+        return new CPFactCodec(cfg.getIR().getVars());
+    }
+
+    /**
+     * @return the result of live variable analysis on given IR,
+     * which is computed if the IR does not hold it.
+     */
+    private static DataflowResult<Stmt, SetFact<Var>> getLiveVars(IR ir) {
+        DataflowResult<Stmt, SetFact<Var>> liveVars =
+                ir.getResult(LiveVariableAnalysis.ID);
+        if (liveVars == null) {
+            liveVars = new LiveVariableAnalysis(
+                    new AnalysisConfig(LiveVariableAnalysis.ID)).analyze(ir);
+        }
+        return liveVars;
     }
 
     @Override
@@ -64,7 +118,7 @@ public class ConstantPropagation extends
         // 处理每个会被分析的方法的参数
         for (Var var : cfg.getIR().getParams()){
             if (canHoldInt(var)){
-                ret.update(var, Value.getNAC());
+                ret.updatePacked(var, PackedValue.NAC);
             }
         }
         return ret;
@@ -77,10 +131,20 @@ public class ConstantPropagation extends
     }
 
     @Override
-    public void meetInto(CPFact fact, CPFact target) {
-        for (Var var: fact.keySet()) {
-            target.update(var, meetValue(fact.get(var), target.get(var)));
+    public boolean resetFact(CPFact fact) {
+        fact.clear();
+        return true;
+    }
+
+    @Override
+    public boolean mergeInto(CPFact fact, CPFact target) {
+        boolean changed = false;
+        for (int i = fact.nextSlot(0); i >= 0; i = fact.nextSlot(i + 1)) {
+            Var var = fact.varAt(i);
+            changed |= target.updatePacked(var,
+                    meetValue(fact.valueAt(i), target.getPacked(var)));
         }
+        return changed;
     }
 
     /**
@@ -106,16 +170,33 @@ public class ConstantPropagation extends
         }
     }
 
+    /**
+     * Meets two packed values.
+     */
+    public static long meetValue(long v1, long v2) {
+        if (PackedValue.isUndef(v1)) {
+            return v2;
+        } else if (PackedValue.isUndef(v2) || v1 == v2) {
+            return v1;
+        } else {
+            // 不同的常量，或者其中之一为 NAC
+            return PackedValue.NAC;
+        }
+    }
+
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
         if (stmt instanceof DefinitionStmt<?,?> definitionStmt) {
             // 判断一个变量是否在本次作业的分析范围内，并忽略那些不在范围内的变量
             if (definitionStmt.getLValue() instanceof Var var && canHoldInt(var)){
-                CPFact inCopy = new CPFact();
-                inCopy.copyFrom(in);
-                // 用 gen 替换掉 原来的 x 的取值
-                inCopy.update(var, evaluate(definitionStmt.getRValue(), inCopy));
-                return out.copyFrom(inCopy);
+                // 直接在 OUT 上原地更新：除 x 以外的变量从 IN 复制，
+                // 再用 gen 替换掉原来的 x 的取值（UNDEF 表示 x 不出现在 OUT 中）
+                boolean changed = out.copyFromExcept(in, var);
+                long value = evaluatePacked(definitionStmt.getRValue(), in);
+                if (!PackedValue.isUndef(value)) {
+                    changed |= out.updatePacked(var, value);
+                }
+                return changed;
             }
         }
 
@@ -149,99 +230,171 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
+        return PackedValue.toValue(evaluatePacked(exp, in));
+    }
+
+    /**
+     * Evaluates the packed value of given expression without allocation.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting {@link PackedValue}
+     */
+    public static long evaluatePacked(Exp exp, CPFact in) {
+        return evaluatePacked(exp, (VarValues) in);
+    }
+
+    /**
+     * Evaluates the packed value of given expression, where the values
+     * of the variables are given by {@code in}.
+     */
+    static long evaluatePacked(Exp exp, VarValues in) {
         // 1. x = c
         if (exp instanceof IntLiteral intLiteral) {
-            return Value.makeConstant(intLiteral.getValue());
+            return PackedValue.makeConstant(intLiteral.getValue());
         }
         // 2. x = y
         if (exp instanceof Var var) {
-            return in.get(var);
+            return in.getPacked(var);
         }
         // 3. x = y op z
         if (exp instanceof BinaryExp binaryExp) {
-            Var op1 = binaryExp.getOperand1();
-            Var op2 = binaryExp.getOperand2();
             BinaryExp.Op operator = binaryExp.getOperator();
-
-            Value val1 = in.get(op1);
-            Value val2 = in.get(op2);
+            long val1 = in.getPacked(binaryExp.getOperand1());
+            long val2 = in.getPacked(binaryExp.getOperand2());
 
             // special case:  x = a / 0, x is undef
-            if (val2.isConstant() && val2.getConstant() == 0 && (operator == DIV || operator == REM)) {
-                return Value.getUndef();
+            if (val2 == PackedValue.makeConstant(0) && (operator == DIV || operator == REM)) {
+                return PackedValue.UNDEF;
             }
 
             // (2) if val(y) or val(z) is NAC, f(y,z) = NAC
-            if (val1.isNAC() || val2.isNAC()) {
-                return Value.getNAC();
+            if (PackedValue.isNAC(val1) || PackedValue.isNAC(val2)) {
+                return PackedValue.NAC;
             }
 
             // (1) if val(y) and val(z) are constant, f(y,z) = val(y) op val(z)
-            if (val1.isConstant() && val2.isConstant()) {
-                String op = operator.toString();
-                int c1 = val1.getConstant();
-                int c2 = val2.getConstant();
-
-                // 1. 除 0 异常
-                // 2. 溢出异常
-
-                switch (op) {
-                    // + - * / %
-                    case "+":
-                        return Value.makeConstant(c1 + c2);
-                    case "-":
-                        return Value.makeConstant(c1 - c2);
-                    case "*":
-                        return Value.makeConstant(c1 * c2);
-                    case "/":
-                        if (c2 == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(c1 / c2);
-                    case "%":
-                        if (c2 == 0) {
-                            return Value.getUndef();
-                        }
-                        return Value.makeConstant(c1 % c2);
-                    // == != < > <= >=
-                    case "==":
-                        return Value.makeConstant(c1 == c2 ? 1 : 0);
-                    case "!=":
-                        return Value.makeConstant(c1 != c2 ? 1 : 0);
-                    case "<":
-                        return Value.makeConstant(c1 < c2 ? 1 : 0);
-                    case ">":
-                        return Value.makeConstant(c1 > c2 ? 1 : 0);
-                    case "<=":
-                        return Value.makeConstant(c1 <= c2 ? 1 : 0);
-                    case ">=":
-                        return Value.makeConstant(c1 >= c2 ? 1 : 0);
-                    // << >> >>>
-                    case "<<":
-                        return Value.makeConstant(c1 << c2);
-                    case ">>":
-                        return Value.makeConstant(c1 >> c2);
-                    case ">>>":
-                        return Value.makeConstant(c1 >>> c2);
-                    // | & ^
-                    case "|":
-                        return Value.makeConstant(c1 | c2);
-                    case "&":
-                        return Value.makeConstant(c1 & c2);
-                    case "^":
-                        return Value.makeConstant(c1 ^ c2);
-                    default:
-                        return Value.getNAC();
-                }
+            if (PackedValue.isConstant(val1) && PackedValue.isConstant(val2)) {
+                IntBinaryOperator function = getFunction(operator);
+                return function != null
+                        ? PackedValue.makeConstant(function.applyAsInt(
+                                PackedValue.getConstant(val1), PackedValue.getConstant(val2)))
+                        : PackedValue.NAC;
             }
             // (3) return UNDEF
             else {
-                return Value.getUndef();
+                return PackedValue.UNDEF;
             }
         }
         // 其它情况
         else {
-            return Value.getNAC();
+            return PackedValue.NAC;
+        }
+    }
+
+    /**
+     * @return the function that computes given operator on two int
+     * constants, or null if the operator is not supported.
+     */
+    static IntBinaryOperator getFunction(BinaryExp.Op operator) {
+        if (operator instanceof ArithmeticExp.Op op) {
+            // + - * / %，除数为 0 的情况由调用者处理
+            return switch (op) {
+                case ADD -> (c1, c2) -> c1 + c2;
+                case SUB -> (c1, c2) -> c1 - c2;
+                case MUL -> (c1, c2) -> c1 * c2;
+                case DIV -> (c1, c2) -> c1 / c2;
+                case REM -> (c1, c2) -> c1 % c2;
+            };
+        } else if (operator instanceof ConditionExp.Op op) {
+            // == != < > <= >=
+            return switch (op) {
+                case EQ -> (c1, c2) -> c1 == c2 ? 1 : 0;
+                case NE -> (c1, c2) -> c1 != c2 ? 1 : 0;
+                case LT -> (c1, c2) -> c1 < c2 ? 1 : 0;
+                case GT -> (c1, c2) -> c1 > c2 ? 1 : 0;
+                case LE -> (c1, c2) -> c1 <= c2 ? 1 : 0;
+                case GE -> (c1, c2) -> c1 >= c2 ? 1 : 0;
+            };
+        } else if (operator instanceof ShiftExp.Op op) {
+            // << >> >>>
+            return switch (op) {
+                case SHL -> (c1, c2) -> c1 << c2;
+                case SHR -> (c1, c2) -> c1 >> c2;
+                case USHR -> (c1, c2) -> c1 >>> c2;
+            };
+        } else if (operator instanceof BitwiseExp.Op op) {
+            // | & ^
+            return switch (op) {
+                case OR -> (c1, c2) -> c1 | c2;
+                case AND -> (c1, c2) -> c1 & c2;
+                case XOR -> (c1, c2) -> c1 ^ c2;
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Constant propagation on one IR, whose node transfers run the
+     * functions compiled by {@link TransferFunctions}.
+     */
+    private class CompiledConstantPropagation
+            implements InPlaceDataflowAnalysis<Stmt, CPFact> {
+
+        private final TransferFunctions transfers;
+
+        /**
+         * Live variables used to prune the out facts, or null if
+         * the facts are not pruned.
+         */
+        private final DataflowResult<Stmt, SetFact<Var>> liveVars;
+
+        private CompiledConstantPropagation(
+                TransferFunctions transfers,
+                DataflowResult<Stmt, SetFact<Var>> liveVars) {
+            this.transfers = transfers;
+            this.liveVars = liveVars;
+        }
+
+        @Override
+        public boolean isForward() {
+            return ConstantPropagation.this.isForward();
+        }
+
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public CPFact newInitialFact() {
+            return ConstantPropagation.this.newInitialFact();
+        }
+
+        @Override
+        public boolean resetFact(CPFact fact) {
+            return ConstantPropagation.this.resetFact(fact);
+        }
+
+        @Override
+        public boolean mergeInto(CPFact fact, CPFact target) {
+            return ConstantPropagation.this.mergeInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            return transfers.get(stmt).apply(in, out,
+                    liveVars != null ? liveVars.getResult(stmt) : null);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return ConstantPropagation.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            return ConstantPropagation.this.transferEdge(edge, nodeFact);
         }
     }
 }
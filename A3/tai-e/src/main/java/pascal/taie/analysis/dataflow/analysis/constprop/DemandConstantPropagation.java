@@ -0,0 +1,270 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Demand-driven constant propagation for a method, which computes the
+ * value of a variable before a statement only when it is queried.
+ * <p>
+ * A query walks backward from the statement through the CFG, and stops
+ * at the definitions of the variable, where it continues with the
+ * variables used by the definitions. The values of the variables
+ * and statements reached in this way are then solved by iteration,
+ * in the same way as {@link ConstantPropagation}, thus they are
+ * the same as the ones in the IN facts given by it. The solved values
+ * are memoized per (variable, statement), and are reused by later queries.
+ */
+public class DemandConstantPropagation {
+
+    /**
+     * Key of the result of this analysis in {@link IR}.
+     */
+    public static final String ID = "demand-constprop";
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Nodes of the CFG, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Stmt[] stmts;
+
+    private final List<Var> vars;
+
+    private final Set<Var> params;
+
+    /**
+     * Solved values of variables before statements.
+     */
+    private final Map<Long, Long> values = Maps.newMap();
+
+    private DemandConstantPropagation(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        this.stmts = new Stmt[cfg.getNumberOfNodes()];
+        for (Stmt stmt : cfg) {
+            stmts[stmt.getIndex()] = stmt;
+        }
+        IR ir = cfg.getIR();
+        this.vars = ir.getVars();
+        this.params = Sets.newSet();
+        this.params.addAll(ir.getParams());
+    }
+
+    /**
+     * @return the demand-driven constant propagation for given IR,
+     * which is created on first request, and then stored in the IR.
+     */
+    public static DemandConstantPropagation getResult(IR ir) {
+        return ir.getResult(ID, () ->
+                new DemandConstantPropagation(ir.getResult(CFGBuilder.ID)));
+    }
+
+    /**
+     * @return the value of given variable before given statement.
+     */
+    public Value getValue(Stmt stmt, Var var) {
+        return PackedValue.toValue(getPacked(stmt, var));
+    }
+
+    /**
+     * @return the packed value of given variable before given statement.
+     */
+    public synchronized long getPacked(Stmt stmt, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return PackedValue.UNDEF;
+        }
+        long node = node(stmt, var);
+        Long value = values.get(node);
+        if (value == null) {
+            new Query(node).solve();
+            value = values.get(node);
+        }
+        return value;
+    }
+
+    /**
+     * @return the packed value of given expression before given statement.
+     */
+    public long evaluate(Stmt stmt, Exp exp) {
+        return ConstantPropagation.evaluatePacked(exp, var -> getPacked(stmt, var));
+    }
+
+    /**
+     * Each pair of a statement and a variable, standing for the value of
+     * the variable before the statement, is encoded into a long.
+     */
+    private static long node(Stmt stmt, Var var) {
+        return ((long) stmt.getIndex() << 32) | var.getIndex();
+    }
+
+    private Stmt stmtOf(long node) {
+        return stmts[(int) (node >>> 32)];
+    }
+
+    private Var varOf(long node) {
+        return vars.get((int) node);
+    }
+
+    /**
+     * @return the int-holding variable defined by given statement,
+     * or null if the statement defines no such variable.
+     */
+    private static Var getDef(Stmt stmt) {
+        return stmt instanceof DefinitionStmt<?, ?> definitionStmt
+                && definitionStmt.getLValue() instanceof Var var
+                && ConstantPropagation.canHoldInt(var) ? var : null;
+    }
+
+    /**
+     * @return the variables whose values before {@code pred} are needed
+     * to compute the value of {@code var} after {@code pred}.
+     */
+    private List<Var> getInputs(Stmt pred, Var var) {
+        if (pred == cfg.getEntry()) {
+            return List.of();
+        }
+        if (var != getDef(pred)) {
+            return List.of(var);
+        }
+        RValue rValue = ((DefinitionStmt<?, ?>) pred).getRValue();
+        List<Var> inputs = new ArrayList<>(2);
+        if (rValue instanceof Var use) {
+            inputs.add(use);
+        } else if (rValue instanceof BinaryExp binaryExp) {
+            inputs.add(binaryExp.getOperand1());
+            inputs.add(binaryExp.getOperand2());
+        }
+        inputs.removeIf(v -> !ConstantPropagation.canHoldInt(v));
+        return inputs;
+    }
+
+    /**
+     * Solves the values of the nodes that a query depends on.
+     */
+    private class Query {
+
+        /**
+         * Values of the nodes not solved by previous queries.
+         */
+        private final Map<Long, Long> local = Maps.newMap();
+
+        /**
+         * Nodes whose values are computed from the value of each node.
+         */
+        private final Map<Long, List<Long>> dependents = Maps.newMap();
+
+        private Query(long root) {
+            Deque<Long> stack = new ArrayDeque<>();
+            local.put(root, PackedValue.UNDEF);
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                long node = stack.pop();
+                Var var = varOf(node);
+                for (Stmt pred : cfg.getPredsOf(stmtOf(node))) {
+                    for (Var input : getInputs(pred, var)) {
+                        long dep = node(pred, input);
+                        if (values.containsKey(dep)) {
+                            continue;
+                        }
+                        dependents.computeIfAbsent(dep, k -> new ArrayList<>())
+                                .add(node);
+                        if (local.putIfAbsent(dep, PackedValue.UNDEF) == null) {
+                            stack.push(dep);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void solve() {
+            Deque<Long> workList = new ArrayDeque<>(local.keySet());
+            Set<Long> inWorkList = Sets.newSet();
+            inWorkList.addAll(local.keySet());
+            while (!workList.isEmpty()) {
+                long node = workList.poll();
+                inWorkList.remove(node);
+                long value = compute(node);
+                if (value != local.put(node, value)) {
+                    for (long dependent : dependents.getOrDefault(node, List.of())) {
+                        if (inWorkList.add(dependent)) {
+                            workList.add(dependent);
+                        }
+                    }
+                }
+            }
+            values.putAll(local);
+        }
+
+        /**
+         * Meets the values of the variable after the predecessors of the
+         * statement, following {@link ConstantPropagation#transferNode}.
+         */
+        private long compute(long node) {
+            Stmt stmt = stmtOf(node);
+            Var var = varOf(node);
+            long value = PackedValue.UNDEF;
+            for (Stmt pred : cfg.getPredsOf(stmt)) {
+                long predValue;
+                if (pred == cfg.getEntry()) {
+                    predValue = params.contains(var)
+                            ? PackedValue.NAC : PackedValue.UNDEF;
+                } else if (var == getDef(pred)) {
+                    predValue = ConstantPropagation.evaluatePacked(
+                            ((DefinitionStmt<?, ?>) pred).getRValue(),
+                            v -> lookup(pred, v));
+                } else {
+                    predValue = lookup(pred, var);
+                }
+                value = ConstantPropagation.meetValue(value, predValue);
+            }
+            return value;
+        }
+
+        private long lookup(Stmt stmt, Var var) {
+            if (!ConstantPropagation.canHoldInt(var)) {
+                return PackedValue.UNDEF;
+            }
+            long node = node(stmt, var);
+            Long value = values.get(node);
+            return value != null ? value : local.get(node);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+/**
+ * Represents lattice values in interval analysis, i.e., ranges
+ * [lower, upper] of int values. The bounds are inclusive, and
+ * {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE} stand for
+ * unbounded ends. Empty intervals are not represented by this class;
+ * the analysis uses null (absence from a fact) for them.
+ * <p>
+ * As int arithmetic wraps around on overflow, an operation whose result
+ * may not fit in int gives {@link #getTop() TOP}.
+ */
+public final class Interval {
+
+    /**
+     * The interval of all int values.
+     */
+    private static final Interval TOP =
+            new Interval(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    /**
+     * The interval [0, 1], which holds the values of conditions.
+     */
+    private static final Interval BOOLEAN = new Interval(0, 1);
+
+    private final int lower;
+
+    private final int upper;
+
+    private Interval(int lower, int upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * @return the interval of all int values.
+     */
+    public static Interval getTop() {
+        return TOP;
+    }
+
+    /**
+     * @return the interval [0, 1].
+     */
+    public static Interval getBoolean() {
+        return BOOLEAN;
+    }
+
+    /**
+     * @return the interval holding only given value.
+     */
+    public static Interval makeConstant(int value) {
+        return new Interval(value, value);
+    }
+
+    /**
+     * @return the interval [lower, upper], or null if it is empty.
+     * Bounds beyond the range of int give {@link #getTop() TOP}.
+     */
+    public static Interval make(long lower, long upper) {
+        if (lower > upper) {
+            return null;
+        }
+        if (lower < Integer.MIN_VALUE || upper > Integer.MAX_VALUE) {
+            return TOP;
+        }
+        if (lower == Integer.MIN_VALUE && upper == Integer.MAX_VALUE) {
+            return TOP;
+        }
+        return new Interval((int) lower, (int) upper);
+    }
+
+    public int getLower() {
+        return lower;
+    }
+
+    public int getUpper() {
+        return upper;
+    }
+
+    /**
+     * @return true if this interval holds only one value, otherwise false.
+     */
+    public boolean isConstant() {
+        return lower == upper;
+    }
+
+    /**
+     * @return true if this interval contains given value, otherwise false.
+     */
+    public boolean contains(int value) {
+        return lower <= value && value <= upper;
+    }
+
+    /**
+     * @return the least interval containing this and given interval.
+     */
+    public Interval join(Interval other) {
+        if (other.lower >= lower && other.upper <= upper) {
+            return this;
+        }
+        return make(Math.min(lower, other.lower), Math.max(upper, other.upper));
+    }
+
+    /**
+     * @return the intersection of this and given interval,
+     * or null if it is empty.
+     */
+    public Interval intersect(Interval other) {
+        if (other.lower <= lower && other.upper >= upper) {
+            return this;
+        }
+        return make(Math.max(lower, other.lower), Math.min(upper, other.upper));
+    }
+
+    /**
+     * Widening: the bounds of this interval which given interval
+     * goes beyond are moved to the unbounded ends.
+     */
+    public Interval widen(Interval other) {
+        int l = other.lower < lower ? Integer.MIN_VALUE : lower;
+        int u = other.upper > upper ? Integer.MAX_VALUE : upper;
+        return l == lower && u == upper ? this : make(l, u);
+    }
+
+    /**
+     * Narrowing: the unbounded ends of this interval are replaced
+     * by the bounds of given interval.
+     */
+    public Interval narrow(Interval other) {
+        int l = lower == Integer.MIN_VALUE ? other.lower : lower;
+        int u = upper == Integer.MAX_VALUE ? other.upper : upper;
+        if (l == lower && u == upper) {
+            return this;
+        }
+        Interval narrowed = make(l, u);
+        return narrowed != null ? narrowed : this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Interval that)) {
+            return false;
+        }
+        return lower == that.lower && upper == that.upper;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * lower + upper;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (lower == Integer.MIN_VALUE ? "-inf" : lower)
+                + ", " + (upper == Integer.MAX_VALUE ? "+inf" : upper) + "]";
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.WideningDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+/**
+ * Interval analysis, i.e., constant propagation on the domain of
+ * {@link Interval}s. Unlike {@link ConstantPropagation}, which gives NAC
+ * to a variable as soon as it holds two values, e.g., a loop counter,
+ * this analysis keeps the range of the values of the variable.
+ * <p>
+ * The domain has infinite ascending chains, so the facts are widened
+ * at loop heads, and then narrowed by the solver, see
+ * {@link WideningDataflowAnalysis}. The facts are also refined by the
+ * conditions of the branches along {@code if} and {@code switch} edges,
+ * which bounds loop counters, and gives empty facts on the edges that
+ * cannot be taken.
+ */
+public class IntervalAnalysis extends
+        AbstractDataflowAnalysis<Stmt, IntervalFact>
+        implements InPlaceDataflowAnalysis<Stmt, IntervalFact>,
+        WideningDataflowAnalysis<Stmt, IntervalFact> {
+
+    public static final String ID = "interval";
+
+    public IntervalAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * @return the result of this analysis for given IR. The result is
+     * computed on first request, and then stored in the IR.
+     */
+    public static DataflowResult<Stmt, IntervalFact> getResult(IR ir) {
+        return ir.getResult(ID, () ->
+                new IntervalAnalysis(new AnalysisConfig(ID)).analyze(ir));
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public IntervalFact newBoundaryFact(CFG<Stmt> cfg) {
+        IntervalFact fact = new IntervalFact();
+        for (Var param : cfg.getIR().getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                fact.update(param, Interval.getTop());
+            }
+        }
+        return fact;
+    }
+
+    @Override
+    public IntervalFact newInitialFact() {
+        return new IntervalFact();
+    }
+
+    @Override
+    public boolean mergeInto(IntervalFact fact, IntervalFact target) {
+        boolean changed = false;
+        for (Var var : fact.keySet()) {
+            Interval value = fact.get(var);
+            Interval old = target.get(var);
+            changed |= target.update(var, old != null ? old.join(value) : value);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean widenInto(IntervalFact fact, IntervalFact target) {
+        boolean changed = false;
+        for (Var var : fact.keySet()) {
+            Interval value = fact.get(var);
+            Interval old = target.get(var);
+            changed |= target.update(var, old != null ? old.widen(value) : value);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean narrowInto(IntervalFact fact, IntervalFact target) {
+        boolean changed = false;
+        for (Var var : fact.keySet()) {
+            Interval old = target.get(var);
+            if (old != null) {
+                changed |= target.update(var, old.narrow(fact.get(var)));
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean transferNode(Stmt stmt, IntervalFact in, IntervalFact out) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt
+                && definitionStmt.getLValue() instanceof Var var
+                && ConstantPropagation.canHoldInt(var)) {
+            boolean changed = out.setFromExcept(in, var);
+            return out.updateOrRemove(var,
+                    evaluate(definitionStmt.getRValue(), in)) || changed;
+        }
+        return out.setFromExcept(in, null);
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Stmt> edge) {
+        return switch (edge.getKind()) {
+            case IF_TRUE, IF_FALSE, SWITCH_CASE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Refines the fact by the condition of the branch. The fact flowing
+     * through an edge that cannot be taken is empty.
+     */
+    @Override
+    public IntervalFact transferEdge(Edge<Stmt> edge, IntervalFact nodeFact) {
+        IntervalFact refined = refine(edge, nodeFact);
+        return refined != null ? refined : newInitialFact();
+    }
+
+    /**
+     * @return true if given edge may be taken according to the intervals
+     * in the IN fact of its source, otherwise false.
+     */
+    public static boolean isFeasible(Edge<Stmt> edge, IntervalFact in) {
+        return refine(edge, in) != null;
+    }
+
+    /**
+     * Evaluates the interval of given expression.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting interval, or null if the expression
+     * has no value, e.g., it uses a variable that has no value.
+     */
+    public static Interval evaluate(Exp exp, IntervalFact in) {
+        if (exp instanceof IntLiteral intLiteral) {
+            return Interval.makeConstant(intLiteral.getValue());
+        }
+        if (exp instanceof Var var) {
+            return ConstantPropagation.canHoldInt(var)
+                    ? in.get(var) : Interval.getTop();
+        }
+        if (exp instanceof ArithmeticExp arithmeticExp) {
+            Interval i1 = in.get(arithmeticExp.getOperand1());
+            Interval i2 = in.get(arithmeticExp.getOperand2());
+            return i1 != null && i2 != null
+                    ? evaluate(arithmeticExp.getOperator(), i1, i2) : null;
+        }
+        if (exp instanceof ConditionExp conditionExp) {
+            Interval i1 = in.get(conditionExp.getOperand1());
+            Interval i2 = in.get(conditionExp.getOperand2());
+            if (i1 == null || i2 == null) {
+                // the operands may be references
+                return Interval.getBoolean();
+            }
+            ConditionExp.Op op = conditionExp.getOperator();
+            if (conditionExp.getOperand1() == conditionExp.getOperand2()) {
+                return Interval.makeConstant(holdsOnSameOperands(op) ? 1 : 0);
+            }
+            if (refine(op, i1, i2) == null) {
+                return Interval.makeConstant(0);
+            } else if (refine(negate(op), i1, i2) == null) {
+                return Interval.makeConstant(1);
+            } else {
+                return Interval.getBoolean();
+            }
+        }
+        if (exp instanceof BitwiseExp bitwiseExp
+                && bitwiseExp.getOperator() == BitwiseExp.Op.AND) {
+            Interval i1 = in.get(bitwiseExp.getOperand1());
+            Interval i2 = in.get(bitwiseExp.getOperand2());
+            if (i1 == null || i2 == null) {
+                return null;
+            }
+            // x & y is in [0, y] for y >= 0, and likewise for x >= 0
+            if (i1.getLower() >= 0 || i2.getLower() >= 0) {
+                int upper = Integer.MAX_VALUE;
+                if (i1.getLower() >= 0) {
+                    upper = i1.getUpper();
+                }
+                if (i2.getLower() >= 0) {
+                    upper = Math.min(upper, i2.getUpper());
+                }
+                return Interval.make(0, upper);
+            }
+        }
+        return Interval.getTop();
+    }
+
+    private static Interval evaluate(ArithmeticExp.Op op, Interval i1, Interval i2) {
+        long l1 = i1.getLower(), u1 = i1.getUpper();
+        long l2 = i2.getLower(), u2 = i2.getUpper();
+        switch (op) {
+            case ADD:
+                return Interval.make(l1 + l2, u1 + u2);
+            case SUB:
+                return Interval.make(l1 - u2, u1 - l2);
+            case MUL: {
+                long p1 = l1 * l2, p2 = l1 * u2, p3 = u1 * l2, p4 = u1 * u2;
+                return Interval.make(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                        Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+            }
+            case DIV:
+                if (i2.isConstant()) {
+                    if (l2 == 0) {
+                        // x = a / 0 has no value, like UNDEF in ConstantPropagation
+                        return null;
+                    }
+                    long q1 = l1 / l2, q2 = u1 / l2;
+                    return Interval.make(Math.min(q1, q2), Math.max(q1, q2));
+                }
+                return Interval.getTop();
+            case REM:
+                if (i2.isConstant()) {
+                    if (l2 == 0) {
+                        return null;
+                    }
+                    // |x % c| < |c|, and x % c has the sign of x
+                    long bound = Math.abs(l2) - 1;
+                    return Interval.make(l1 >= 0 ? 0 : -Math.min(bound, -l1),
+                            u1 <= 0 ? 0 : Math.min(bound, u1));
+                }
+                return Interval.getTop();
+            default:
+                return Interval.getTop();
+        }
+    }
+
+    /**
+     * @return a copy of given fact refined by the branch condition of given
+     * edge, given fact itself if the edge does not refine it, or null if the
+     * edge cannot be taken.
+     */
+    private static IntervalFact refine(Edge<Stmt> edge, IntervalFact fact) {
+        Stmt source = edge.getSource();
+        switch (edge.getKind()) {
+            case IF_TRUE:
+            case IF_FALSE: {
+                ConditionExp condition = ((If) source).getCondition();
+                Var v1 = condition.getOperand1();
+                Var v2 = condition.getOperand2();
+                Interval i1 = fact.get(v1);
+                Interval i2 = fact.get(v2);
+                if (i1 == null || i2 == null) {
+                    return fact;
+                }
+                ConditionExp.Op op = edge.getKind() == Edge.Kind.IF_TRUE
+                        ? condition.getOperator()
+                        : negate(condition.getOperator());
+                if (v1 == v2) {
+                    // the intervals of the operands cannot relate their
+                    // values, e.g., [0, 9] < [0, 9] may hold, but a < a not
+                    return holdsOnSameOperands(op) ? fact : null;
+                }
+                Interval[] refined = refine(op, i1, i2);
+                if (refined == null) {
+                    return null;
+                }
+                if (refined[0].equals(i1) && refined[1].equals(i2)) {
+                    return fact;
+                }
+                IntervalFact result = fact.copy();
+                result.update(v1, refined[0]);
+                result.update(v2, refined[1]);
+                return result;
+            }
+            case SWITCH_CASE: {
+                Var var = ((SwitchStmt) source).getVar();
+                Interval value = fact.get(var);
+                if (value == null) {
+                    return fact;
+                }
+                int caseValue = edge.getCaseValue();
+                if (!value.contains(caseValue)) {
+                    return null;
+                }
+                if (value.isConstant()) {
+                    return fact;
+                }
+                IntervalFact result = fact.copy();
+                result.update(var, Interval.makeConstant(caseValue));
+                return result;
+            }
+            default:
+                return fact;
+        }
+    }
+
+    /**
+     * Refines the intervals of the operands of a condition under which
+     * the condition holds. The operands are taken as independent values,
+     * thus this does not apply to the conditions on the same variable.
+     *
+     * @return the refined intervals of the two operands,
+     * or null if the condition cannot hold.
+     */
+    static Interval[] refine(ConditionExp.Op op, Interval i1, Interval i2) {
+        long l1 = i1.getLower(), u1 = i1.getUpper();
+        long l2 = i2.getLower(), u2 = i2.getUpper();
+        Interval r1, r2;
+        switch (op) {
+            case EQ -> {
+                r1 = r2 = i1.intersect(i2);
+            }
+            case NE -> {
+                if (i1.isConstant() && i2.isConstant() && l1 == l2) {
+                    r1 = r2 = null;
+                } else if (i2.isConstant()) {
+                    r1 = Interval.make(l1 == l2 ? l1 + 1 : l1, u1 == l2 ? u1 - 1 : u1);
+                    r2 = i2;
+                } else if (i1.isConstant()) {
+                    r1 = i1;
+                    r2 = Interval.make(l2 == l1 ? l2 + 1 : l2, u2 == l1 ? u2 - 1 : u2);
+                } else {
+                    r1 = i1;
+                    r2 = i2;
+                }
+            }
+            case LT -> {
+                r1 = Interval.make(l1, Math.min(u1, u2 - 1));
+                r2 = Interval.make(Math.max(l2, l1 + 1), u2);
+            }
+            case LE -> {
+                r1 = Interval.make(l1, Math.min(u1, u2));
+                r2 = Interval.make(Math.max(l2, l1), u2);
+            }
+            case GT -> {
+                r1 = Interval.make(Math.max(l1, l2 + 1), u1);
+                r2 = Interval.make(l2, Math.min(u2, u1 - 1));
+            }
+            case GE -> {
+                r1 = Interval.make(Math.max(l1, l2), u1);
+                r2 = Interval.make(l2, Math.min(u2, u1));
+            }
+            default -> throw new IllegalArgumentException(op.toString());
+        }
+        return r1 != null && r2 != null ? new Interval[]{r1, r2} : null;
+    }
+
+    /**
+     * @return true if a condition whose two operands are the same
+     * variable holds, otherwise false.
+     */
+    private static boolean holdsOnSameOperands(ConditionExp.Op op) {
+        return switch (op) {
+            case EQ, LE, GE -> true;
+            case NE, LT, GT -> false;
+        };
+    }
+
+    /**
+     * @return the operator of the negation of a condition.
+     */
+    private static ConditionExp.Op negate(ConditionExp.Op op) {
+        return switch (op) {
+            case EQ -> ConditionExp.Op.NE;
+            case NE -> ConditionExp.Op.EQ;
+            case LT -> ConditionExp.Op.GE;
+            case LE -> ConditionExp.Op.GT;
+            case GT -> ConditionExp.Op.LE;
+            case GE -> ConditionExp.Op.LT;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents data facts of interval analysis, which maps variables
+ * to their {@link Interval}s.
+ * <p>
+ * Like {@link CPFact}, absence of a variable represents the bottom,
+ * i.e., the variable holds no value at the point, which is the case
+ * for variables not defined yet and for points that are not reachable.
+ */
+public class IntervalFact extends MapFact<Var, Interval> {
+
+    public IntervalFact() {
+        this(Collections.emptyMap());
+    }
+
+    private IntervalFact(Map<Var, Interval> map) {
+        super(map);
+    }
+
+    /**
+     * @return true if this fact maps no variable, otherwise false.
+     */
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Makes the mappings of this fact, except the one of given variable,
+     * the same as the ones of given fact. Unlike {@link #copyFrom(MapFact)},
+     * this removes the mappings absent in given fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setFromExcept(IntervalFact fact, Var excluded) {
+        List<Var> absent = null;
+        for (Var var : map.keySet()) {
+            if (!var.equals(excluded) && !fact.map.containsKey(var)) {
+                if (absent == null) {
+                    absent = new ArrayList<>();
+                }
+                absent.add(var);
+            }
+        }
+        boolean changed = false;
+        if (absent != null) {
+            absent.forEach(map::remove);
+            changed = true;
+        }
+        return copyFromExcept(fact, excluded) || changed;
+    }
+
+    /**
+     * Sets the interval of given variable, where null removes the variable.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean updateOrRemove(Var var, Interval value) {
+        return value != null ? update(var, value) : remove(var) != null;
+    }
+
+    @Override
+    public IntervalFact copy() {
+        return new IntervalFact(map);
+    }
+}
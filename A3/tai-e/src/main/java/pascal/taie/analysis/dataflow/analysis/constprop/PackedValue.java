@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.util.AnalysisException;
+
+/**
+ * Lattice values in constant propagation packed into primitive longs,
+ * which allows the analysis to manipulate values without allocation.
+ * The high 32 bits of a packed value hold the kind of the value,
+ * and the low 32 bits hold the integer if the value is a constant.
+ * <p>
+ * UNDEF is packed to 0, so that a zero-filled array of packed values
+ * represents UNDEF values.
+ */
+public final class PackedValue {
+
+    /**
+     * The packed UNDEF.
+     */
+    public static final long UNDEF = 0L;
+
+    /**
+     * The packed NAC.
+     */
+    public static final long NAC = 2L << 32;
+
+    /**
+     * The kind tag of packed constants.
+     */
+    private static final long CONSTANT = 1L << 32;
+
+    private PackedValue() {
+    }
+
+    /**
+     * @return the packed constant for given value.
+     */
+    public static long makeConstant(int value) {
+        return CONSTANT | (value & 0xFFFFFFFFL);
+    }
+
+    public static boolean isUndef(long value) {
+        return value == UNDEF;
+    }
+
+    public static boolean isConstant(long value) {
+        return (value & ~0xFFFFFFFFL) == CONSTANT;
+    }
+
+    public static boolean isNAC(long value) {
+        return value == NAC;
+    }
+
+    /**
+     * @return the integer of given packed constant.
+     * @throws AnalysisException if given value is not a constant
+     */
+    public static int getConstant(long value) {
+        if (!isConstant(value)) {
+            throw new AnalysisException(toString(value) + " is not a constant");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return the packed form of given {@link Value}.
+     */
+    public static long pack(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        }
+        return value.isNAC() ? NAC : UNDEF;
+    }
+
+    /**
+     * @return the {@link Value} represented by given packed value.
+     */
+    public static Value toValue(long value) {
+        if (isConstant(value)) {
+            return Value.makeConstant((int) value);
+        }
+        return isNAC(value) ? Value.getNAC() : Value.getUndef();
+    }
+
+    /**
+     * @return the hash code of the {@link Value} represented by
+     * given packed value.
+     */
+    public static int hashCode(long value) {
+        return isConstant(value) ? (int) value : 0;
+    }
+
+    public static String toString(long value) {
+        if (isConstant(value)) {
+            return Integer.toString((int) value);
+        }
+        return isNAC(value) ? "NAC" : "UNDEF";
+    }
+}
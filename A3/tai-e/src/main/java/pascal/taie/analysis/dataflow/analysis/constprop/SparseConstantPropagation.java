@@ -0,0 +1,620 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Dominators;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse conditional constant propagation (SCCP) for a method.
+ * <p>
+ * This analysis puts the definitions of int-holding variables in SSA form,
+ * i.e., it links each use of a variable to its only reaching definition,
+ * which may be a phi at a join point, and then propagates values along
+ * the def-use links, while tracking which CFG edges are executable.
+ * The values are kept per definition instead of per statement.
+ * <p>
+ * Unlike {@link ConstantPropagation}, this analysis ignores the values
+ * flowing through edges that are not executable, e.g., the branches of
+ * {@code if} whose condition is constant, thus it may find more constants
+ * and more unreachable code.
+ */
+public class SparseConstantPropagation {
+
+    /**
+     * Key of the result of this analysis in {@link IR}.
+     */
+    public static final String ID = "sccp";
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Nodes reachable from the entry, in reverse postorder. Other arrays
+     * indexed by nodes use the positions in this array.
+     */
+    private final Stmt[] nodes;
+
+    private final Map<Stmt, Integer> numbers;
+
+    /**
+     * Phis at each node, or null if the node has no phi.
+     */
+    private final Def[][] phis;
+
+    /**
+     * Definition of each node, or null if the node defines no tracked variable.
+     */
+    private final Def[] defs;
+
+    /**
+     * Tracked variables used at each node, and their reaching definitions.
+     */
+    private final Var[][] useVars;
+
+    private final Def[][] useDefs;
+
+    private final boolean[] executableNodes;
+
+    private final Set<Edge<Stmt>> executableEdges = Sets.newSet();
+
+    private SparseConstantPropagation(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        this.nodes = computeReversePostorder(cfg);
+        int n = nodes.length;
+        this.numbers = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            numbers.put(nodes[i], i);
+        }
+        this.phis = new Def[n][];
+        this.defs = new Def[n];
+        this.useVars = new Var[n][];
+        this.useDefs = new Def[n][];
+        this.executableNodes = new boolean[n];
+        new SSABuilder().build();
+        new Propagator().solve();
+    }
+
+    /**
+     * @return the result of this analysis for given IR. The result is
+     * computed on first request, and then stored in the IR.
+     */
+    public static SparseConstantPropagation getResult(IR ir) {
+        return ir.getResult(ID, () ->
+                new SparseConstantPropagation(ir.getResult(CFGBuilder.ID)));
+    }
+
+    /**
+     * @return the value of given variable when executing given statement,
+     * i.e., the value before the statement if the variable is used by it,
+     * otherwise the value defined by it. If the statement is not executable,
+     * returns UNDEF.
+     */
+    public Value getValue(Stmt stmt, Var var) {
+        return PackedValue.toValue(getPacked(stmt, var));
+    }
+
+    /**
+     * @return the packed value of given variable when executing
+     * given statement.
+     */
+    public long getPacked(Stmt stmt, Var var) {
+        Integer node = numbers.get(stmt);
+        if (node == null || !executableNodes[node]) {
+            return PackedValue.UNDEF;
+        }
+        return lookup(node, var);
+    }
+
+    /**
+     * @return true if given statement may be executed, otherwise false.
+     */
+    public boolean isExecutable(Stmt stmt) {
+        Integer node = numbers.get(stmt);
+        return node != null && executableNodes[node];
+    }
+
+    /**
+     * @return true if control may flow through given edge, otherwise false.
+     */
+    public boolean isExecutable(Edge<Stmt> edge) {
+        return executableEdges.contains(edge);
+    }
+
+    /**
+     * @return the edges of the CFG through which control never flows.
+     */
+    public Set<Edge<Stmt>> getUnreachableEdges() {
+        Set<Edge<Stmt>> unreachable = Sets.newSet();
+        for (Stmt stmt : cfg) {
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (!executableEdges.contains(edge)) {
+                    unreachable.add(edge);
+                }
+            }
+        }
+        return unreachable;
+    }
+
+    /**
+     * @return the packed value of given variable used at given node.
+     */
+    private long lookup(int node, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return PackedValue.NAC;
+        }
+        Var[] vars = useVars[node];
+        if (vars != null) {
+            for (int i = 0; i < vars.length; ++i) {
+                if (vars[i] == var) {
+                    return useDefs[node][i].value;
+                }
+            }
+        }
+        Def def = defs[node];
+        return def != null && def.var == var ? def.value : PackedValue.UNDEF;
+    }
+
+    private static Stmt[] computeReversePostorder(CFG<Stmt> cfg) {
+        List<Stmt> postorder = new ArrayList<>();
+        Set<Stmt> visited = Sets.newSet();
+        Deque<Stmt> nodeStack = new ArrayDeque<>();
+        Deque<Iterator<Stmt>> succStack = new ArrayDeque<>();
+        Stmt entry = cfg.getEntry();
+        visited.add(entry);
+        nodeStack.push(entry);
+        succStack.push(cfg.getSuccsOf(entry).iterator());
+        while (!nodeStack.isEmpty()) {
+            Iterator<Stmt> succs = succStack.peek();
+            if (succs.hasNext()) {
+                Stmt succ = succs.next();
+                if (visited.add(succ)) {
+                    nodeStack.push(succ);
+                    succStack.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postorder.add(nodeStack.pop());
+                succStack.pop();
+            }
+        }
+        Stmt[] nodes = new Stmt[postorder.size()];
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = postorder.get(nodes.length - 1 - i);
+        }
+        return nodes;
+    }
+
+    /**
+     * A definition of a tracked variable, which is given by a statement,
+     * a phi, or the entry of the method.
+     */
+    private static final class Def {
+
+        private final Var var;
+
+        /**
+         * Node of the definition, or -1 for the definition at the entry.
+         */
+        private final int node;
+
+        /**
+         * Reaching definitions along the in-edges of the node of a phi,
+         * or null if this definition is not a phi.
+         */
+        private final Def[] operands;
+
+        private final List<Edge<Stmt>> inEdges;
+
+        private long value;
+
+        private List<Def> phiUsers;
+
+        private List<Integer> nodeUsers;
+
+        private Def(Var var, int node, long value) {
+            this.var = var;
+            this.node = node;
+            this.operands = null;
+            this.inEdges = null;
+            this.value = value;
+        }
+
+        private Def(Var var, int node, List<Edge<Stmt>> inEdges) {
+            this.var = var;
+            this.node = node;
+            this.operands = new Def[inEdges.size()];
+            this.inEdges = inEdges;
+            this.value = PackedValue.UNDEF;
+        }
+
+        private boolean isPhi() {
+            return operands != null;
+        }
+
+        private void addPhiUser(Def phi) {
+            if (phiUsers == null) {
+                phiUsers = new ArrayList<>(2);
+            }
+            phiUsers.add(phi);
+        }
+
+        private void addNodeUser(int node) {
+            if (nodeUsers == null) {
+                nodeUsers = new ArrayList<>(2);
+            }
+            nodeUsers.add(node);
+        }
+    }
+
+    /**
+     * Builds the SSA form of the tracked variables, i.e., places phis
+     * at the iterated dominance frontiers of definitions, and then renames
+     * the uses to their reaching definitions by walking the dominator tree.
+     */
+    private class SSABuilder {
+
+        private final int n = nodes.length;
+
+        private final int[] idom = new int[n];
+
+        /**
+         * Dominators of the CFG, which are shared with the other
+         * clients of the CFG.
+         */
+        private Dominators dominators;
+
+        private void build() {
+            dominators = Dominators.getResult(cfg.getIR());
+            computeDominators();
+            placePhis();
+            rename();
+        }
+
+        /**
+         * Takes the immediate dominators from {@link #dominators}.
+         */
+        private void computeDominators() {
+            idom[0] = 0;
+            for (int b = 1; b < n; ++b) {
+                int d = dominators.getImmediateDominator(nodes[b].getIndex());
+                idom[b] = numbers.get(dominators.getNode(d));
+            }
+        }
+
+        private void placePhis() {
+            // definition sites of each tracked variable
+            Map<Var, List<Integer>> defSites = new LinkedHashMap<>();
+            for (int i = 0; i < n; ++i) {
+                Var var = getDefVar(nodes[i]);
+                if (var != null) {
+                    defSites.computeIfAbsent(var, v -> new ArrayList<>()).add(i);
+                }
+            }
+            List<List<Def>> phiLists = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                phiLists.add(null);
+            }
+            // markers of the variable being processed, to avoid clearing
+            int[] hasPhi = new int[n];
+            int[] queued = new int[n];
+            int mark = 0;
+            for (Map.Entry<Var, List<Integer>> entry : defSites.entrySet()) {
+                Var var = entry.getKey();
+                ++mark;
+                Deque<Integer> workList = new ArrayDeque<>();
+                for (int site : entry.getValue()) {
+                    queued[site] = mark;
+                    workList.add(site);
+                }
+                while (!workList.isEmpty()) {
+                    int x = workList.poll();
+                    for (int d : dominators.getDominanceFrontier(nodes[x].getIndex())) {
+                        int y = numbers.get(dominators.getNode(d));
+                        if (hasPhi[y] != mark) {
+                            hasPhi[y] = mark;
+                            List<Def> phiList = phiLists.get(y);
+                            if (phiList == null) {
+                                phiList = new ArrayList<>(2);
+                                phiLists.set(y, phiList);
+                            }
+                            phiList.add(new Def(var, y,
+                                    List.copyOf(cfg.getInEdgesOf(nodes[y]))));
+                            if (queued[y] != mark) {
+                                queued[y] = mark;
+                                workList.add(y);
+                            }
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < n; ++i) {
+                List<Def> phiList = phiLists.get(i);
+                if (phiList != null) {
+                    phis[i] = phiList.toArray(new Def[0]);
+                }
+            }
+        }
+
+        /**
+         * Renames the uses by walking the dominator tree iteratively.
+         */
+        private void rename() {
+            List<List<Integer>> children = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                children.add(new ArrayList<>(0));
+            }
+            for (int b = 1; b < n; ++b) {
+                children.get(idom[b]).add(b);
+            }
+            Map<Var, Deque<Def>> stacks = Maps.newMap();
+            Deque<Integer> walk = new ArrayDeque<>();
+            walk.push(0);
+            while (!walk.isEmpty()) {
+                int node = walk.pop();
+                if (node >= 0) {
+                    enter(node, stacks);
+                    // exit the node after its children
+                    walk.push(-node - 1);
+                    children.get(node).forEach(walk::push);
+                } else {
+                    exit(-node - 1, stacks);
+                }
+            }
+        }
+
+        private void enter(int node, Map<Var, Deque<Def>> stacks) {
+            if (phis[node] != null) {
+                for (Def phi : phis[node]) {
+                    stacks.computeIfAbsent(phi.var, v -> new ArrayDeque<>()).push(phi);
+                }
+            }
+            Stmt stmt = nodes[node];
+            List<Var> vars = new ArrayList<>();
+            List<Def> reaching = new ArrayList<>();
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var && ConstantPropagation.canHoldInt(var)
+                        && !vars.contains(var)) {
+                    Def def = top(var, stacks);
+                    def.addNodeUser(node);
+                    vars.add(var);
+                    reaching.add(def);
+                }
+            }
+            if (!vars.isEmpty()) {
+                useVars[node] = vars.toArray(new Var[0]);
+                useDefs[node] = reaching.toArray(new Def[0]);
+            }
+            Var defVar = getDefVar(stmt);
+            if (defVar != null) {
+                Def def = new Def(defVar, node, PackedValue.UNDEF);
+                defs[node] = def;
+                stacks.computeIfAbsent(defVar, v -> new ArrayDeque<>()).push(def);
+            }
+            // fill the operands of the phis at the successors
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                Integer succ = numbers.get(edge.getTarget());
+                if (succ == null || phis[succ] == null) {
+                    continue;
+                }
+                for (Def phi : phis[succ]) {
+                    int i = phi.inEdges.indexOf(edge);
+                    Def def = top(phi.var, stacks);
+                    phi.operands[i] = def;
+                    def.addPhiUser(phi);
+                }
+            }
+        }
+
+        private void exit(int node, Map<Var, Deque<Def>> stacks) {
+            if (defs[node] != null) {
+                stacks.get(defs[node].var).pop();
+            }
+            if (phis[node] != null) {
+                for (Def phi : phis[node]) {
+                    stacks.get(phi.var).pop();
+                }
+            }
+        }
+
+        /**
+         * @return the current reaching definition of given variable.
+         * If there is no such definition, the variable is defined at the
+         * entry, and its value is NAC for parameters, and UNDEF otherwise.
+         */
+        private Def top(Var var, Map<Var, Deque<Def>> stacks) {
+            Deque<Def> stack = stacks.computeIfAbsent(var, v -> new ArrayDeque<>());
+            if (stack.isEmpty()) {
+                long value = cfg.getIR().getParams().contains(var) ?
+                        PackedValue.NAC : PackedValue.UNDEF;
+                // definitions at the entry stay at the bottom of the stack
+                stack.push(new Def(var, -1, value));
+            }
+            return stack.peek();
+        }
+    }
+
+    /**
+     * @return the tracked variable defined by given statement, or null
+     * if the statement does not define any tracked variable.
+     */
+    private static Var getDefVar(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt) {
+            LValue lValue = definitionStmt.getLValue();
+            if (lValue instanceof Var var && ConstantPropagation.canHoldInt(var)) {
+                return var;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Propagates values along def-use links and control flow along
+     * executable edges, until both reach fixed point.
+     */
+    private class Propagator implements VarValues {
+
+        private final Deque<Edge<Stmt>> edgeWorkList = new ArrayDeque<>();
+
+        private final Deque<Def> defWorkList = new ArrayDeque<>();
+
+        /**
+         * Node being evaluated, which provides the values of variables.
+         */
+        private int current;
+
+        private void solve() {
+            executableNodes[0] = true;
+            visit(0);
+            while (!edgeWorkList.isEmpty() || !defWorkList.isEmpty()) {
+                while (!edgeWorkList.isEmpty()) {
+                    Edge<Stmt> edge = edgeWorkList.poll();
+                    int target = numbers.get(edge.getTarget());
+                    if (!executableNodes[target]) {
+                        executableNodes[target] = true;
+                        visit(target);
+                    } else if (phis[target] != null) {
+                        for (Def phi : phis[target]) {
+                            evaluatePhi(phi);
+                        }
+                    }
+                }
+                while (!defWorkList.isEmpty()) {
+                    Def def = defWorkList.poll();
+                    if (def.phiUsers != null) {
+                        for (Def phi : def.phiUsers) {
+                            if (executableNodes[phi.node]) {
+                                evaluatePhi(phi);
+                            }
+                        }
+                    }
+                    if (def.nodeUsers != null) {
+                        for (int node : def.nodeUsers) {
+                            if (executableNodes[node]) {
+                                evaluateNode(node);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void visit(int node) {
+            if (phis[node] != null) {
+                for (Def phi : phis[node]) {
+                    evaluatePhi(phi);
+                }
+            }
+            evaluateNode(node);
+        }
+
+        private void evaluatePhi(Def phi) {
+            long value = phi.value;
+            for (int i = 0; i < phi.operands.length; ++i) {
+                Def operand = phi.operands[i];
+                if (operand != null && executableEdges.contains(phi.inEdges.get(i))) {
+                    value = ConstantPropagation.meetValue(value, operand.value);
+                }
+            }
+            update(phi, value);
+        }
+
+        /**
+         * Evaluates the definition of given node, and marks the out-edges
+         * which may be taken when executing the node as executable.
+         */
+        private void evaluateNode(int node) {
+            current = node;
+            Stmt stmt = nodes[node];
+            Def def = defs[node];
+            if (def != null) {
+                RValue rValue = ((DefinitionStmt<?, ?>) stmt).getRValue();
+                update(def, ConstantPropagation.meetValue(def.value,
+                        ConstantPropagation.evaluatePacked(rValue, this)));
+            }
+            long cond = PackedValue.NAC;
+            if (stmt instanceof If ifStmt) {
+                cond = ConstantPropagation.evaluatePacked(ifStmt.getCondition(), this);
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                cond = getPacked(switchStmt.getVar());
+            }
+            if (PackedValue.isUndef(cond)) {
+                // no branch can be taken before the condition is known
+                return;
+            }
+            boolean constant = PackedValue.isConstant(cond);
+            int c = constant ? PackedValue.getConstant(cond) : 0;
+            boolean caseMatched = false;
+            if (constant && stmt instanceof SwitchStmt) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.isSwitchCase() && edge.getCaseValue() == c) {
+                        caseMatched = true;
+                    }
+                }
+            }
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                boolean taken = !constant || switch (edge.getKind()) {
+                    case IF_TRUE -> c == 1;
+                    case IF_FALSE -> c == 0;
+                    case SWITCH_CASE -> edge.getCaseValue() == c;
+                    case SWITCH_DEFAULT -> !caseMatched;
+                    default -> true;
+                };
+                if (taken && executableEdges.add(edge)) {
+                    edgeWorkList.add(edge);
+                }
+            }
+        }
+
+        private void update(Def def, long value) {
+            if (def.value != value) {
+                def.value = value;
+                defWorkList.add(def);
+            }
+        }
+
+        @Override
+        public long getPacked(Var var) {
+            return lookup(current, var);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.function.IntBinaryOperator;
+
+import static pascal.taie.ir.exp.ArithmeticExp.Op.DIV;
+import static pascal.taie.ir.exp.ArithmeticExp.Op.REM;
+
+/**
+ * Transfer functions of constant propagation, specialized for each
+ * statement of an IR. The function of a statement is compiled the first
+ * time it is requested, so that later transfers of the statement do not
+ * need to inspect the statement and its expressions again.
+ * <p>
+ * The functions of an IR are kept as a result of the IR, and thus
+ * are released together with the IR.
+ */
+final class TransferFunctions {
+
+    /**
+     * Key of the functions among the results of an IR.
+     */
+    static final String ID = "constprop-transfer";
+
+    /**
+     * Transfer function of a statement.
+     */
+    @FunctionalInterface
+    interface Transfer {
+
+        /**
+         * @param live the variables live after the statement, which are
+         *             the only ones kept in the out fact, or null if all
+         *             variables are kept
+         * @return true if the transfer changed the out fact, otherwise false.
+         */
+        boolean apply(CPFact in, CPFact out, SetFact<Var> live);
+    }
+
+    /**
+     * Evaluates an expression to its packed value.
+     */
+    @FunctionalInterface
+    interface Evaluator {
+
+        long evaluate(VarValues in);
+    }
+
+    private static final Transfer IDENTITY = (in, out, live) -> live == null
+            ? out.copyFrom(in)
+            : out.copyFromExcept(in, null, live);
+
+    private static final long ZERO = PackedValue.makeConstant(0);
+
+    /**
+     * Compiled functions indexed by {@link Stmt#getIndex()}.
+     * The two extra slots are for the entry and exit nodes of the CFG.
+     */
+    private final Transfer[] transfers;
+
+    private TransferFunctions(IR ir) {
+        transfers = new Transfer[ir.getStmts().size() + 2];
+    }
+
+    /**
+     * @return the transfer functions of given IR.
+     */
+    static TransferFunctions get(IR ir) {
+        return ir.getResult(ID, () -> new TransferFunctions(ir));
+    }
+
+    /**
+     * @return the transfer function of given statement.
+     */
+    Transfer get(Stmt stmt) {
+        int index = stmt.getIndex();
+        if (index < 0 || index >= transfers.length) {
+            return compile(stmt);
+        }
+        Transfer transfer = transfers[index];
+        if (transfer == null) {
+            // concurrent compilations of the same statement are harmless,
+            // as they produce equivalent functions
+            transfer = compile(stmt);
+            transfers[index] = transfer;
+        }
+        return transfer;
+    }
+
+    private static Transfer compile(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> definitionStmt
+                && definitionStmt.getLValue() instanceof Var var
+                && ConstantPropagation.canHoldInt(var)) {
+            Evaluator evaluator = compile(definitionStmt.getRValue());
+            return (in, out, live) -> {
+                boolean changed = live == null
+                        ? out.copyFromExcept(in, var)
+                        : out.copyFromExcept(in, var, live);
+                // the value of a dead variable is not needed at all
+                if (live == null || live.contains(var)) {
+                    long value = evaluator.evaluate(in);
+                    if (!PackedValue.isUndef(value)) {
+                        changed |= out.updatePacked(var, value);
+                    }
+                }
+                return changed;
+            };
+        }
+        return IDENTITY;
+    }
+
+    /**
+     * Compiles given expression, following
+     * {@link ConstantPropagation#evaluatePacked(Exp, VarValues)}.
+     * The expressions that are not specialized here are evaluated
+     * by that method, so that both always agree.
+     */
+    static Evaluator compile(Exp exp) {
+        if (exp instanceof IntLiteral intLiteral) {
+            long value = PackedValue.makeConstant(intLiteral.getValue());
+            return in -> value;
+        }
+        if (exp instanceof Var var) {
+            return in -> in.getPacked(var);
+        }
+        if (exp instanceof BinaryExp binaryExp) {
+            BinaryExp.Op operator = binaryExp.getOperator();
+            IntBinaryOperator function = ConstantPropagation.getFunction(operator);
+            if (function == null) {
+                // e.g., comparisons of long, float and double values
+                return in -> ConstantPropagation.evaluatePacked(exp, in);
+            }
+            Var operand1 = binaryExp.getOperand1();
+            Var operand2 = binaryExp.getOperand2();
+            boolean divides = operator == DIV || operator == REM;
+            return in -> {
+                long v1 = in.getPacked(operand1);
+                long v2 = in.getPacked(operand2);
+                if (divides && v2 == ZERO) {
+                    return PackedValue.UNDEF;
+                }
+                if (PackedValue.isNAC(v1) || PackedValue.isNAC(v2)) {
+                    return PackedValue.NAC;
+                }
+                if (PackedValue.isConstant(v1) && PackedValue.isConstant(v2)) {
+                    return PackedValue.makeConstant(function.applyAsInt(
+                            PackedValue.getConstant(v1), PackedValue.getConstant(v2)));
+                }
+                return PackedValue.UNDEF;
+            };
+        }
+        return in -> ConstantPropagation.evaluatePacked(exp, in);
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Set-like data-flow facts represented by dense bit vectors.
+ * <p>
+ * The elements are drawn from a fixed universe, e.g., the variables
+ * of a method, and the element at position i of the universe must have
+ * index i (see {@link Indexable#getIndex()}). Each element is then
+ * represented by one bit, so that union, intersection, copy and equality
+ * of two such facts work on a machine word (64 elements) at a time.
+ * Facts created for the same universe can be freely combined; combining
+ * with an ordinary {@link SetFact} falls back to per-element operations.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    /**
+     * Creates an empty fact over the given universe.
+     *
+     * @param universe the elements that may be contained in this fact,
+     *                 ordered by their indexes.
+     */
+    public BitSetFact(List<E> universe) {
+        this(new Bits<>(universe, new long[wordIndex(universe.size() - 1) + 1]));
+    }
+
+    private BitSetFact(Bits<E> bits) {
+        super(() -> bits);
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (isCompatible(other)) {
+            long[] words = bits().words;
+            long[] otherWords = bits(other).words;
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long old = words[i];
+                words[i] = old | otherWords[i];
+                changed |= words[i] ^ old;
+            }
+            return changed != 0;
+        }
+        return super.union(other);
+    }
+
+    @Override
+    public boolean unionExcept(SetFact<E> other, E excluded) {
+        if (isCompatible(other)) {
+            long[] words = bits().words;
+            long[] otherWords = bits(other).words;
+            int excludedIndex = excluded.getIndex();
+            int excludedWord = wordIndex(excludedIndex);
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long otherWord = otherWords[i];
+                if (i == excludedWord) {
+                    otherWord &= ~(1L << excludedIndex);
+                }
+                long old = words[i];
+                words[i] = old | otherWord;
+                changed |= words[i] ^ old;
+            }
+            return changed != 0;
+        }
+        return super.unionExcept(other, excluded);
+    }
+
+    @Override
+    public BitSetFact<E> unionWith(SetFact<E> other) {
+        return (BitSetFact<E>) super.unionWith(other);
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (isCompatible(other)) {
+            long[] words = bits().words;
+            long[] otherWords = bits(other).words;
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long old = words[i];
+                words[i] = old & otherWords[i];
+                changed |= words[i] ^ old;
+            }
+            return changed != 0;
+        }
+        return super.intersect(other);
+    }
+
+    @Override
+    public BitSetFact<E> intersectWith(SetFact<E> other) {
+        return (BitSetFact<E>) super.intersectWith(other);
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (isCompatible(other)) {
+            long[] otherWords = bits(other).words;
+            System.arraycopy(otherWords, 0, bits().words, 0, otherWords.length);
+        } else {
+            super.set(other);
+        }
+    }
+
+    /**
+     * Sets the bits of this fact to the words of {@code src} starting at
+     * {@code offset}. This is used by solvers which keep the bits of
+     * several facts in one array.
+     */
+    public void setWords(long[] src, int offset) {
+        long[] words = bits().words;
+        System.arraycopy(src, offset, words, 0, words.length);
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        Bits<E> bits = bits();
+        return new BitSetFact<>(new Bits<>(bits.universe, bits.words.clone()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof BitSetFact<?> that
+                && bits().universe == that.bits().universe) {
+            return Arrays.equals(bits().words, that.bits().words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // must be consistent with ordinary SetFacts containing
+        // the same elements, thus we cannot hash the words directly
+        return super.hashCode();
+    }
+
+    private Bits<E> bits() {
+        return (Bits<E>) set;
+    }
+
+    private static <E extends Indexable> Bits<E> bits(SetFact<E> fact) {
+        return (Bits<E>) fact.set;
+    }
+
+    /**
+     * @return true if other fact is a BitSetFact over the same universe,
+     * so that word-at-a-time operations are applicable.
+     */
+    private boolean isCompatible(SetFact<E> other) {
+        return other instanceof BitSetFact<E> that
+                && bits().universe == that.bits().universe;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> 6;
+    }
+
+    /**
+     * The {@link java.util.Set} view of a bit vector, which serves as
+     * the backing set of {@link BitSetFact}, so that all operations
+     * inherited from {@link SetFact} work unchanged.
+     */
+    private static class Bits<E extends Indexable> extends AbstractSet<E> {
+
+        private final List<E> universe;
+
+        private final long[] words;
+
+        private Bits(List<E> universe, long[] words) {
+            this.universe = universe;
+            this.words = words;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Indexable e) {
+                int index = e.getIndex();
+                return 0 <= index && index < universe.size()
+                        && (words[wordIndex(index)] & (1L << index)) != 0
+                        && universe.get(index).equals(o);
+            }
+            return false;
+        }
+
+        @Override
+        public boolean add(E e) {
+            int index = e.getIndex();
+            if (index < 0 || index >= universe.size()
+                    || !universe.get(index).equals(e)) {
+                throw new AnalysisException(e + " is not in the universe of this fact");
+            }
+            int i = wordIndex(index);
+            long old = words[i];
+            words[i] = old | (1L << index);
+            return words[i] != old;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                int index = ((Indexable) o).getIndex();
+                words[wordIndex(index)] &= ~(1L << index);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(words, 0);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long word : words) {
+                size += Long.bitCount(word);
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int next = nextSetBit(0);
+
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public E next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = nextSetBit(next + 1);
+                    return universe.get(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    words[wordIndex(last)] &= ~(1L << last);
+                    last = -1;
+                }
+            };
+        }
+
+        /**
+         * @return index of the first set bit at or after fromIndex,
+         * or -1 if there is no such bit.
+         */
+        private int nextSetBit(int fromIndex) {
+            int i = wordIndex(fromIndex);
+            if (i >= words.length) {
+                return -1;
+            }
+            long word = words[i] & (-1L << fromIndex);
+            while (true) {
+                if (word != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++i == words.length) {
+                    return -1;
+                }
+                word = words[i];
+            }
+        }
+    }
+}
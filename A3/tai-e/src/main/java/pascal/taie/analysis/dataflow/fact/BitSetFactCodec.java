@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes set facts over a universe as bit vectors, and decodes
+ * them as {@link BitSetFact}s.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFactCodec<E extends Indexable> implements FactCodec<SetFact<E>> {
+
+    private final List<E> universe;
+
+    private final int words;
+
+    /**
+     * @param universe the elements that may be contained in the facts,
+     *                 ordered by their indexes.
+     */
+    public BitSetFactCodec(List<E> universe) {
+        this.universe = universe;
+        this.words = (universe.size() + 63) >>> 6;
+    }
+
+    @Override
+    public int sizeOf(SetFact<E> fact) {
+        return words * Long.BYTES;
+    }
+
+    @Override
+    public void encode(SetFact<E> fact, ByteBuffer buffer) {
+        long[] bits = new long[words];
+        fact.stream().forEach(e -> {
+            int index = e.getIndex();
+            bits[index >>> 6] |= 1L << index;
+        });
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    @Override
+    public SetFact<E> decode(ByteBuffer buffer) {
+        long[] bits = new long[words];
+        for (int i = 0; i < words; ++i) {
+            bits[i] = buffer.getLong();
+        }
+        BitSetFact<E> fact = new BitSetFact<>(universe);
+        fact.setWords(bits, 0);
+        return fact;
+    }
+}
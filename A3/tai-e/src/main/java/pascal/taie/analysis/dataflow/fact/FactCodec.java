@@ -0,0 +1,52 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts data-flow facts to and from bytes, so that the facts
+ * can be stored outside the Java heap, see {@link OffHeapDataflowResult}.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public interface FactCodec<Fact> {
+
+    /**
+     * @return number of bytes needed to encode given fact.
+     */
+    int sizeOf(Fact fact);
+
+    /**
+     * Writes given fact to the buffer, at its current position.
+     * Exactly {@link #sizeOf(Object)} bytes are written.
+     */
+    void encode(Fact fact, ByteBuffer buffer);
+
+    /**
+     * Reads a fact from the buffer, at its current position.
+     *
+     * @return a new fact equal to the encoded one.
+     */
+    Fact decode(ByteBuffer buffer);
+}
@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexable;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DataflowResult} which keeps the facts of {@link Indexable} nodes,
+ * e.g., {@link Stmt}s, in arrays indexed by {@link Indexable#getIndex()},
+ * so that querying and updating a fact does not hash the node.
+ * <p>
+ * Each slot also records its node, thus a node whose index is taken by
+ * another node, or is negative, is still handled correctly: its facts are
+ * kept by the maps inherited from {@link DataflowResult}.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private static final Object[] EMPTY = {};
+
+    private Object[] nodes;
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param capacity the expected number of nodes, typically the number
+     *                 of nodes of the CFG, so that the arrays never grow.
+     */
+    public IndexedDataflowResult(int capacity) {
+        nodes = capacity > 0 ? new Object[capacity] : EMPTY;
+        inFacts = capacity > 0 ? new Object[capacity] : EMPTY;
+        outFacts = capacity > 0 ? new Object[capacity] : EMPTY;
+    }
+
+    /**
+     * Creates a data-flow result for the nodes of given CFG. The result is
+     * backed by arrays if the nodes are {@link Indexable}, otherwise by maps.
+     */
+    public static <Node, Fact> DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        return cfg.getEntry() instanceof Indexable
+                ? new IndexedDataflowResult<>(cfg.getNumberOfNodes())
+                : new DataflowResult<>();
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        int index = indexOf(node);
+        return index >= 0 ? factAt(inFacts, index) : super.getInFact(node);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        int index = slotOf(node);
+        if (index >= 0) {
+            inFacts[index] = fact;
+        } else {
+            super.setInFact(node, fact);
+        }
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        int index = indexOf(node);
+        return index >= 0 ? factAt(outFacts, index) : super.getOutFact(node);
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        int index = slotOf(node);
+        if (index >= 0) {
+            outFacts[index] = fact;
+        } else {
+            super.setOutFact(node, fact);
+        }
+    }
+
+    /**
+     * @return the fact in given slot of {@link #inFacts} or {@link #outFacts}.
+     */
+    @SuppressWarnings("unchecked")
+    private Fact factAt(Object[] facts, int index) {
+        // safe: the fact arrays are only written by setInFact() and
+        // setOutFact(), which take facts of type Fact
+        return (Fact) facts[index];
+    }
+
+    /**
+     * @return the slot of given node, or -1 if the facts of the node
+     * are not held by the arrays.
+     */
+    private int indexOf(Object node) {
+        if (node instanceof Indexable indexable) {
+            int index = indexable.getIndex();
+            if (0 <= index && index < nodes.length
+                    && node.equals(nodes[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot of given node, which is taken for the node if
+     * it is still free, or -1 if the facts of the node cannot be held
+     * by the arrays.
+     */
+    private int slotOf(Object node) {
+        if (!(node instanceof Indexable indexable)) {
+            return -1;
+        }
+        int index = indexable.getIndex();
+        if (index < 0) {
+            return -1;
+        }
+        if (index >= nodes.length) {
+            grow(index + 1);
+        }
+        Object taken = nodes[index];
+        if (taken == null) {
+            nodes[index] = node;
+            return index;
+        }
+        return node.equals(taken) ? index : -1;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, nodes.length * 2);
+        nodes = Arrays.copyOf(nodes, capacity);
+        inFacts = Arrays.copyOf(inFacts, capacity);
+        outFacts = Arrays.copyOf(outFacts, capacity);
+    }
+}
@@ -22,18 +22,23 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
-import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentMap;
 
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * By default, the mappings are held by a {@link PersistentMap}, so that
+ * copying a fact takes constant time and the copies share their structure
+ * until they are updated.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -51,7 +56,15 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = new PersistentMap<>(map);
+    }
+
+    /**
+     * Constructs a new MapFact backed by the map given by the factory.
+     * This allows subclasses to provide specialized map representations.
+     */
+    protected MapFact(Supplier<Map<K, V>> mapFactory) {
+        this.map = mapFactory.get();
     }
 
     /**
@@ -87,6 +100,11 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (map.isEmpty()) {
+            // share the structure of given fact
+            map.putAll(fact.map);
+            return !map.isEmpty();
+        }
         boolean changed = false;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
             changed |= update(entry.getKey(), entry.getValue());
@@ -94,6 +112,22 @@ public class MapFact<K, V> {
         return changed;
     }
 
+    /**
+     * Copies the content from given fact, except the mapping of given key,
+     * to this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFromExcept(MapFact<K, V> fact, K excluded) {
+        boolean changed = false;
+        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
+            if (!entry.getKey().equals(excluded)) {
+                changed |= update(entry.getKey(), entry.getValue());
+            }
+        }
+        return changed;
+    }
+
     /**
      * Creates and returns a copy of this fact.
      */
@@ -0,0 +1,207 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.collection.Maps;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data-flow result which keeps the facts encoded in direct byte buffers,
+ * i.e., outside the Java heap, and only keeps a bounded number of decoded
+ * facts on the heap.
+ * <p>
+ * Each query of a fact which is not cached decodes a new copy of the fact,
+ * thus the facts returned by this result should not be modified; use
+ * {@link #setInFact} and {@link #setOutFact} to update the facts instead.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class OffHeapDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    /**
+     * Maximum size of the direct buffers, except the ones allocated
+     * for single facts larger than this, see {@link #allocate(int)}.
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private final FactCodec<Fact> codec;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Total size of the chunks.
+     */
+    private long capacity = 0;
+
+    /**
+     * Number of bytes still to be written by {@link #copyOf},
+     * which sizes the chunks allocated during the copy.
+     */
+    private long reserved = 0;
+
+    /**
+     * Locations of the encoded facts, where the high 32 bits are the index
+     * of the chunk, and the low 32 bits are the position in the chunk.
+     */
+    private final Map<Node, Long> inLocations = Maps.newMap();
+
+    private final Map<Node, Long> outLocations = Maps.newMap();
+
+    /**
+     * Recently decoded facts, keyed by nodes and whether the facts
+     * are flowing-in ones.
+     */
+    private final Map<Map.Entry<Node, Boolean>, Fact> cache;
+
+    /**
+     * @param codec     the codec for the facts
+     * @param cacheSize maximum number of decoded facts kept on the heap
+     */
+    public OffHeapDataflowResult(FactCodec<Fact> codec, int cacheSize) {
+        this.codec = codec;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Map.Entry<Node, Boolean>, Fact> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Creates an off-heap result holding the facts of given result.
+     * The facts are encoded in chunks of at most {@link #MAX_CHUNK_SIZE}
+     * bytes, which are sized by the facts still to be copied, so that
+     * a result that fits in one chunk takes the exact size it needs.
+     *
+     * @param nodes the nodes whose facts are copied
+     */
+    public static <Node, Fact> OffHeapDataflowResult<Node, Fact> copyOf(
+            DataflowResult<Node, Fact> result, Iterable<Node> nodes,
+            FactCodec<Fact> codec, int cacheSize) {
+        OffHeapDataflowResult<Node, Fact> offHeap =
+                new OffHeapDataflowResult<>(codec, cacheSize);
+        // the total size of large results may exceed the range of int
+        long size = 0;
+        for (Node node : nodes) {
+            size += sizeOf(codec, result.getInFact(node))
+                    + sizeOf(codec, result.getOutFact(node));
+        }
+        offHeap.reserved = size;
+        for (Node node : nodes) {
+            offHeap.setInFact(node, result.getInFact(node));
+            offHeap.setOutFact(node, result.getOutFact(node));
+        }
+        offHeap.reserved = 0;
+        return offHeap;
+    }
+
+    private static <Fact> int sizeOf(FactCodec<Fact> codec, Fact fact) {
+        return fact != null ? codec.sizeOf(fact) : 0;
+    }
+
+    /**
+     * @return the number of bytes of the direct buffers of this result.
+     */
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized Fact getInFact(Node node) {
+        return get(node, true, inLocations);
+    }
+
+    @Override
+    public synchronized void setInFact(Node node, Fact fact) {
+        set(node, true, fact, inLocations);
+    }
+
+    @Override
+    public synchronized Fact getOutFact(Node node) {
+        return get(node, false, outLocations);
+    }
+
+    @Override
+    public synchronized void setOutFact(Node node, Fact fact) {
+        set(node, false, fact, outLocations);
+    }
+
+    private Fact get(Node node, boolean in, Map<Node, Long> locations) {
+        Map.Entry<Node, Boolean> key = Map.entry(node, in);
+        Fact fact = cache.get(key);
+        if (fact == null) {
+            Long location = locations.get(node);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = chunks.get((int) (location >>> 32)).duplicate();
+            buffer.position((int) (long) location);
+            fact = codec.decode(buffer);
+            cache.put(key, fact);
+        }
+        return fact;
+    }
+
+    /**
+     * Appends the encoded fact to the buffers. The space of the previous
+     * encoding of the fact, if any, is not reclaimed.
+     */
+    private void set(Node node, boolean in, Fact fact, Map<Node, Long> locations) {
+        Map.Entry<Node, Boolean> key = Map.entry(node, in);
+        cache.remove(key);
+        if (fact == null) {
+            locations.remove(node);
+            return;
+        }
+        int size = codec.sizeOf(fact);
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < size) {
+            chunk = allocate(size);
+        }
+        locations.put(node, ((long) (chunks.size() - 1) << 32) | chunk.position());
+        codec.encode(fact, chunk);
+        reserved = Math.max(0, reserved - size);
+    }
+
+    /**
+     * Allocates a new chunk for at least given number of bytes. Beyond that,
+     * the chunks take the bytes reserved by {@link #copyOf}, or otherwise
+     * grow with the capacity of this result, up to {@link #MAX_CHUNK_SIZE},
+     * so that a small result only reserves a little direct memory, and
+     * a result updated many times needs few chunks.
+     */
+    private ByteBuffer allocate(int size) {
+        long wanted = reserved > 0 ? reserved : capacity;
+        int chunkSize = (int) Math.max(size, Math.min(wanted, MAX_CHUNK_SIZE));
+        ByteBuffer chunk = ByteBuffer.allocateDirect(chunkSize);
+        chunks.add(chunk);
+        capacity += chunkSize;
+        return chunk;
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -48,6 +49,14 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Constructs a new SetFact backed by the set given by the factory.
+     * This allows subclasses to provide specialized set representations.
+     */
+    protected SetFact(Supplier<Set<E>> setFactory) {
+        set = setFactory.get();
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -92,6 +101,21 @@ public class SetFact<E> {
         return set.addAll(other.set);
     }
 
+    /**
+     * Unions other fact, except the given element, into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean unionExcept(SetFact<E> other, E excluded) {
+        boolean changed = false;
+        for (E e : other.set) {
+            if (!e.equals(excluded)) {
+                changed |= set.add(e);
+            }
+        }
+        return changed;
+    }
+
     /**
      * @return a new fact which is the union of this and other facts.
      */
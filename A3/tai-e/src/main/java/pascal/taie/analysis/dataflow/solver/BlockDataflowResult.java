@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data-flow result of {@link BlockSolver}. It keeps the IN fact of the
+ * first node and the OUT fact of the last node of each block, i.e.,
+ * the facts at join and branch points, as checkpoints. The facts of
+ * the other nodes of a block are rebuilt, by replaying the node transfers
+ * of the block from its checkpoint, when any of them is queried.
+ * <p>
+ * The rebuilt facts are kept in a cache of blocks. If the cache is bounded,
+ * the least-recently used block is evicted when the cache is full, and its
+ * facts will be rebuilt again on next query. The cache is guarded by
+ * this result, thus the result can be queried by multiple threads.
+ */
+class BlockDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    /**
+     * Cache size that means the rebuilt facts are never evicted.
+     */
+    static final int UNBOUNDED = -1;
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final BlockCFG<Node> blockCFG;
+
+    private final Map<BasicBlock<Node>, BlockFacts<Node, Fact>> rebuilt;
+
+    BlockDataflowResult(DataflowAnalysis<Node, Fact> analysis,
+                        BlockCFG<Node> blockCFG,
+                        DataflowResult<BasicBlock<Node>, Fact> blockResult,
+                        int cacheSize) {
+        this.analysis = analysis;
+        this.blockCFG = blockCFG;
+        this.rebuilt = cacheSize == UNBOUNDED ?
+                Maps.newMap() : new LRUMap<>(cacheSize);
+        for (BasicBlock<Node> block : blockCFG) {
+            setInFact(block.getFirstNode(), blockResult.getInFact(block));
+            setOutFact(block.getLastNode(), blockResult.getOutFact(block));
+        }
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        Fact fact = super.getInFact(node);
+        if (fact == null) {
+            BlockFacts<Node, Fact> facts = getRebuiltFacts(node);
+            if (facts != null) {
+                fact = facts.inFacts.get(node);
+            }
+        }
+        return fact;
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        Fact fact = super.getOutFact(node);
+        if (fact == null) {
+            BlockFacts<Node, Fact> facts = getRebuiltFacts(node);
+            if (facts != null) {
+                fact = facts.outFacts.get(node);
+            }
+        }
+        return fact;
+    }
+
+    /**
+     * @return the rebuilt facts of the block containing given node,
+     * or null if given node is not in the CFG.
+     * This is synchronized, as results may be queried by multiple threads
+     * and the cache is updated by each query.
+     */
+    private synchronized BlockFacts<Node, Fact> getRebuiltFacts(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (block == null) {
+            return null;
+        }
+        BlockFacts<Node, Fact> facts = rebuilt.get(block);
+        if (facts == null) {
+            facts = rebuild(block);
+            rebuilt.put(block, facts);
+        }
+        return facts;
+    }
+
+    /**
+     * Rebuilds the facts of the nodes inside given block. As a node inside
+     * a block has exactly one predecessor (successor), its IN (OUT) fact is
+     * the OUT (IN) fact of that node transferred through the edge between
+     * them. Each node gets its own fact objects, so that a client modifying
+     * a fact does not change the facts of other nodes.
+     */
+    private BlockFacts<Node, Fact> rebuild(BasicBlock<Node> block) {
+        CFG<Node> cfg = blockCFG.getNodeCFG();
+        List<Node> nodes = block.getNodes();
+        int last = nodes.size() - 1;
+        BlockFacts<Node, Fact> facts = new BlockFacts<>(last);
+        if (analysis.isForward()) {
+            Fact fact = super.getInFact(nodes.get(0));
+            for (int i = 0; i < last; ++i) {
+                Fact next = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), fact, next);
+                facts.outFacts.put(nodes.get(i), next);
+                fact = copyOf(cfg, BlockSolver.transferInnerEdge(
+                        analysis, cfg, nodes.get(i), next));
+                facts.inFacts.put(nodes.get(i + 1), fact);
+            }
+        } else {
+            Fact fact = super.getOutFact(nodes.get(last));
+            for (int i = last; i > 0; --i) {
+                Fact next = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), next, fact);
+                facts.inFacts.put(nodes.get(i), next);
+                fact = copyOf(cfg, BlockSolver.transferInnerEdge(
+                        analysis, cfg, nodes.get(i - 1), next));
+                facts.outFacts.put(nodes.get(i - 1), fact);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * @return a new fact equal to given fact, i.e., the meet of the
+     * initial fact, which is the identity of meet, and given fact.
+     */
+    private Fact copyOf(CFG<Node> cfg, Fact fact) {
+        Fact copy = analysis.newInitialFact(cfg);
+        analysis.meetInto(fact, copy);
+        return copy;
+    }
+
+    /**
+     * Facts of the nodes inside a block, i.e., all facts of the block
+     * except the checkpoints.
+     */
+    private static class BlockFacts<Node, Fact> {
+
+        private final Map<Node, Fact> inFacts;
+
+        private final Map<Node, Fact> outFacts;
+
+        private BlockFacts(int size) {
+            inFacts = Maps.newMap(size);
+            outFacts = Maps.newMap(size);
+        }
+    }
+
+    private static class LRUMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private LRUMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solver which works on the basic-block view of the CFG. It iterates
+ * over blocks with the composition of the node transfer functions of
+ * each block, so that only one IN/OUT fact pair is kept per block during
+ * solving. The facts of the nodes inside a block are rebuilt lazily by
+ * the returned result, when the client queries them.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    /**
+     * Maximum number of blocks whose rebuilt facts are kept by the result.
+     */
+    private final int cacheSize;
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis, int cacheSize) {
+        super(analysis);
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    protected DataflowResult<Node, Fact> doSolve(CFG<Node> cfg) {
+        BlockCFG<Node> blockCFG = BlockCFG.build(cfg);
+        PriorityWorkListSolver<BasicBlock<Node>, Fact> blockSolver =
+                new PriorityWorkListSolver<>(new BlockAnalysis<>(analysis, blockCFG));
+        // the metrics count the visits and transfers of blocks
+        blockSolver.setMetrics(metrics);
+        DataflowResult<BasicBlock<Node>, Fact> blockResult =
+                blockSolver.solve(blockCFG);
+        return new BlockDataflowResult<>(
+                analysis, blockCFG, blockResult, cacheSize);
+    }
+
+    /**
+     * @return the fact flowing through the edge from given node inside
+     * a block to its single successor, i.e., the result of edge transfer
+     * if the analysis needs it, otherwise the fact itself.
+     */
+    static <Node, Fact> Fact transferInnerEdge(
+            DataflowAnalysis<Node, Fact> analysis, CFG<Node> cfg,
+            Node source, Fact fact) {
+        Edge<Node> edge = cfg.getOutEdgesOf(source).iterator().next();
+        return analysis.needTransferEdge(edge)
+                ? analysis.transferEdge(edge, fact)
+                : fact;
+    }
+
+    /**
+     * Lifts a node-level analysis to basic blocks. The transfer function of
+     * a block is the composition of the transfer functions of its nodes,
+     * and the edges between blocks transfer facts as the underlying edges.
+     * <p>
+     * The facts between the nodes of a block are kept in two scratch facts,
+     * which are reused by all blocks if the node-level analysis can reset
+     * its facts, see {@link DataflowAnalysis#resetFact}.
+     * <p>
+     * If the node-level analysis cannot report whether a meet changes
+     * the target fact, {@link #mergeInto} conservatively reports true.
+     */
+    private static class BlockAnalysis<Node, Fact>
+            implements InPlaceDataflowAnalysis<BasicBlock<Node>, Fact> {
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        private final BlockCFG<Node> blockCFG;
+
+        private final CFG<Node> cfg;
+
+        private final List<Fact> scratch = new ArrayList<>(2);
+
+        private BlockAnalysis(DataflowAnalysis<Node, Fact> analysis,
+                              BlockCFG<Node> blockCFG) {
+            this.analysis = analysis;
+            this.blockCFG = blockCFG;
+            this.cfg = blockCFG.getNodeCFG();
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<BasicBlock<Node>> blockCFG) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public boolean mergeInto(Fact fact, Fact target) {
+            if (analysis instanceof InPlaceDataflowAnalysis<Node, Fact> inPlace) {
+                return inPlace.mergeInto(fact, target);
+            } else {
+                analysis.meetInto(fact, target);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean transferNode(BasicBlock<Node> block, Fact in, Fact out) {
+            List<Node> nodes = block.getNodes();
+            int last = nodes.size() - 1;
+            if (analysis.isForward()) {
+                Fact fact = in;
+                for (int i = 0; i < last; ++i) {
+                    Fact next = getScratch(i & 1);
+                    analysis.transferNode(nodes.get(i), fact, next);
+                    fact = transferInnerEdge(analysis, cfg, nodes.get(i), next);
+                }
+                return analysis.transferNode(nodes.get(last), fact, out);
+            } else {
+                Fact fact = out;
+                for (int i = last; i > 0; --i) {
+                    Fact next = getScratch(i & 1);
+                    analysis.transferNode(nodes.get(i), next, fact);
+                    fact = transferInnerEdge(analysis, cfg, nodes.get(i - 1), next);
+                }
+                return analysis.transferNode(nodes.get(0), in, fact);
+            }
+        }
+
+        /**
+         * @return the scratch fact of given slot, reset to the initial fact.
+         */
+        private Fact getScratch(int slot) {
+            if (scratch.size() <= slot) {
+                // backward transfers may ask for slot 1 before slot 0
+                while (scratch.size() <= slot) {
+                    scratch.add(analysis.newInitialFact(cfg));
+                }
+                return scratch.get(slot);
+            }
+            Fact fact = scratch.get(slot);
+            if (!analysis.resetFact(fact)) {
+                fact = analysis.newInitialFact(cfg);
+                scratch.set(slot, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<BasicBlock<Node>> edge) {
+            return analysis.needTransferEdge(blockCFG.getNodeEdgeOf(edge));
+        }
+
+        @Override
+        public Fact transferEdge(Edge<BasicBlock<Node>> edge, Fact nodeFact) {
+            return analysis.transferEdge(blockCFG.getNodeEdgeOf(edge), nodeFact);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Depth-first ordering of the nodes of a CFG. Each node is assigned
+ * a dense number in [0, size()), which solvers use as its priority
+ * in the work-list and as its position in index-backed bitmaps.
+ * <p>
+ * Nodes that are unreachable from the entry are numbered after
+ * the reachable ones, so that every node of the CFG has a number.
+ *
+ * @param <Node> type of CFG nodes
+ */
+final class DepthFirstOrder<Node> {
+
+    /**
+     * Nodes in the order of their numbers.
+     */
+    private final List<Node> nodes;
+
+    /**
+     * Maps {@link Indexable#getIndex()} of a node to its number.
+     * Used when all nodes are {@link Indexable} with dense indexes,
+     * which is the case for CFGs of {@link pascal.taie.ir.stmt.Stmt}.
+     */
+    private final int[] numbers;
+
+    /**
+     * Fallback mapping from nodes to their numbers,
+     * only used when {@link #numbers} is not available.
+     */
+    private final Map<Node, Integer> numberMap;
+
+    private DepthFirstOrder(List<Node> nodes) {
+        this.nodes = nodes;
+        this.numbers = buildNumbers(nodes);
+        this.numberMap = numbers != null ? null : buildNumberMap(nodes);
+    }
+
+    /**
+     * @return reverse postorder of the nodes in given CFG, which is
+     * the preferred iteration order for forward analyses.
+     */
+    static <Node> DepthFirstOrder<Node> reversePostorder(CFG<Node> cfg) {
+        List<Node> postorder = computePostorder(cfg);
+        Collections.reverse(postorder);
+        return new DepthFirstOrder<>(postorder);
+    }
+
+    /**
+     * @return postorder of the nodes in given CFG, which is
+     * the preferred iteration order for backward analyses.
+     */
+    static <Node> DepthFirstOrder<Node> postorder(CFG<Node> cfg) {
+        return new DepthFirstOrder<>(computePostorder(cfg));
+    }
+
+    /**
+     * @return number of nodes in this order.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the node whose number is i.
+     */
+    Node getNode(int i) {
+        return nodes.get(i);
+    }
+
+    /**
+     * @return the number of given node.
+     */
+    int getNumber(Node node) {
+        return numbers != null
+                ? numbers[((Indexable) node).getIndex()]
+                : numberMap.get(node);
+    }
+
+    /**
+     * Computes postorder of the nodes by iterative depth-first search
+     * from the entry node, and then from any node not visited yet,
+     * so that the result contains all nodes of the CFG.
+     */
+    private static <Node> List<Node> computePostorder(CFG<Node> cfg) {
+        Set<Node> allNodes = cfg.getNodes();
+        List<Node> postorder = new ArrayList<>(allNodes.size());
+        Set<Node> visited = Collections.newSetFromMap(Maps.newMap(allNodes.size()));
+        dfs(cfg, cfg.getEntry(), visited, postorder);
+        for (Node node : allNodes) {
+            if (!visited.contains(node)) {
+                dfs(cfg, node, visited, postorder);
+            }
+        }
+        return postorder;
+    }
+
+    private static <Node> void dfs(CFG<Node> cfg, Node root,
+                                   Set<Node> visited, List<Node> postorder) {
+        // each stack frame holds a node and the iterator of its successors
+        Deque<Node> nodeStack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succStack = new ArrayDeque<>();
+        visited.add(root);
+        nodeStack.push(root);
+        succStack.push(cfg.getSuccsOf(root).iterator());
+        while (!nodeStack.isEmpty()) {
+            Iterator<Node> succs = succStack.peek();
+            if (succs.hasNext()) {
+                Node succ = succs.next();
+                if (visited.add(succ)) {
+                    nodeStack.push(succ);
+                    succStack.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postorder.add(nodeStack.pop());
+                succStack.pop();
+            }
+        }
+    }
+
+    /**
+     * @return the index-to-number array if all nodes are {@link Indexable}
+     * and their indexes are distinct and lie in [0, nodes.size()),
+     * otherwise null.
+     */
+    private static <Node> int[] buildNumbers(List<Node> nodes) {
+        int[] numbers = new int[nodes.size()];
+        Arrays.fill(numbers, -1);
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (!(nodes.get(i) instanceof Indexable indexable)) {
+                return null;
+            }
+            int index = indexable.getIndex();
+            if (index < 0 || index >= numbers.length || numbers[index] != -1) {
+                return null;
+            }
+            numbers[index] = i;
+        }
+        return numbers;
+    }
+
+    private static <Node> Map<Node, Integer> buildNumberMap(List<Node> nodes) {
+        Map<Node, Integer> numberMap = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            numberMap.put(nodes.get(i), i);
+        }
+        return numberMap;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Solver for {@link GenKillAnalysis}, which solves several analyses of
+ * the same direction in one traversal of the CFG.
+ * <p>
+ * The facts of all analyses at a node are kept in one bit vector, where
+ * each analysis owns a range of words. Meets and transfers thus work on
+ * a machine word at a time for all analyses, and the gen and kill sets
+ * are kept as lists of bit positions, as they are usually small.
+ * The work-list is ordered by {@link DepthFirstOrder}, as in
+ * {@link PriorityWorkListSolver}.
+ */
+public final class GenKillSolver<Node> {
+
+    /**
+     * Solver name in the metrics of this solver.
+     */
+    private static final String KIND = "genkill";
+
+    private final CFG<Node> cfg;
+
+    private final List<? extends GenKillAnalysis<Node, ?>> analyses;
+
+    private final boolean forward;
+
+    private final DepthFirstOrder<Node> order;
+
+    /**
+     * Universes of the analyses.
+     */
+    private final List<List<? extends Indexable>> universes;
+
+    /**
+     * The first word of each analysis in the bit vectors.
+     */
+    private final int[] offsets;
+
+    /**
+     * Whether each analysis is a may analysis.
+     */
+    private final boolean[] mays;
+
+    /**
+     * Number of words of a bit vector.
+     */
+    private final int width;
+
+    /**
+     * Gen and kill sets of each node (by its number in {@link #order})
+     * as positions of bits in the bit vectors.
+     */
+    private final int[][] gens;
+
+    private final int[][] kills;
+
+    /**
+     * Bit vectors of all nodes, where the vector of node i starts
+     * at word i * {@link #width}. The source facts are the IN facts
+     * for forward analyses and the OUT facts for backward analyses.
+     */
+    private final long[] sources;
+
+    private final long[] targets;
+
+    /**
+     * Metrics of this run, or null if the metrics are not collected.
+     */
+    private SolverMetrics metrics;
+
+    private GenKillSolver(CFG<Node> cfg,
+                          List<? extends GenKillAnalysis<Node, ?>> analyses) {
+        if (analyses.isEmpty()) {
+            throw new AnalysisException("No analysis to solve");
+        }
+        this.cfg = cfg;
+        this.analyses = analyses;
+        this.forward = analyses.get(0).isForward();
+        for (GenKillAnalysis<Node, ?> analysis : analyses) {
+            if (analysis.isForward() != forward) {
+                throw new AnalysisException(
+                        "Analyses solved together must have the same direction");
+            }
+        }
+        this.order = forward
+                ? DepthFirstOrder.reversePostorder(cfg)
+                : DepthFirstOrder.postorder(cfg);
+        int n = analyses.size();
+        this.universes = new ArrayList<>(n);
+        this.offsets = new int[n];
+        this.mays = new boolean[n];
+        int width = 0;
+        for (int k = 0; k < n; ++k) {
+            List<? extends Indexable> universe = analyses.get(k).getUniverse(cfg);
+            universes.add(universe);
+            offsets[k] = width;
+            mays[k] = analyses.get(k).isMay();
+            width += wordsOf(universe.size());
+        }
+        this.width = width;
+        this.gens = new int[order.size()][];
+        this.kills = new int[order.size()][];
+        this.sources = new long[order.size() * width];
+        this.targets = new long[order.size() * width];
+    }
+
+    /**
+     * Solves given analysis on given CFG.
+     *
+     * @return the analysis result, whose facts are {@link BitSetFact}s.
+     */
+    public static <Node, E extends Indexable> DataflowResult<Node, SetFact<E>>
+    solve(CFG<Node> cfg, GenKillAnalysis<Node, E> analysis) {
+        return solve(cfg, analysis, null);
+    }
+
+    /**
+     * Solves given analysis on given CFG, and sends the metrics of
+     * the run to given sink, as the solvers made by {@link Solver} do.
+     *
+     * @param sink sink of the metrics, or null if the metrics
+     *             are not collected
+     * @return the analysis result, whose facts are {@link BitSetFact}s.
+     */
+    public static <Node, E extends Indexable> DataflowResult<Node, SetFact<E>>
+    solve(CFG<Node> cfg, GenKillAnalysis<Node, E> analysis, MetricsSink sink) {
+        GenKillSolver<Node> solver = new GenKillSolver<>(cfg, List.of(analysis));
+        if (sink == null) {
+            solver.solve();
+            return solver.makeResult(0, analysis);
+        }
+        SolverMetrics metrics = new SolverMetrics(
+                cfg.getMethod().getSignature(), KIND, cfg.getNumberOfNodes());
+        solver.metrics = metrics;
+        long start = System.nanoTime();
+        solver.solve();
+        DataflowResult<Node, SetFact<E>> result = solver.makeResult(0, analysis);
+        metrics.addNanos(System.nanoTime() - start);
+        for (Node node : cfg) {
+            metrics.recordFact(result.getInFact(node));
+            metrics.recordFact(result.getOutFact(node));
+        }
+        sink.accept(metrics);
+        return result;
+    }
+
+    /**
+     * Solves given analyses together on given CFG.
+     *
+     * @return the results of the analyses, in the same order as the analyses.
+     * @throws AnalysisException if the analyses have different directions
+     */
+    public static <Node> List<DataflowResult<Node, ? extends SetFact<?>>> solve(
+            CFG<Node> cfg, List<? extends GenKillAnalysis<Node, ?>> analyses) {
+        GenKillSolver<Node> solver = new GenKillSolver<>(cfg, analyses);
+        solver.solve();
+        return solver.makeResults();
+    }
+
+    private void solve() {
+        computeGenKill();
+        initialize();
+        doSolve();
+    }
+
+    private static int wordsOf(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private void computeGenKill() {
+        List<IntList> genLists = new ArrayList<>(order.size());
+        List<IntList> killLists = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            genLists.add(new IntList());
+            killLists.add(new IntList());
+        }
+        for (int k = 0; k < analyses.size(); ++k) {
+            int base = offsets[k] << 6;
+            addGenKill(analyses.get(k), base, genLists, killLists);
+        }
+        for (int i = 0; i < order.size(); ++i) {
+            gens[i] = genLists.get(i).toArray();
+            kills[i] = killLists.get(i).toArray();
+        }
+    }
+
+    private <E extends Indexable> void addGenKill(
+            GenKillAnalysis<Node, E> analysis, int base,
+            List<IntList> genLists, List<IntList> killLists) {
+        analysis.computeGenKill(cfg, new GenKillAnalysis.GenKillSets<>() {
+            @Override
+            public void gen(Node node, E e) {
+                genLists.get(order.getNumber(node)).add(base + e.getIndex());
+            }
+
+            @Override
+            public void kill(Node node, E e) {
+                killLists.get(order.getNumber(node)).add(base + e.getIndex());
+            }
+        });
+    }
+
+    /**
+     * Initializes the facts of must analyses to their universes, except
+     * the ones of the boundary node. All other facts are initially empty.
+     */
+    private void initialize() {
+        int boundary = order.getNumber(forward ? cfg.getEntry() : cfg.getExit());
+        for (int k = 0; k < analyses.size(); ++k) {
+            if (mays[k]) {
+                continue;
+            }
+            int size = universes.get(k).size();
+            for (int i = 0; i < order.size(); ++i) {
+                if (i == boundary) {
+                    continue;
+                }
+                int start = i * width + offsets[k];
+                fillUniverse(sources, start, size);
+                fillUniverse(targets, start, size);
+            }
+        }
+    }
+
+    private static void fillUniverse(long[] words, int start, int size) {
+        int full = size >>> 6;
+        Arrays.fill(words, start, start + full, -1L);
+        if ((size & 63) != 0) {
+            words[start + full] = (1L << size) - 1;
+        }
+    }
+
+    private void doSolve() {
+        int boundary = order.getNumber(forward ? cfg.getEntry() : cfg.getExit());
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        workList.clear(boundary);
+        BitSet transferred = new BitSet(order.size());
+        long[] buffer = new long[width];
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            if (metrics != null) {
+                metrics.visitNode(workList.cardinality());
+            }
+            Node node = order.getNode(i);
+            boolean sourceChanged = !transferred.get(i);
+            for (Node pred : getPredsOf(node)) {
+                if (metrics != null) {
+                    metrics.countMeet();
+                }
+                sourceChanged |= meetInto(order.getNumber(pred), i);
+            }
+            if (!sourceChanged) {
+                continue;
+            }
+            transferred.set(i);
+            if (metrics != null) {
+                metrics.countTransfer();
+            }
+            if (transfer(i, buffer)) {
+                for (Node succ : getSuccsOf(node)) {
+                    workList.set(order.getNumber(succ));
+                }
+            }
+        }
+    }
+
+    private Set<Node> getPredsOf(Node node) {
+        return forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node);
+    }
+
+    private Set<Node> getSuccsOf(Node node) {
+        return forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+    }
+
+    /**
+     * Meets the target vector of node {@code from} into
+     * the source vector of node {@code to}.
+     *
+     * @return true if the source vector changed.
+     */
+    private boolean meetInto(int from, int to) {
+        int fromStart = from * width;
+        int toStart = to * width;
+        long changed = 0;
+        for (int k = 0; k < analyses.size(); ++k) {
+            int end = k + 1 < offsets.length ? offsets[k + 1] : width;
+            for (int w = offsets[k]; w < end; ++w) {
+                long old = sources[toStart + w];
+                long word = mays[k]
+                        ? old | targets[fromStart + w]
+                        : old & targets[fromStart + w];
+                sources[toStart + w] = word;
+                changed |= word ^ old;
+            }
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Computes the target vector of node i as GEN U (source - KILL).
+     *
+     * @return true if the target vector changed.
+     */
+    private boolean transfer(int i, long[] buffer) {
+        int start = i * width;
+        System.arraycopy(sources, start, buffer, 0, width);
+        for (int bit : kills[i]) {
+            buffer[bit >>> 6] &= ~(1L << bit);
+        }
+        for (int bit : gens[i]) {
+            buffer[bit >>> 6] |= 1L << bit;
+        }
+        if (Arrays.equals(buffer, 0, width, targets, start, start + width)) {
+            return false;
+        }
+        System.arraycopy(buffer, 0, targets, start, width);
+        return true;
+    }
+
+    private List<DataflowResult<Node, ? extends SetFact<?>>> makeResults() {
+        List<DataflowResult<Node, ? extends SetFact<?>>> results =
+                new ArrayList<>(analyses.size());
+        for (int k = 0; k < analyses.size(); ++k) {
+            results.add(makeResult(k, analyses.get(k)));
+        }
+        return results;
+    }
+
+    /**
+     * @return the result of the k-th analysis, which is given analysis.
+     */
+    private <E extends Indexable> DataflowResult<Node, SetFact<E>> makeResult(
+            int k, GenKillAnalysis<Node, E> analysis) {
+        List<E> universe = getUniverse(k, analysis);
+        int offset = offsets[k];
+        DataflowResult<Node, SetFact<E>> result = IndexedDataflowResult.newResult(cfg);
+        for (int i = 0; i < order.size(); ++i) {
+            Node node = order.getNode(i);
+            BitSetFact<E> source = new BitSetFact<>(universe);
+            source.setWords(sources, i * width + offset);
+            BitSetFact<E> target = new BitSetFact<>(universe);
+            target.setWords(targets, i * width + offset);
+            if (forward) {
+                result.setInFact(node, source);
+                result.setOutFact(node, target);
+            } else {
+                result.setInFact(node, target);
+                result.setOutFact(node, source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the universe of the k-th analysis, which is given analysis.
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Indexable> List<E> getUniverse(
+            int k, GenKillAnalysis<Node, E> analysis) {
+        // safe: universes.get(k) is the list returned by
+        // analysis.getUniverse(cfg), whose elements are of type E
+        return (List<E>) universes.get(k);
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+
+        private int[] elements = new int[2];
+
+        private int size = 0;
+
+        private void add(int e) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = e;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.World;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A file of JSON lines which is written by the {@link MetricsSink}s of
+ * a run. Each file is opened, and truncated, once per run, on the first
+ * request of it, and the sinks of all analyses writing the same file
+ * share the writer. The files are flushed by {@link #flushAll()}, and
+ * closed when the {@link World} is reset for the next run.
+ */
+final class JsonLinesFile {
+
+    /**
+     * The files opened in the current run, by their normalized paths.
+     */
+    private static final Map<Path, JsonLinesFile> files = new LinkedHashMap<>();
+
+    static {
+        World.registerResetCallback(JsonLinesFile::closeAll);
+    }
+
+    private final BufferedWriter writer;
+
+    private JsonLinesFile(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * @return the file of given path for the current run, which is
+     * opened, and truncated, if it is not opened yet.
+     */
+    static synchronized JsonLinesFile get(Path path) {
+        return files.computeIfAbsent(path.toAbsolutePath().normalize(), p -> {
+            try {
+                return new JsonLinesFile(
+                        Files.newBufferedWriter(p, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Appends given line, which must end with a line separator.
+     * The lines of concurrent writers are not interleaved.
+     */
+    synchronized void write(String line) {
+        try {
+            writer.write(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Flushes the files opened in the current run.
+     */
+    static synchronized void flushAll() {
+        try {
+            for (JsonLinesFile file : files.values()) {
+                file.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the files opened in the current run, so that the next run
+     * opens them anew.
+     */
+    private static synchronized void closeAll() {
+        try {
+            for (JsonLinesFile file : files.values()) {
+                synchronized (file) {
+                    file.writer.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            files.clear();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.nio.file.Path;
+
+/**
+ * Receives the {@link SolverMetrics} of each run of a solver.
+ * Sinks may be called concurrently by the solvers of different methods.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    void accept(SolverMetrics metrics);
+
+    /**
+     * @return a sink which writes the metrics to given file as JSON lines,
+     * each of which is tagged with given analysis ID. The file is
+     * truncated once per run, and then the lines of all sinks of the run
+     * are appended to it through a buffer, see {@link #flushAll()}.
+     */
+    static MetricsSink jsonLines(Path file, String analysis) {
+        String prefix = "{\"analysis\":" + SolverMetrics.quote(analysis) + ",";
+        JsonLinesFile out = JsonLinesFile.get(file);
+        return metrics -> out.write(prefix + metrics.toJsonMembers() + "}\n");
+    }
+
+    /**
+     * Writes out the buffered metrics of the sinks given by
+     * {@link #jsonLines(Path, String)} in the current run.
+     */
+    static void flushAll() {
+        JsonLinesFile.flushAll();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.BitSet;
+
+/**
+ * Work-list solver which always picks the pending node that comes first
+ * in depth-first order, i.e., reverse postorder for forward analyses and
+ * postorder for backward analyses. This order makes information flow
+ * through a loop body before the loop head is revisited, thus it usually
+ * reaches the fixed point with much fewer node transfers.
+ * <p>
+ * The work-list is a bitmap indexed by the depth-first numbers of nodes,
+ * thus each node is held in the work-list at most once, and picking the
+ * next node is just looking for the lowest set bit.
+ * <p>
+ * For an {@link pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis},
+ * the transfer of a node is skipped if the meet did not change the node's
+ * source fact since its last transfer.
+ * <p>
+ * The facts flowing through the edges are transferred by the analysis
+ * if it needs edge transfers, see {@link Solver#transferEdge}.
+ */
+class PriorityWorkListSolver<Node, Fact> extends NodeSolver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        DepthFirstOrder<Node> order = DepthFirstOrder.reversePostorder(cfg);
+        BitSet workList = initWorkList(order, cfg.getEntry());
+        BitSet transferred = new BitSet(order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            if (metrics != null) {
+                metrics.visitNode(workList.cardinality());
+            }
+            Node node = order.getNode(i);
+            Fact in = result.getInFact(node);
+            boolean inChanged = !transferred.get(i);
+            for (Edge<Node> edge : cfg.getInEdgesOf(node)) {
+                inChanged |= meetInto(transferEdge(edge,
+                        result.getOutFact(edge.getSource())), in);
+            }
+            if (!inChanged) {
+                continue;
+            }
+            transferred.set(i);
+            if (transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    workList.set(order.getNumber(succ));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        DepthFirstOrder<Node> order = DepthFirstOrder.postorder(cfg);
+        BitSet workList = initWorkList(order, cfg.getExit());
+        BitSet transferred = new BitSet(order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            if (metrics != null) {
+                metrics.visitNode(workList.cardinality());
+            }
+            Node node = order.getNode(i);
+            Fact out = result.getOutFact(node);
+            boolean outChanged = !transferred.get(i);
+            for (Edge<Node> edge : cfg.getOutEdgesOf(node)) {
+                outChanged |= meetInto(transferEdge(edge,
+                        result.getInFact(edge.getTarget())), out);
+            }
+            if (!outChanged) {
+                continue;
+            }
+            transferred.set(i);
+            if (transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    workList.set(order.getNumber(pred));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a work-list containing all nodes except the boundary node,
+     * whose facts have been fixed by the initialization.
+     */
+    private static <Node> BitSet initWorkList(DepthFirstOrder<Node> order, Node boundary) {
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        workList.clear(order.getNumber(boundary));
+        return workList;
+    }
+}
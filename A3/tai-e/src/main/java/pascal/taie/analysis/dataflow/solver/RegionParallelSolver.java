@@ -0,0 +1,302 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Solver which splits a large CFG into regions and solves independent
+ * regions concurrently.
+ * <p>
+ * The regions are built from the strongly connected components of the
+ * CFG (in the direction of the analysis): a chain of components, each of
+ * which has only one successor component and whose successor has only
+ * one predecessor, forms one region. The regions thus form a DAG, and a
+ * region is solved after all its predecessors, when the facts flowing
+ * into it are final. Each region is solved by a work-list which is
+ * ordered as in {@link PriorityWorkListSolver}.
+ * <p>
+ * CFGs with fewer nodes than a threshold are solved sequentially by
+ * {@link PriorityWorkListSolver}. Note that the facts of different
+ * regions are updated concurrently, thus the analysis must allow its
+ * functions to be applied to different facts at the same time.
+ */
+class RegionParallelSolver<Node, Fact> extends NodeSolver<Node, Fact> {
+
+    /**
+     * Minimum number of nodes of a CFG to be solved in parallel.
+     */
+    private final int threshold;
+
+    private final PriorityWorkListSolver<Node, Fact> sequential;
+
+    RegionParallelSolver(DataflowAnalysis<Node, Fact> analysis, int threshold) {
+        super(analysis);
+        this.threshold = threshold;
+        this.sequential = new PriorityWorkListSolver<>(analysis);
+    }
+
+    @Override
+    void setMetrics(SolverMetrics metrics) {
+        super.setMetrics(metrics);
+        sequential.setMetrics(metrics);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        if (cfg.getNumberOfNodes() < threshold) {
+            sequential.doSolveForward(cfg, result);
+        } else {
+            new Regions(cfg, result, true).solve();
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        if (cfg.getNumberOfNodes() < threshold) {
+            sequential.doSolveBackward(cfg, result);
+        } else {
+            new Regions(cfg, result, false).solve();
+        }
+    }
+
+    /**
+     * Regions of one CFG and the states of solving them.
+     */
+    private class Regions {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean forward;
+
+        private final DepthFirstOrder<Node> order;
+
+        /**
+         * Nodes of each region, sorted by their numbers in {@link #order}.
+         */
+        private final List<int[]> regionNodes = new ArrayList<>();
+
+        /**
+         * Predecessor regions of each region.
+         */
+        private final List<BitSet> regionPreds = new ArrayList<>();
+
+        /**
+         * Region of each node.
+         */
+        private final int[] regionOf;
+
+        /**
+         * Position of each node in its region.
+         */
+        private final int[] positions;
+
+        private Regions(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                        boolean forward) {
+            this.cfg = cfg;
+            this.result = result;
+            this.forward = forward;
+            this.order = forward
+                    ? DepthFirstOrder.reversePostorder(cfg)
+                    : DepthFirstOrder.postorder(cfg);
+            int n = order.size();
+            this.regionOf = new int[n];
+            this.positions = new int[n];
+            buildRegions();
+        }
+
+        private Set<Node> getSuccsOf(Node node) {
+            return forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+        }
+
+        private void buildRegions() {
+            int n = order.size();
+            int[][] succs = new int[n][];
+            for (int i = 0; i < n; ++i) {
+                succs[i] = getSuccsOf(order.getNode(i))
+                        .stream()
+                        .mapToInt(order::getNumber)
+                        .toArray();
+            }
+            BitSet all = new BitSet(n);
+            all.set(0, n);
+            List<int[]> sccs = StronglyConnectedComponents.compute(succs, all);
+            // number the components in topological order
+            int[] sccOf = new int[n];
+            int count = sccs.size();
+            for (int c = 0; c < count; ++c) {
+                for (int node : sccs.get(count - 1 - c)) {
+                    sccOf[node] = c;
+                }
+            }
+            // count the distinct successor and predecessor components
+            int[] succCount = new int[count];
+            int[] predCount = new int[count];
+            int[] singlePred = new int[count];
+            int[] lastSeen = new int[count];
+            Arrays.fill(lastSeen, -1);
+            for (int c = 0; c < count; ++c) {
+                for (int node : sccs.get(count - 1 - c)) {
+                    for (int succ : succs[node]) {
+                        int to = sccOf[succ];
+                        if (to != c && lastSeen[to] != c) {
+                            lastSeen[to] = c;
+                            ++succCount[c];
+                            ++predCount[to];
+                            singlePred[to] = c;
+                        }
+                    }
+                }
+            }
+            // merge chains of components into regions
+            int[] regionOfScc = new int[count];
+            List<List<int[]>> regionSccs = new ArrayList<>();
+            for (int c = 0; c < count; ++c) {
+                int region;
+                if (predCount[c] == 1 && succCount[singlePred[c]] == 1) {
+                    region = regionOfScc[singlePred[c]];
+                } else {
+                    region = regionSccs.size();
+                    regionSccs.add(new ArrayList<>());
+                }
+                regionOfScc[c] = region;
+                regionSccs.get(region).add(sccs.get(count - 1 - c));
+            }
+            for (int r = 0; r < regionSccs.size(); ++r) {
+                int size = regionSccs.get(r).stream().mapToInt(scc -> scc.length).sum();
+                int[] nodes = new int[size];
+                int k = 0;
+                for (int[] scc : regionSccs.get(r)) {
+                    System.arraycopy(scc, 0, nodes, k, scc.length);
+                    k += scc.length;
+                }
+                Arrays.sort(nodes);
+                for (int j = 0; j < nodes.length; ++j) {
+                    regionOf[nodes[j]] = r;
+                    positions[nodes[j]] = j;
+                }
+                regionNodes.add(nodes);
+                regionPreds.add(new BitSet());
+            }
+            for (int i = 0; i < n; ++i) {
+                for (int succ : succs[i]) {
+                    if (regionOf[i] != regionOf[succ]) {
+                        regionPreds.get(regionOf[succ]).set(regionOf[i]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Solves the regions, each after its predecessors.
+         * The regions are numbered in topological order.
+         */
+        private void solve() {
+            Executor executor = ForkJoinTask.inForkJoinPool()
+                    ? ForkJoinTask.getPool()
+                    : ForkJoinPool.commonPool();
+            int count = regionNodes.size();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(count);
+            for (int r = 0; r < count; ++r) {
+                BitSet preds = regionPreds.get(r);
+                CompletableFuture<?>[] predFutures = preds.stream()
+                        .mapToObj(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                int region = r;
+                futures.add(CompletableFuture.allOf(predFutures)
+                        .thenRunAsync(() -> solveRegion(region), executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                        .join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+
+        private void solveRegion(int region) {
+            int[] nodes = regionNodes.get(region);
+            Node boundary = forward ? cfg.getEntry() : cfg.getExit();
+            BitSet workList = new BitSet(nodes.length);
+            workList.set(0, nodes.length);
+            BitSet transferred = new BitSet(nodes.length);
+            for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+                workList.clear(i);
+                if (metrics != null) {
+                    metrics.visitNode(workList.cardinality());
+                }
+                Node node = order.getNode(nodes[i]);
+                if (node.equals(boundary)) {
+                    continue;
+                }
+                Fact source = forward ? result.getInFact(node) : result.getOutFact(node);
+                boolean sourceChanged = !transferred.get(i);
+                if (forward) {
+                    for (Edge<Node> edge : cfg.getInEdgesOf(node)) {
+                        sourceChanged |= meetInto(transferEdge(edge,
+                                result.getOutFact(edge.getSource())), source);
+                    }
+                } else {
+                    for (Edge<Node> edge : cfg.getOutEdgesOf(node)) {
+                        sourceChanged |= meetInto(transferEdge(edge,
+                                result.getInFact(edge.getTarget())), source);
+                    }
+                }
+                if (!sourceChanged) {
+                    continue;
+                }
+                transferred.set(i);
+                boolean changed = forward
+                        ? transferNode(node, source, result.getOutFact(node))
+                        : transferNode(node, result.getInFact(node), source);
+                if (changed) {
+                    for (Node succ : getSuccsOf(node)) {
+                        int number = order.getNumber(succ);
+                        if (regionOf[number] == region) {
+                            workList.set(positions[number]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -23,30 +23,170 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.WideningDataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.ConfigException;
 
 /**
  * Base class for data-flow analysis solver, which provides common
  * functionalities for different solver implementations.
+ * Solvers which iterate over the nodes of the CFG extend {@link NodeSolver}.
  *
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
  */
 public abstract class Solver<Node, Fact> {
 
+    /**
+     * Kind of the FIFO work-list solver.
+     */
+    public static final String WORK_LIST = "worklist";
+
+    /**
+     * Kind of the work-list solver that prioritizes nodes by depth-first order.
+     */
+    public static final String PRIORITY = "priority";
+
+    /**
+     * Kind of the solver that works on basic blocks.
+     */
+    public static final String BLOCK = "block";
+
+    /**
+     * Kind of the solver that works on basic blocks like {@link #BLOCK},
+     * but its result only keeps the facts at join and branch points
+     * and a few recently rebuilt blocks of facts.
+     */
+    public static final String SPARSE = "sparse";
+
+    /**
+     * Kind of the solver that iterates along the weak topological order
+     * of the CFG, and only checks for the fixed point at loop heads.
+     */
+    public static final String WTO = "wto";
+
+    /**
+     * Kind of the solver that solves independent regions of large CFGs
+     * in parallel.
+     */
+    public static final String PARALLEL = "parallel";
+
+    /**
+     * Default minimum number of nodes of a CFG to be solved in parallel
+     * by {@link #PARALLEL} solver.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
+    /**
+     * Number of blocks whose rebuilt facts are kept by {@link #SPARSE} solver.
+     */
+    private static final int SPARSE_CACHE_SIZE = 16;
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Kind of this solver, or null if this solver is not made by
+     * {@link #makeSolver(DataflowAnalysis, String)}.
+     */
+    private String kind;
+
+    /**
+     * Minimum number of nodes of a CFG to be solved in parallel, if this
+     * solver is made by {@link #makeSolver(DataflowAnalysis, String, int)}.
+     */
+    private int parallelThreshold;
+
+    /**
+     * Sink of the metrics of each run of this solver, or null if
+     * the metrics are not collected.
+     */
+    private MetricsSink sink;
+
+    /**
+     * Metrics of the current run, or null if the metrics are not collected.
+     * The helper methods of this class update it, so that nothing is
+     * counted unless a sink is attached.
+     */
+    protected SolverMetrics metrics;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
 
     /**
      * Static factory method to create a new solver for given analysis.
+     * The solver is {@link #WTO} for {@link WideningDataflowAnalysis},
+     * otherwise {@link #PRIORITY}.
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        return makeSolver(analysis,
+                analysis instanceof WideningDataflowAnalysis ? WTO : PRIORITY);
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis.
+     *
+     * @param kind kind of the solver, i.e., {@link #WORK_LIST},
+     *             {@link #PRIORITY}, {@link #BLOCK}, {@link #SPARSE},
+     *             {@link #WTO} or {@link #PARALLEL}
+     * @throws ConfigException if the kind is unknown, or the analysis is
+     *                         a {@link WideningDataflowAnalysis} and the kind
+     *                         is not {@link #WTO}, the only solver that widens
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String kind) {
+        return makeSolver(analysis, kind, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis.
+     *
+     * @param parallelThreshold minimum number of nodes of a CFG to be solved
+     *                          in parallel by {@link #PARALLEL} solver,
+     *                          smaller CFGs are solved sequentially
+     * @see #makeSolver(DataflowAnalysis, String)
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String kind,
+            int parallelThreshold) {
+        if (analysis instanceof WideningDataflowAnalysis && !kind.equals(WTO)) {
+            throw new ConfigException("Solver " + kind
+                    + " does not support widening, use " + WTO);
+        }
+        Solver<Node, Fact> solver = switch (kind) {
+            case WORK_LIST -> new WorkListSolver<>(analysis);
+            case PRIORITY -> new PriorityWorkListSolver<>(analysis);
+            case BLOCK -> new BlockSolver<>(analysis, BlockDataflowResult.UNBOUNDED);
+            case SPARSE -> new BlockSolver<>(analysis, SPARSE_CACHE_SIZE);
+            case WTO -> new WTOSolver<>(analysis);
+            case PARALLEL -> new RegionParallelSolver<>(analysis, parallelThreshold);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+        solver.kind = kind;
+        solver.parallelThreshold = parallelThreshold;
+        return solver;
+    }
+
+    /**
+     * Attaches a sink which receives the metrics of each run of this solver.
+     * Without a sink, the solver does not collect any metrics.
+     */
+    public void setMetricsSink(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the metrics which the current run of this solver updates.
+     * Solvers delegating to other solvers pass the metrics on to them.
+     */
+    void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
@@ -56,60 +196,106 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
-        return result;
+        return sink != null ? solveWithMetrics(cfg) : doSolve(cfg);
     }
 
     /**
-     * Creates and initializes a new data-flow result for given CFG.
-     *
-     * @return the initialized data-flow result
+     * Solves given CFG, and sends the metrics of the run to the sink.
      */
-    private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
-        if (analysis.isForward()) {
-            initializeForward(cfg, result);
-        } else {
-            initializeBackward(cfg, result);
+    private DataflowResult<Node, Fact> solveWithMetrics(CFG<Node> cfg) {
+        // the metrics are kept by a new solver for this run,
+        // as this solver may be solving other CFGs concurrently
+        Solver<Node, Fact> solver = makeSolver(analysis, kind, parallelThreshold);
+        SolverMetrics runMetrics = new SolverMetrics(
+                cfg.getMethod().getSignature(), kind, cfg.getNumberOfNodes());
+        solver.setMetrics(runMetrics);
+        long start = System.nanoTime();
+        DataflowResult<Node, Fact> result = solver.doSolve(cfg);
+        runMetrics.addNanos(System.nanoTime() - start);
+        for (Node node : cfg) {
+            runMetrics.recordFact(result.getInFact(node));
+            runMetrics.recordFact(result.getOutFact(node));
         }
+        sink.accept(runMetrics);
         return result;
     }
 
-    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        for (Node node: cfg) {
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
-        }
+    /**
+     * Solves given CFG.
+     *
+     * @return the analysis result
+     */
+    protected abstract DataflowResult<Node, Fact> doSolve(CFG<Node> cfg);
 
-        Node entry = cfg.getEntry();
-        result.setInFact(entry, analysis.newBoundaryFact(cfg));
-        result.setOutFact(entry, analysis.newBoundaryFact(cfg));
+    /**
+     * Meets a fact into another (target) fact.
+     *
+     * @return false if the analysis is an {@link InPlaceDataflowAnalysis}
+     * and the target fact did not change, otherwise true.
+     */
+    protected boolean meetInto(Fact fact, Fact target) {
+        if (metrics != null) {
+            metrics.countMeet();
+        }
+        if (analysis instanceof InPlaceDataflowAnalysis<Node, Fact> inPlace) {
+            return inPlace.mergeInto(fact, target);
+        } else {
+            analysis.meetInto(fact, target);
+            return true;
+        }
     }
 
-    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        for (Node node: cfg) {
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
+    /**
+     * Widens a fact into another (target) fact at a loop head.
+     * For analyses that do not widen, this is the same as meet.
+     *
+     * @return false if the target fact did not change, otherwise true.
+     */
+    protected boolean widenInto(Fact fact, Fact target) {
+        if (analysis instanceof WideningDataflowAnalysis<Node, Fact> widening) {
+            return widening.widenInto(fact, target);
+        } else {
+            return meetInto(fact, target);
         }
-
-        Node exit = cfg.getExit();
-        result.setInFact(exit, analysis.newBoundaryFact(cfg));
-        result.setOutFact(exit, analysis.newBoundaryFact(cfg));
     }
 
     /**
-     * Solves the data-flow problem for given CFG.
+     * Narrows a fact into another (target) fact at a loop head.
+     * For analyses that do not widen, this does nothing.
+     *
+     * @return true if the target fact changed, otherwise false.
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+    protected boolean narrowInto(Fact fact, Fact target) {
+        if (analysis instanceof WideningDataflowAnalysis<Node, Fact> widening) {
+            return widening.narrowInto(fact, target);
         } else {
-            doSolveBackward(cfg, result);
+            return false;
         }
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * @return the fact flowing through given edge, i.e., the result of
+     * edge transfer if the analysis needs it, otherwise the fact itself.
+     */
+    protected Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+        if (!analysis.needTransferEdge(edge)) {
+            return nodeFact;
+        }
+        if (metrics != null) {
+            metrics.countEdgeTransfer();
+        }
+        return analysis.transferEdge(edge, nodeFact);
+    }
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Transfers given node by the analysis.
+     *
+     * @return true if the transfer changed the out (in) fact, otherwise false.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        if (metrics != null) {
+            metrics.countTransfer();
+        }
+        return analysis.transferNode(node, in, out);
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one run of a solver on one method, which are collected
+ * only when a {@link MetricsSink} is attached to the solver. The counters
+ * can be updated concurrently, as some solvers solve parts of a CFG
+ * in parallel.
+ */
+public class SolverMetrics {
+
+    private final String method;
+
+    private final String solver;
+
+    private final int nodes;
+
+    private final LongAdder nodeVisits = new LongAdder();
+
+    private final LongAdder transfers = new LongAdder();
+
+    private final LongAdder meets = new LongAdder();
+
+    private final LongAdder edgeTransfers = new LongAdder();
+
+    private final AtomicLong workListHighWater = new AtomicLong();
+
+    private int maxFactSize = -1;
+
+    private long nanos;
+
+    /**
+     * @param method signature of the solved method
+     * @param solver kind of the solver
+     * @param nodes  number of nodes of the solved graph
+     */
+    public SolverMetrics(String method, String solver, int nodes) {
+        this.method = method;
+        this.solver = solver;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Records that the solver picks a node to visit.
+     *
+     * @param workListSize number of nodes still in the work-list,
+     *                     or 0 if the solver has no work-list
+     */
+    public void visitNode(int workListSize) {
+        nodeVisits.increment();
+        if (workListSize > workListHighWater.get()) {
+            workListHighWater.accumulateAndGet(workListSize, Math::max);
+        }
+    }
+
+    public void countTransfer() {
+        transfers.increment();
+    }
+
+    public void countMeet() {
+        meets.increment();
+    }
+
+    public void countEdgeTransfer() {
+        edgeTransfers.increment();
+    }
+
+    /**
+     * Records the size of a fact of the result, of which the largest one is kept.
+     */
+    public void recordFact(Object fact) {
+        maxFactSize = Math.max(maxFactSize, sizeOf(fact));
+    }
+
+    /**
+     * Adds time spent in solving. This is called only by the thread
+     * which started the run.
+     */
+    public void addNanos(long nanos) {
+        this.nanos += nanos;
+    }
+
+    /**
+     * @return the number of elements of given fact, or -1 if the type
+     * of the fact is unknown.
+     */
+    private static int sizeOf(Object fact) {
+        if (fact instanceof SetFact<?> setFact) {
+            return setFact.size();
+        } else if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.keySet().size();
+        } else {
+            return -1;
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    public long getTransfers() {
+        return transfers.sum();
+    }
+
+    public long getMeets() {
+        return meets.sum();
+    }
+
+    public long getEdgeTransfers() {
+        return edgeTransfers.sum();
+    }
+
+    public long getWorkListHighWater() {
+        return workListHighWater.get();
+    }
+
+    /**
+     * @return the number of elements of the largest fact of the result,
+     * or -1 if it is unknown.
+     */
+    public int getMaxFactSize() {
+        return maxFactSize;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the fields of these metrics as the members of a JSON object,
+     * without the enclosing braces.
+     */
+    public String toJsonMembers() {
+        return "\"method\":" + quote(method)
+                + ",\"solver\":" + quote(solver)
+                + ",\"nodes\":" + nodes
+                + ",\"nodeVisits\":" + getNodeVisits()
+                + ",\"transferNode\":" + getTransfers()
+                + ",\"meetInto\":" + getMeets()
+                + ",\"transferEdge\":" + getEdgeTransfers()
+                + ",\"workListHighWater\":" + getWorkListHighWater()
+                + ",\"maxFactSize\":" + maxFactSize
+                + ",\"nanos\":" + nanos;
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "{" + toJsonMembers() + "}";
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Iterative Tarjan's algorithm for finding the strongly connected
+ * components of a graph whose nodes are numbered densely.
+ */
+final class StronglyConnectedComponents {
+
+
+    private final int[][] succs;
+
+    private final BitSet scope;
+
+    private final int[] index;
+
+    private final int[] lowLink;
+
+    private final BitSet onStack = new BitSet();
+
+    private final int[] stack;
+
+    private int sp = 0;
+
+    private int counter = 0;
+
+    private final List<int[]> sccs = new ArrayList<>();
+
+    private StronglyConnectedComponents(int[][] succs, BitSet scope) {
+        this.succs = succs;
+        this.scope = scope;
+        this.index = new int[succs.length];
+        this.lowLink = new int[succs.length];
+        this.stack = new int[scope.cardinality()];
+        Arrays.fill(index, -1);
+    }
+
+    private List<int[]> run() {
+        int[] callStack = new int[stack.length];
+        int[] succPos = new int[stack.length];
+        for (int start = scope.nextSetBit(0); start >= 0;
+             start = scope.nextSetBit(start + 1)) {
+            if (index[start] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = start;
+            succPos[0] = 0;
+            visit(start);
+            while (depth >= 0) {
+                int node = callStack[depth];
+                int[] nodeSuccs = succs[node];
+                if (succPos[depth] < nodeSuccs.length) {
+                    int succ = nodeSuccs[succPos[depth]++];
+                    if (!scope.get(succ)) {
+                        continue;
+                    }
+                    if (index[succ] == -1) {
+                        visit(succ);
+                        ++depth;
+                        callStack[depth] = succ;
+                        succPos[depth] = 0;
+                    } else if (onStack.get(succ)) {
+                        lowLink[node] = Math.min(lowLink[node], index[succ]);
+                    }
+                } else {
+                    if (lowLink[node] == index[node]) {
+                        popComponent(node);
+                    }
+                    --depth;
+                    if (depth >= 0) {
+                        int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+        return sccs;
+    }
+
+    private void visit(int node) {
+        index[node] = lowLink[node] = counter++;
+        stack[sp++] = node;
+        onStack.set(node);
+    }
+
+    private void popComponent(int root) {
+        int size = 0;
+        while (stack[sp - 1 - size] != root) {
+            ++size;
+        }
+        ++size;
+        int[] scc = new int[size];
+        for (int i = 0; i < size; ++i) {
+            int node = stack[--sp];
+            onStack.clear(node);
+            scc[i] = node;
+        }
+        sccs.add(scc);
+    }
+
+    /**
+     * Finds the strongly connected components of the subgraph induced by
+     * the nodes in scope. The search starts from the nodes in order of
+     * their numbers.
+     *
+     * @param succs successors of each node
+     * @return the components in reverse topological order. The last node
+     * of each component is its root, i.e., the first node of it reached
+     * by the search.
+     */
+    static List<int[]> compute(int[][] succs, BitSet scope) {
+        return new StronglyConnectedComponents(succs, scope).run();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.WideningDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.BitSet;
+
+/**
+ * Solver which follows the recursive iteration strategy of Bourdoncle
+ * on a {@link WeakTopologicalOrder} of the CFG. Each loop is stabilized
+ * before the components after it are visited, and inner loops are
+ * stabilized on every iteration of the outer ones. Whether a loop has
+ * reached its fixed point is only checked at the loop head: the body
+ * is iterated again only if the transfer of the head changed its fact.
+ * <p>
+ * The loop heads are also where widening is applied for analyses on
+ * domains of infinite height, i.e., {@link WideningDataflowAnalysis}.
+ * For such analyses, after the fixed point is reached, this solver runs
+ * at most {@link #NARROWING_PASSES} descending passes over the ordering,
+ * which narrow the facts at the loop heads and recompute the others.
+ */
+class WTOSolver<Node, Fact> extends NodeSolver<Node, Fact> {
+
+    /**
+     * Maximum number of descending passes for narrowing.
+     */
+    private static final int NARROWING_PASSES = 2;
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        new Iteration(cfg, result, WeakTopologicalOrder.forward(cfg), true).run();
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        new Iteration(cfg, result, WeakTopologicalOrder.backward(cfg), false).run();
+    }
+
+    /**
+     * Holds the states of solving one CFG.
+     */
+    private class Iteration {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final WeakTopologicalOrder<Node> wto;
+
+        private final boolean forward;
+
+        private final boolean widening;
+
+        /**
+         * The boundary node, whose facts have been fixed by the initialization.
+         */
+        private final Node boundary;
+
+        /**
+         * Nodes which have been transferred at least once.
+         */
+        private final BitSet transferred;
+
+        private Iteration(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          WeakTopologicalOrder<Node> wto, boolean forward) {
+            this.cfg = cfg;
+            this.result = result;
+            this.wto = wto;
+            this.forward = forward;
+            this.widening = analysis instanceof WideningDataflowAnalysis;
+            this.boundary = forward ? cfg.getEntry() : cfg.getExit();
+            this.transferred = new BitSet(wto.size());
+        }
+
+        private void run() {
+            wto.getComponents().forEach(this::stabilize);
+            if (widening) {
+                for (int i = 0; i < NARROWING_PASSES; ++i) {
+                    boolean changed = false;
+                    for (WeakTopologicalOrder.Component component : wto.getComponents()) {
+                        changed |= descend(component);
+                    }
+                    if (!changed) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void stabilize(WeakTopologicalOrder.Component component) {
+            if (!component.isLoop()) {
+                update(component.head, false);
+                return;
+            }
+            // the body is visited at least once, as its nodes may also be
+            // affected by the nodes outside this loop
+            boolean first = true;
+            while (update(component.head, true) || first) {
+                first = false;
+                component.body.forEach(this::stabilize);
+            }
+        }
+
+        /**
+         * Meets (or widens, at loop heads) the facts flowing into given node
+         * and transfers it.
+         *
+         * @return true if the transfer changed the fact of the node.
+         */
+        private boolean update(int i, boolean head) {
+            Node node = wto.getNode(i);
+            if (node.equals(boundary)) {
+                return false;
+            }
+            if (metrics != null) {
+                metrics.visitNode(0);
+            }
+            boolean changed = !transferred.get(i);
+            Fact target = getTargetFact(node);
+            if (head && widening) {
+                changed |= widenInto(join(node), target);
+            } else {
+                changed |= meetFlowsInto(node, target);
+            }
+            if (!changed) {
+                return false;
+            }
+            transferred.set(i);
+            return transferNode(node,
+                    result.getInFact(node), result.getOutFact(node));
+        }
+
+        /**
+         * Visits the nodes of given component once, in a descending pass.
+         *
+         * @return true if the fact of any visited node changed.
+         */
+        private boolean descend(WeakTopologicalOrder.Component component) {
+            boolean changed = narrow(component.head, component.isLoop());
+            if (component.isLoop()) {
+                for (WeakTopologicalOrder.Component c : component.body) {
+                    changed |= descend(c);
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Narrows the fact of given node if it is a loop head, otherwise
+         * recomputes it from the facts flowing into it, and then transfers it.
+         *
+         * @return true if the fact of the node changed.
+         */
+        private boolean narrow(int i, boolean head) {
+            Node node = wto.getNode(i);
+            if (node.equals(boundary) || !transferred.get(i)) {
+                return false;
+            }
+            if (metrics != null) {
+                metrics.visitNode(0);
+            }
+            Fact joined = join(node);
+            Fact target = getTargetFact(node);
+            if (head) {
+                if (!narrowInto(joined, target)) {
+                    return false;
+                }
+            } else {
+                if (joined.equals(target)) {
+                    return false;
+                }
+                if (forward) {
+                    result.setInFact(node, joined);
+                } else {
+                    result.setOutFact(node, joined);
+                }
+            }
+            transferNode(node,
+                    result.getInFact(node), result.getOutFact(node));
+            return true;
+        }
+
+        /**
+         * @return the fact of given node that the facts of its predecessors
+         * (successors) flow into in forward (backward) analysis.
+         */
+        private Fact getTargetFact(Node node) {
+            return forward ? result.getInFact(node) : result.getOutFact(node);
+        }
+
+        /**
+         * @return a new fact which is the meet of the facts flowing into given node.
+         */
+        private Fact join(Node node) {
+            Fact joined = analysis.newInitialFact(cfg);
+            meetFlowsInto(node, joined);
+            return joined;
+        }
+
+        /**
+         * Meets the facts flowing into given node into target fact.
+         *
+         * @return true if the target fact changed.
+         */
+        private boolean meetFlowsInto(Node node, Fact target) {
+            boolean changed = false;
+            if (forward) {
+                for (Edge<Node> edge : cfg.getInEdgesOf(node)) {
+                    changed |= meetInto(transferEdge(edge,
+                            result.getOutFact(edge.getSource())), target);
+                }
+            } else {
+                for (Edge<Node> edge : cfg.getOutEdgesOf(node)) {
+                    changed |= meetInto(transferEdge(edge,
+                            result.getInFact(edge.getTarget())), target);
+                }
+            }
+            return changed;
+        }
+    }
+}
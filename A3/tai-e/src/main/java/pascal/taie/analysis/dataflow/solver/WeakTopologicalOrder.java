@@ -0,0 +1,232 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Weak topological ordering (Bourdoncle, 1993) of the nodes of a CFG.
+ * The ordering is a sequence of components, where each component is
+ * either a single node, or a loop made of a head node followed by
+ * the components of the loop body, which are ordered in the same way.
+ * <p>
+ * The components are computed by recursively decomposing the strongly
+ * connected components of the graph: the head of a loop is the first
+ * node of it reached by depth-first search, and the body is decomposed
+ * again after the edges to the head are removed.
+ *
+ * @param <Node> type of CFG nodes
+ */
+final class WeakTopologicalOrder<Node> {
+
+    /**
+     * A component of the ordering. For a single node, {@link #body} is null.
+     */
+    static final class Component {
+
+        /**
+         * Number of the single node, or the head of the loop.
+         */
+        final int head;
+
+        final List<Component> body;
+
+        private Component(int head, List<Component> body) {
+            this.head = head;
+            this.body = body;
+        }
+
+        boolean isLoop() {
+            return body != null;
+        }
+    }
+
+    /**
+     * Nodes in the order of their numbers, i.e., reverse postorder
+     * in the direction of the ordering.
+     */
+    private final List<Node> nodes;
+
+    private final Map<Node, Integer> numbers;
+
+    /**
+     * Successors of each node in the direction of the ordering.
+     */
+    private final int[][] succs;
+
+    private final List<Component> components;
+
+    private WeakTopologicalOrder(CFG<Node> cfg, boolean forward) {
+        Node root = forward ? cfg.getEntry() : cfg.getExit();
+        nodes = reversePostorder(cfg, root, forward);
+        numbers = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            numbers.put(nodes.get(i), i);
+        }
+        succs = new int[nodes.size()][];
+        for (int i = 0; i < nodes.size(); ++i) {
+            succs[i] = getSuccsOf(cfg, nodes.get(i), forward)
+                    .stream()
+                    .mapToInt(numbers::get)
+                    .toArray();
+        }
+        BitSet scope = new BitSet(nodes.size());
+        scope.set(0, nodes.size());
+        components = decompose(scope);
+    }
+
+    /**
+     * @return the weak topological ordering of given CFG along its edges,
+     * which is the iteration order for forward analyses.
+     */
+    static <Node> WeakTopologicalOrder<Node> forward(CFG<Node> cfg) {
+        return new WeakTopologicalOrder<>(cfg, true);
+    }
+
+    /**
+     * @return the weak topological ordering of given CFG against its edges,
+     * which is the iteration order for backward analyses.
+     */
+    static <Node> WeakTopologicalOrder<Node> backward(CFG<Node> cfg) {
+        return new WeakTopologicalOrder<>(cfg, false);
+    }
+
+    /**
+     * @return the top-level components of this ordering.
+     */
+    List<Component> getComponents() {
+        return components;
+    }
+
+    /**
+     * @return number of nodes in this ordering.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the node whose number is i.
+     */
+    Node getNode(int i) {
+        return nodes.get(i);
+    }
+
+    /**
+     * @return the number of given node.
+     */
+    int getNumber(Node node) {
+        return numbers.get(node);
+    }
+
+    private static <Node> Set<Node> getSuccsOf(CFG<Node> cfg, Node node, boolean forward) {
+        return forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+    }
+
+    /**
+     * Computes reverse postorder of the nodes by iterative depth-first
+     * search from the root, and then from any node not visited yet.
+     */
+    private static <Node> List<Node> reversePostorder(
+            CFG<Node> cfg, Node root, boolean forward) {
+        Set<Node> allNodes = cfg.getNodes();
+        List<Node> postorder = new ArrayList<>(allNodes.size());
+        Set<Node> visited = Collections.newSetFromMap(Maps.newMap(allNodes.size()));
+        List<Node> roots = new ArrayList<>(allNodes.size() + 1);
+        roots.add(root);
+        roots.addAll(allNodes);
+        for (Node start : roots) {
+            if (!visited.add(start)) {
+                continue;
+            }
+            // each stack frame holds a node and the iterator of its successors
+            Deque<Node> nodeStack = new ArrayDeque<>();
+            Deque<Iterator<Node>> succStack = new ArrayDeque<>();
+            nodeStack.push(start);
+            succStack.push(getSuccsOf(cfg, start, forward).iterator());
+            while (!nodeStack.isEmpty()) {
+                Iterator<Node> it = succStack.peek();
+                if (it.hasNext()) {
+                    Node succ = it.next();
+                    if (visited.add(succ)) {
+                        nodeStack.push(succ);
+                        succStack.push(getSuccsOf(cfg, succ, forward).iterator());
+                    }
+                } else {
+                    postorder.add(nodeStack.pop());
+                    succStack.pop();
+                }
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    /**
+     * Decomposes the subgraph induced by the nodes in scope into
+     * components, in topological order of its strongly connected
+     * components. The search for the components starts from the nodes
+     * in order of their numbers, so that the head of a natural loop is
+     * always its header.
+     */
+    private List<Component> decompose(BitSet scope) {
+        List<int[]> sccs = StronglyConnectedComponents.compute(succs, scope);
+        List<Component> result = new ArrayList<>(sccs.size());
+        // Tarjan's algorithm finds the components in reverse topological order
+        for (int i = sccs.size() - 1; i >= 0; --i) {
+            int[] scc = sccs.get(i);
+            // the root of the component is the last one popped from the stack
+            int head = scc[scc.length - 1];
+            if (scc.length == 1 && !hasSelfLoop(head)) {
+                result.add(new Component(head, null));
+            } else {
+                BitSet body = new BitSet(nodes.size());
+                for (int j = 0; j < scc.length - 1; ++j) {
+                    body.set(scc[j]);
+                }
+                result.add(new Component(head, decompose(body)));
+            }
+        }
+        return result;
+    }
+
+    private boolean hasSelfLoop(int node) {
+        for (int succ : succs[node]) {
+            if (succ == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
@@ -31,7 +32,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
-class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+class WorkListSolver<Node, Fact> extends NodeSolver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
@@ -48,12 +49,15 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
         while (!workList.isEmpty()) {
             // Pick a basic block B from Worklist
             Node node = workList.poll();
+            if (metrics != null) {
+                metrics.visitNode(workList.size());
+            }
             // IN[B] = ⊔P a predecessor of B OUT[P];
             for (Node pre: cfg.getPredsOf(node)) {
-                analysis.meetInto(result.getOutFact(pre), result.getInFact(node));
+                meetInto(result.getOutFact(pre), result.getInFact(node));
             }
             // OUT[B] = genB U (IN[B] - killB);
-            boolean outChanged = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+            boolean outChanged = transferNode(node, result.getInFact(node), result.getOutFact(node));
             if (outChanged) {
                 for (Node suc: cfg.getSuccsOf(node)) {
                     workList.offer(suc);
@@ -82,14 +86,19 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
                 if (cfg.isExit(node)) {
                     continue;
                 }
-                // OUT[node]
-                result.setOutFact(node, analysis.newInitialFact());
+                if (metrics != null) {
+                    metrics.visitNode(0);
+                }
+                // OUT[node]，原地更新的分析无需重置 OUT
+                if (!(analysis instanceof InPlaceDataflowAnalysis)) {
+                    result.setOutFact(node, analysis.newInitialFact(cfg));
+                }
                 for (Node suc : cfg.getSuccsOf(node)) {
-                    analysis.meetInto(result.getInFact(suc), result.getOutFact(node));
+                    meetInto(result.getInFact(suc), result.getOutFact(node));
                 }
 
                 // IN[node]
-                anyInHasChange |= analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+                anyInHasChange |= transferNode(node, result.getInFact(node), result.getOutFact(node));
             }
         }
     }
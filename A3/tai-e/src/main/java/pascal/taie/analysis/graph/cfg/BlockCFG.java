@@ -0,0 +1,194 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Basic-block view of a CFG. Each node of this CFG is a {@link BasicBlock}
+ * of the underlying CFG, and each edge of the underlying CFG that goes
+ * from the last node of a block to the first node of another block
+ * (or of the same block) becomes an edge of the same kind between the blocks.
+ * <p>
+ * The entry and exit nodes of the underlying CFG always form blocks of
+ * their own, which are the entry and exit of this CFG, respectively.
+ *
+ * @param <N> type of the nodes of the underlying CFG
+ */
+public class BlockCFG<N> extends AbstractCFG<BasicBlock<N>> {
+
+    private final CFG<N> nodeCFG;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Map<N, BasicBlock<N>> blockOf;
+
+    /**
+     * Map from each edge of this CFG to the edge of the underlying CFG
+     * which it is copied from.
+     */
+    private final Map<Edge<BasicBlock<N>>, Edge<N>> nodeEdges = Maps.newMap();
+
+    private Set<BasicBlock<N>> blockSet;
+
+    private BlockCFG(CFG<N> nodeCFG) {
+        super(nodeCFG.getIR());
+        this.nodeCFG = nodeCFG;
+        this.blockOf = Maps.newMap(nodeCFG.getNumberOfNodes());
+    }
+
+    /**
+     * Builds the basic-block view of given CFG.
+     */
+    public static <N> BlockCFG<N> build(CFG<N> cfg) {
+        BlockCFG<N> blockCFG = new BlockCFG<>(cfg);
+        blockCFG.buildBlocks();
+        blockCFG.buildEdges();
+        return blockCFG;
+    }
+
+    /**
+     * @return the underlying CFG of this view.
+     */
+    public CFG<N> getNodeCFG() {
+        return nodeCFG;
+    }
+
+    /**
+     * @return the block containing given node of the underlying CFG.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the edge of the underlying CFG from the last node of the
+     * source block of given edge to the first node of its target block.
+     */
+    public Edge<N> getNodeEdgeOf(Edge<BasicBlock<N>> edge) {
+        return nodeEdges.get(edge);
+    }
+
+    /**
+     * @return all blocks of this CFG, ordered by their indexes.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        if (blockSet == null) {
+            blockSet = Collections.unmodifiableSet(new LinkedHashSet<>(blocks));
+        }
+        return blockSet;
+    }
+
+    private void buildBlocks() {
+        Set<N> nodes = nodeCFG.getNodes();
+        for (N node : nodes) {
+            if (isLeader(node)) {
+                newBlock(node);
+            }
+        }
+        // nodes on a cycle which can only be entered from itself have
+        // no leader, and they are not covered by the blocks above
+        for (N node : nodes) {
+            if (!blockOf.containsKey(node)) {
+                newBlock(node);
+            }
+        }
+        setEntry(blockOf.get(nodeCFG.getEntry()));
+        setExit(blockOf.get(nodeCFG.getExit()));
+    }
+
+    /**
+     * @return true if given node must start a new block.
+     */
+    private boolean isLeader(N node) {
+        if (nodeCFG.isEntry(node) || nodeCFG.isExit(node)) {
+            return true;
+        }
+        Set<N> preds = nodeCFG.getPredsOf(node);
+        if (preds.size() != 1) {
+            return true;
+        }
+        N pred = preds.iterator().next();
+        return pred.equals(node)
+                || nodeCFG.isEntry(pred)
+                || nodeCFG.getOutDegreeOf(pred) != 1;
+    }
+
+    /**
+     * Creates a new block starting at given leader, which extends along
+     * the single successors of its nodes until it reaches a leader.
+     */
+    private void newBlock(N leader) {
+        List<N> blockNodes = new ArrayList<>();
+        blockNodes.add(leader);
+        N last = leader;
+        while (!nodeCFG.isExit(last) && nodeCFG.getOutDegreeOf(last) == 1) {
+            N succ = nodeCFG.getSuccsOf(last).iterator().next();
+            if (nodeCFG.isExit(succ) || succ.equals(leader)
+                    || blockOf.containsKey(succ) || isLeader(succ)) {
+                break;
+            }
+            blockNodes.add(succ);
+            last = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), blockNodes);
+        blocks.add(block);
+        blockNodes.forEach(node -> blockOf.put(node, block));
+        addNode(block);
+    }
+
+    private void buildEdges() {
+        for (BasicBlock<N> block : blocks) {
+            for (Edge<N> edge : nodeCFG.getOutEdgesOf(block.getLastNode())) {
+                BasicBlock<N> target = blockOf.get(edge.getTarget());
+                Edge<BasicBlock<N>> blockEdge = copyEdge(edge, block, target);
+                nodeEdges.put(blockEdge, edge);
+                addEdge(blockEdge);
+            }
+        }
+    }
+
+    private static <N> Edge<BasicBlock<N>> copyEdge(
+            Edge<N> edge, BasicBlock<N> source, BasicBlock<N> target) {
+        if (edge.isSwitchCase()) {
+            return new SwitchCaseEdge<>(source, target, edge.getCaseValue());
+        } else if (edge.isExceptional()) {
+            return new ExceptionalEdge<>(edge.getKind(), source, target,
+                    edge.getExceptions());
+        } else {
+            return new Edge<>(edge.getKind(), source, target);
+        }
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Arrays;
+
+/**
+ * Dominators, dominance frontiers, post-dominators and the loop-nesting
+ * forest of the CFG of a method.
+ * <p>
+ * All queries take and return the indexes of nodes, i.e.,
+ * {@link Stmt#getIndex()} (the entry and exit of the CFG have indexes
+ * {@code ir.getStmts().size()} and {@code ir.getStmts().size() + 1}),
+ * and -1 stands for "no such node". The queries only read arrays,
+ * thus they take constant time (or time of the loop depth) and
+ * allocate nothing.
+ * <p>
+ * The immediate dominators are computed by the algorithm of Cooper,
+ * Harvey and Kennedy, and the loops are found by collapsing the natural
+ * loops from the innermost to the outermost with union-find. The loops
+ * are natural loops, i.e., a loop is identified by a back edge whose
+ * target (the header) dominates its source, and the loops with the same
+ * header are merged. Cycles that are entered at more than one node
+ * (irreducible loops) have no header, thus they are not in the forest.
+ */
+public class Dominators {
+
+    /**
+     * Key of the result of this analysis in {@link IR}.
+     */
+    public static final String ID = "dominators";
+
+    /**
+     * Nodes by their indexes, null for indexes without node.
+     */
+    private final Stmt[] nodes;
+
+    private final int entry;
+
+    private final int exit;
+
+    private final Tree dominators;
+
+    private final Tree postDominators;
+
+    /**
+     * Dominance frontier of each node, in increasing order of indexes.
+     */
+    private final int[][] frontiers;
+
+    /**
+     * Header of the innermost loop containing each node, -1 if the node
+     * is not in any loop. The header of a loop is mapped to itself.
+     */
+    private final int[] loopHeaders;
+
+    /**
+     * Header of the loop directly enclosing the loop of each header,
+     * -1 if the loop is outermost or the node is not a header.
+     */
+    private final int[] parentLoops;
+
+    private final int[] loopDepths;
+
+    private int numberOfLoops;
+
+    private Dominators(CFG<Stmt> cfg) {
+        int n = 0;
+        for (Stmt node : cfg) {
+            n = Math.max(n, node.getIndex() + 1);
+        }
+        nodes = new Stmt[n];
+        for (Stmt node : cfg) {
+            nodes[node.getIndex()] = node;
+        }
+        entry = cfg.getEntry().getIndex();
+        exit = cfg.getExit().getIndex();
+        int[][] succs = new int[n][];
+        int[][] preds = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            succs[i] = nodes[i] == null ? new int[0] : indexes(cfg.getSuccsOf(nodes[i]));
+            preds[i] = nodes[i] == null ? new int[0] : indexes(cfg.getPredsOf(nodes[i]));
+        }
+        dominators = new Tree(entry, succs, preds);
+        postDominators = new Tree(exit, preds, succs);
+        frontiers = computeFrontiers(preds);
+        loopHeaders = new int[n];
+        parentLoops = new int[n];
+        loopDepths = new int[n];
+        computeLoops(preds);
+    }
+
+    /**
+     * @return the result of this analysis for given IR. The result is
+     * computed on first request, and then stored in the IR.
+     */
+    public static Dominators getResult(IR ir) {
+        return ir.getResult(ID, () -> new Dominators(ir.getResult(CFGBuilder.ID)));
+    }
+
+    /**
+     * @return an upper bound (exclusive) of the node indexes.
+     */
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the node of given index, or null if there is no such node.
+     */
+    public Stmt getNode(int node) {
+        return nodes[node];
+    }
+
+    public int getEntry() {
+        return entry;
+    }
+
+    public int getExit() {
+        return exit;
+    }
+
+    /**
+     * @return true if given node is reachable from the entry.
+     */
+    public boolean isReachable(int node) {
+        return dominators.contains(node);
+    }
+
+    /**
+     * @return the immediate dominator of given node, or -1 if the node
+     * is the entry or unreachable from the entry.
+     */
+    public int getImmediateDominator(int node) {
+        return dominators.parents[node];
+    }
+
+    /**
+     * @return true if node a dominates node b. Every reachable node
+     * dominates itself.
+     */
+    public boolean dominates(int a, int b) {
+        return dominators.isAncestor(a, b);
+    }
+
+    /**
+     * @return the dominance frontier of given node, i.e., the nodes which
+     * have a predecessor dominated by given node but are not strictly
+     * dominated by it, in increasing order of indexes. The array is
+     * shared by all queries, thus it must not be modified.
+     */
+    public int[] getDominanceFrontier(int node) {
+        return frontiers[node];
+    }
+
+    /**
+     * @return the immediate post-dominator of given node, or -1 if the node
+     * is the exit or cannot reach the exit.
+     */
+    public int getImmediatePostDominator(int node) {
+        return postDominators.parents[node];
+    }
+
+    /**
+     * @return true if node a post-dominates node b. Every node which can
+     * reach the exit post-dominates itself.
+     */
+    public boolean postDominates(int a, int b) {
+        return postDominators.isAncestor(a, b);
+    }
+
+    /**
+     * @return number of the loops, i.e., of the loop headers.
+     */
+    public int getNumberOfLoops() {
+        return numberOfLoops;
+    }
+
+    public boolean isLoopHeader(int node) {
+        return loopHeaders[node] == node;
+    }
+
+    /**
+     * @return the header of the innermost loop containing given node,
+     * which is the node itself if it is a loop header, or -1 if the node
+     * is not in any loop.
+     */
+    public int getLoopHeader(int node) {
+        return loopHeaders[node];
+    }
+
+    /**
+     * @return the header of the loop directly enclosing the loop of given
+     * header, or -1 if the loop is outermost.
+     */
+    public int getParentLoop(int header) {
+        return parentLoops[header];
+    }
+
+    /**
+     * @return number of the loops containing given node.
+     */
+    public int getLoopDepth(int node) {
+        return loopDepths[node];
+    }
+
+    /**
+     * @return true if given node is in the loop of given header.
+     */
+    public boolean isInLoop(int node, int header) {
+        for (int h = loopHeaders[node]; h != -1; h = parentLoops[h]) {
+            if (h == header) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] indexes(Iterable<Stmt> stmts) {
+        int size = 0;
+        for (Stmt ignored : stmts) {
+            ++size;
+        }
+        int[] indexes = new int[size];
+        int i = 0;
+        for (Stmt stmt : stmts) {
+            indexes[i++] = stmt.getIndex();
+        }
+        return indexes;
+    }
+
+    /**
+     * Computes the dominance frontiers by the algorithm of Cooper, Harvey
+     * and Kennedy: a join node is in the frontier of each node on the
+     * dominator-tree path from each of its predecessors up to, but
+     * excluding, its immediate dominator.
+     */
+    private int[][] computeFrontiers(int[][] preds) {
+        int n = nodes.length;
+        int[][] frontiers = new int[n][];
+        int[] sizes = new int[n];
+        // the last join node added to the frontier of each node
+        int[] marks = new int[n];
+        Arrays.fill(marks, -1);
+        for (int join = 0; join < n; ++join) {
+            if (preds[join].length < 2 || !dominators.contains(join)) {
+                continue;
+            }
+            int idom = dominators.parents[join];
+            for (int pred : preds[join]) {
+                if (!dominators.contains(pred)) {
+                    continue;
+                }
+                for (int runner = pred; runner != idom && runner != -1;
+                     runner = dominators.parents[runner]) {
+                    if (marks[runner] == join) {
+                        // the rest of the path is walked from another pred
+                        break;
+                    }
+                    marks[runner] = join;
+                    int[] frontier = frontiers[runner];
+                    if (frontier == null) {
+                        frontier = frontiers[runner] = new int[2];
+                    } else if (sizes[runner] == frontier.length) {
+                        frontier = frontiers[runner] =
+                                Arrays.copyOf(frontier, frontier.length * 2);
+                    }
+                    frontier[sizes[runner]++] = join;
+                }
+            }
+        }
+        int[] empty = new int[0];
+        for (int i = 0; i < n; ++i) {
+            frontiers[i] = sizes[i] == 0 ? empty
+                    : Arrays.copyOf(frontiers[i], sizes[i]);
+        }
+        return frontiers;
+    }
+
+    /**
+     * Computes the loop-nesting forest. The headers are processed in
+     * decreasing reverse postorder, thus inner loops are processed before
+     * the loops enclosing them. The body of a loop is found by walking
+     * backward from the sources of its back edges, where each loop found
+     * earlier is represented by its header, i.e., the root of the
+     * union-find tree containing its nodes.
+     */
+    private void computeLoops(int[][] preds) {
+        int n = nodes.length;
+        Arrays.fill(loopHeaders, -1);
+        Arrays.fill(parentLoops, -1);
+        int[] roots = new int[n];
+        for (int i = 0; i < n; ++i) {
+            roots[i] = i;
+        }
+        int edges = 0;
+        for (int[] p : preds) {
+            edges += p.length;
+        }
+        int[] stack = new int[edges + 1];
+        int[] order = dominators.order;
+        for (int i = dominators.size - 1; i >= 0; --i) {
+            int header = order[i];
+            int top = 0;
+            for (int pred : preds[header]) {
+                if (dominates(header, pred)) {
+                    loopHeaders[header] = header;
+                    if (pred != header) {
+                        stack[top++] = pred;
+                    }
+                }
+            }
+            if (loopHeaders[header] != header) {
+                continue;
+            }
+            ++numberOfLoops;
+            while (top > 0) {
+                int root = find(roots, stack[--top]);
+                if (root == header) {
+                    continue;
+                }
+                if (loopHeaders[root] == root) {
+                    // root is the header of an inner loop
+                    parentLoops[root] = header;
+                } else {
+                    loopHeaders[root] = header;
+                }
+                roots[root] = header;
+                for (int pred : preds[root]) {
+                    if (dominators.contains(pred)) {
+                        stack[top++] = pred;
+                    }
+                }
+            }
+        }
+        // the enclosing loops precede the nodes in reverse postorder
+        for (int i = 0; i < dominators.size; ++i) {
+            int node = order[i];
+            int header = loopHeaders[node];
+            if (header == node) {
+                int parent = parentLoops[node];
+                loopDepths[node] = parent == -1 ? 1 : loopDepths[parent] + 1;
+            } else if (header != -1) {
+                loopDepths[node] = loopDepths[header];
+            }
+        }
+    }
+
+    private static int find(int[] roots, int node) {
+        int root = node;
+        while (roots[root] != root) {
+            root = roots[root];
+        }
+        // path compression
+        while (roots[node] != root) {
+            int next = roots[node];
+            roots[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * A dominator tree, which is the post-dominator tree
+     * when built on the reverse graph.
+     */
+    private static final class Tree {
+
+        /**
+         * Reachable nodes in reverse postorder.
+         */
+        private final int[] order;
+
+        private final int size;
+
+        /**
+         * Immediate dominator of each node, -1 for the root
+         * and the unreachable nodes.
+         */
+        private final int[] parents;
+
+        /**
+         * Preorder and postorder numbers of the nodes in the tree,
+         * -1 for the unreachable nodes.
+         */
+        private final int[] pre;
+
+        private final int[] post;
+
+        private Tree(int root, int[][] succs, int[][] preds) {
+            int n = succs.length;
+            order = new int[n];
+            int[] numbers = new int[n];
+            size = computeReversePostorder(root, succs, numbers);
+            int[] idoms = computeDominators(preds, numbers);
+            parents = new int[n];
+            Arrays.fill(parents, -1);
+            for (int i = 1; i < size; ++i) {
+                parents[order[i]] = order[idoms[i]];
+            }
+            pre = new int[n];
+            post = new int[n];
+            numberTree(root);
+        }
+
+        private boolean contains(int node) {
+            return pre[node] != -1;
+        }
+
+        private boolean isAncestor(int a, int b) {
+            return pre[a] != -1 && pre[b] != -1
+                    && pre[a] <= pre[b] && post[b] <= post[a];
+        }
+
+        /**
+         * Fills {@link #order} and the reverse postorder numbers of the
+         * nodes, -1 for the unreachable ones.
+         *
+         * @return number of the reachable nodes.
+         */
+        private int computeReversePostorder(int root, int[][] succs, int[] numbers) {
+            int n = succs.length;
+            Arrays.fill(numbers, -1);
+            // each stack frame holds a node and the position of the next
+            // successor to visit; numbers marks visited nodes by -2
+            int[] nodeStack = new int[n];
+            int[] posStack = new int[n];
+            int top = 0;
+            int count = 0;
+            numbers[root] = -2;
+            nodeStack[0] = root;
+            posStack[0] = 0;
+            ++top;
+            int[] postorder = new int[n];
+            while (top > 0) {
+                int node = nodeStack[top - 1];
+                int pos = posStack[top - 1];
+                if (pos < succs[node].length) {
+                    posStack[top - 1] = pos + 1;
+                    int succ = succs[node][pos];
+                    if (numbers[succ] == -1) {
+                        numbers[succ] = -2;
+                        nodeStack[top] = succ;
+                        posStack[top] = 0;
+                        ++top;
+                    }
+                } else {
+                    postorder[count++] = node;
+                    --top;
+                }
+            }
+            for (int i = 0; i < count; ++i) {
+                int node = postorder[count - 1 - i];
+                order[i] = node;
+                numbers[node] = i;
+            }
+            return count;
+        }
+
+        /**
+         * Computes immediate dominators by the algorithm of
+         * Cooper, Harvey and Kennedy on reverse postorder numbers.
+         *
+         * @return the immediate dominators by reverse postorder numbers.
+         */
+        private int[] computeDominators(int[][] preds, int[] numbers) {
+            int[] idoms = new int[size];
+            Arrays.fill(idoms, -1);
+            idoms[0] = 0;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int b = 1; b < size; ++b) {
+                    int newIdom = -1;
+                    for (int pred : preds[order[b]]) {
+                        int p = numbers[pred];
+                        if (p != -1 && idoms[p] != -1) {
+                            newIdom = newIdom == -1 ? p : intersect(idoms, p, newIdom);
+                        }
+                    }
+                    if (idoms[b] != newIdom) {
+                        idoms[b] = newIdom;
+                        changed = true;
+                    }
+                }
+            }
+            return idoms;
+        }
+
+        private static int intersect(int[] idoms, int a, int b) {
+            while (a != b) {
+                while (a > b) {
+                    a = idoms[a];
+                }
+                while (b > a) {
+                    b = idoms[b];
+                }
+            }
+            return a;
+        }
+
+        /**
+         * Numbers the nodes in preorder and postorder of the tree
+         * by an iterative depth-first walk.
+         */
+        private void numberTree(int root) {
+            int n = parents.length;
+            int[] firstChild = new int[n];
+            int[] nextSibling = new int[n];
+            Arrays.fill(firstChild, -1);
+            for (int i = size - 1; i > 0; --i) {
+                int node = order[i];
+                nextSibling[node] = firstChild[parents[node]];
+                firstChild[parents[node]] = node;
+            }
+            Arrays.fill(pre, -1);
+            Arrays.fill(post, -1);
+            // firstChild serves as the cursor of the next child to visit
+            int[] stack = new int[size];
+            int top = 0;
+            int counter = 0;
+            pre[root] = counter++;
+            stack[top++] = root;
+            while (top > 0) {
+                int node = stack[top - 1];
+                int child = firstChild[node];
+                if (child != -1) {
+                    firstChild[node] = nextSibling[child];
+                    pre[child] = counter++;
+                    stack[top++] = child;
+                } else {
+                    post[node] = counter++;
+                    --top;
+                }
+            }
+        }
+    }
+}
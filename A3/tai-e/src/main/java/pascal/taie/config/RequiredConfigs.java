@@ -0,0 +1,49 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.config;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the requirements of analyses outside this package,
+ * where {@link ConfigManager} does not expose them.
+ */
+public final class RequiredConfigs {
+
+    private RequiredConfigs() {
+    }
+
+    /**
+     * @param config the config whose requirements are resolved
+     * @param plan   the analysis plan, which contains given config and
+     *               all configs it requires
+     * @return the configs in given plan which given config requires,
+     * directly or transitively, under the conditions on the options
+     * of the requiring configs.
+     */
+    public static Set<AnalysisConfig> getAllRequiredConfigs(
+            AnalysisConfig config, List<AnalysisConfig> plan) {
+        return new ConfigManager(plan).getAllRequiredConfigs(config);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Base implementation of {@link ResultHolder}. The results are kept in
+ * a concurrent map, so that a holder can be accessed by multiple threads,
+ * e.g., when analyses are executed in parallel.
+ */
+public abstract class AbstractResultHolder implements ResultHolder {
+
+    private final Map<String, Object> results = Maps.newConcurrentMap();
+
+    @Override
+    public <R> void storeResult(String key, R value) {
+        if (value != null) {
+            results.put(key, value);
+        } else {
+            results.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R getResult(String key) {
+        return (R) results.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R getResult(String key, R defaultResult) {
+        return (R) results.getOrDefault(key, defaultResult);
+    }
+
+    /**
+     * If there is no result for given key, computes the result by given
+     * supplier and stores it. The supplier is not called while holding
+     * any lock, so that it can access the results of this holder. If multiple
+     * threads compute the result of the same key simultaneously, all of them
+     * obtain the result stored first.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R getResult(String key, Supplier<R> supplier) {
+        R result = (R) results.get(key);
+        if (result == null) {
+            result = supplier.get();
+            if (result != null) {
+                R prev = (R) results.putIfAbsent(key, result);
+                if (prev != null) {
+                    result = prev;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+        return results.keySet();
+    }
+
+    @Override
+    public void clearResult(String key) {
+        results.remove(key);
+    }
+
+    @Override
+    public void clearAll() {
+        results.clear();
+    }
+}
@@ -0,0 +1,604 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Map implemented as a persistent hash array mapped trie (HAMT).
+ * <p>
+ * The nodes of the trie are immutable, and each update copies the path
+ * from the root to the updated entry, so that copying a map via
+ * {@link #copy()} (or {@link #PersistentMap(Map)}, {@link #putAll(Map)}
+ * on an empty map) takes constant time and the copies share their structure.
+ * As the shape of the trie only depends on the keys it contains, two maps
+ * can be compared by comparing their tries, which skips the shared subtries.
+ * <p>
+ * This map does not permit null keys or values. Its iteration order
+ * is unspecified, and its iterators iterate over the snapshot of the map
+ * when they are created. The entries returned by iterators are immutable.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Number of hash bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Maximum depth of the trie, i.e., the levels of bitmap nodes
+     * that cover all 32 hash bits, plus one level of collision nodes.
+     */
+    private static final int MAX_DEPTH = (32 + BITS - 1) / BITS + 1;
+
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private Node root;
+
+    private int size;
+
+    /**
+     * The value replaced or removed by the last update, or null if none.
+     */
+    private Object oldValue;
+
+    /**
+     * Whether the last update added a new entry.
+     */
+    private boolean added;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    public PersistentMap() {
+        root = EMPTY;
+    }
+
+    /**
+     * Constructs a new map with the same mappings as given map.
+     * If given map is a {@link PersistentMap}, this takes constant time.
+     */
+    public PersistentMap(Map<? extends K, ? extends V> m) {
+        this();
+        putAll(m);
+    }
+
+    /**
+     * @return a copy of this map, which shares the structure of this map.
+     */
+    public PersistentMap<K, V> copy() {
+        return new PersistentMap<>(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        return key == null ? null : (V) root.find(0, hash(key), key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If given key is already mapped to a value equal to given value,
+     * this map keeps the existing value and is not changed.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        oldValue = null;
+        added = false;
+        root = root.assoc(0, hash(key), key, value, this);
+        if (added) {
+            ++size;
+        }
+        V old = (V) oldValue;
+        oldValue = null;
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (isEmpty() && m instanceof PersistentMap<?, ?> other) {
+            // share the trie of other map
+            root = other.root;
+            size = other.size;
+        } else {
+            super.putAll(m);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        oldValue = null;
+        Node node = root.without(0, hash(key), key, this);
+        root = node != null ? node : EMPTY;
+        V old = (V) oldValue;
+        if (old != null) {
+            --size;
+            oldValue = null;
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        root = EMPTY;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentMap<?, ?> other) {
+            return size == other.size && root.equalTo(other.root);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Creates a node at given shift which contains two entries.
+     */
+    private static Node newNode(int shift, Object k1, Object v1,
+                                int h2, Object k2, Object v2) {
+        int h1 = hash(k1);
+        if (h1 == h2) {
+            return new CollisionNode(h1, new Object[]{ k1, v1, k2, v2 });
+        }
+        int b1 = bit(h1, shift);
+        int b2 = bit(h2, shift);
+        if (b1 == b2) {
+            return new BitmapNode(b1, new Object[]{
+                    null, newNode(shift + BITS, k1, v1, h2, k2, v2) });
+        } else if (Integer.compareUnsigned(b1, b2) < 0) {
+            return new BitmapNode(b1 | b2, new Object[]{ k1, v1, k2, v2 });
+        } else {
+            return new BitmapNode(b1 | b2, new Object[]{ k2, v2, k1, v1 });
+        }
+    }
+
+    /**
+     * Node of the trie. The content of a node is stored in an array of
+     * key-value pairs. For bitmap nodes, a pair with null key represents
+     * a sub-node, which is stored in the value slot.
+     */
+    private abstract static class Node {
+
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        /**
+         * @return the value of given key, or null if the key is absent.
+         */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * @return the node after associating given key with given value.
+         * If the node is unchanged, returns this node itself.
+         */
+        abstract Node assoc(int shift, int hash, Object key, Object value,
+                            PersistentMap<?, ?> map);
+
+        /**
+         * @return the node after removing given key, or null if the resulting
+         * node is empty. If the node is unchanged, returns this node itself.
+         */
+        abstract Node without(int shift, int hash, Object key,
+                              PersistentMap<?, ?> map);
+
+        abstract boolean equalTo(Node other);
+
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] != null) {
+                    action.accept(array[i], array[i + 1]);
+                } else {
+                    ((Node) array[i + 1]).forEach(action);
+                }
+            }
+        }
+
+        /**
+         * @return true if this node contains only one entry, and no sub-node.
+         */
+        boolean isSingleEntry() {
+            return array.length == 2 && array[0] != null;
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+
+        private final int bitmap;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = index(bit);
+            Object k = array[i];
+            if (k == null) {
+                return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value,
+                   PersistentMap<?, ?> map) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                map.added = true;
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node newChild = child.assoc(shift + BITS, hash, key, value, map);
+                return newChild == child ? this : set(i, null, newChild);
+            }
+            if (key.equals(k)) {
+                map.oldValue = v;
+                return value.equals(v) ? this : set(i, k, value);
+            }
+            map.added = true;
+            return set(i, null, newNode(shift + BITS, k, v, hash, key, value));
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key, PersistentMap<?, ?> map) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Object k = array[i];
+            if (k == null) {
+                Node child = (Node) array[i + 1];
+                Node newChild = child.without(shift + BITS, hash, key, map);
+                if (newChild == child) {
+                    return this;
+                } else if (newChild == null) {
+                    return remove(bit, i);
+                } else if (newChild.isSingleEntry()) {
+                    // inline the only entry of the child
+                    return set(i, newChild.array[0], newChild.array[1]);
+                } else if (newChild instanceof BitmapNode b
+                        && b.array.length == 2
+                        && b.array[1] instanceof CollisionNode c) {
+                    // collision node directly replaces the child which
+                    // contains nothing but it
+                    return set(i, null, c);
+                } else {
+                    return set(i, null, newChild);
+                }
+            }
+            if (key.equals(k)) {
+                map.oldValue = array[i + 1];
+                return remove(bit, i);
+            }
+            return this;
+        }
+
+        private BitmapNode set(int i, Object key, Object value) {
+            Object[] newArray = array.clone();
+            newArray[i] = key;
+            newArray[i + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private BitmapNode remove(int bit, int i) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        @Override
+        boolean equalTo(Node other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof BitmapNode that) || bitmap != that.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                Object k1 = array[i];
+                Object k2 = that.array[i];
+                if (k1 == null && k2 == null) {
+                    if (!((Node) array[i + 1]).equalTo((Node) that.array[i + 1])) {
+                        return false;
+                    }
+                } else if (k1 == null || k2 == null || !k1.equals(k2)
+                        || !array[i + 1].equals(that.array[i + 1])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Node holding the entries whose keys have the same hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        private CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i >= 0 ? array[i + 1] : null;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value,
+                   PersistentMap<?, ?> map) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node to distinguish the hashes
+                return new BitmapNode(bit(this.hash, shift), new Object[]{ null, this })
+                        .assoc(shift, hash, key, value, map);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                Object v = array[i + 1];
+                map.oldValue = v;
+                if (value.equals(v)) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            map.added = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key, PersistentMap<?, ?> map) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            map.oldValue = array[i + 1];
+            if (array.length == 4) {
+                // the remaining entry will be inlined by the parent
+                int j = 2 - i;
+                return new BitmapNode(bit(hash, shift),
+                        new Object[]{ array[j], array[j + 1] });
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        boolean equalTo(Node other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CollisionNode that) || hash != that.hash
+                    || array.length != that.array.length) {
+                return false;
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                Object v = that.find(0, hash, array[i]);
+                if (v == null || !v.equals(array[i + 1])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Iterates over the trie in depth-first order.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+
+        private final int[] positions = new int[MAX_DEPTH];
+
+        private int depth;
+
+        private Object nextKey;
+
+        private Object nextValue;
+
+        private Object lastKey;
+
+        private EntryIterator() {
+            arrays[0] = root.array;
+            advance();
+        }
+
+        private void advance() {
+            nextKey = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int pos = positions[depth];
+                if (pos >= array.length) {
+                    --depth;
+                    continue;
+                }
+                positions[depth] = pos + 2;
+                if (array[pos] != null) {
+                    nextKey = array[pos];
+                    nextValue = array[pos + 1];
+                    return;
+                }
+                ++depth;
+                arrays[depth] = ((Node) array[pos + 1]).array;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Entry<K, V> next() {
+            if (nextKey == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = new SimpleImmutableEntry<>(
+                    (K) nextKey, (V) nextValue);
+            lastKey = nextKey;
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            PersistentMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+}
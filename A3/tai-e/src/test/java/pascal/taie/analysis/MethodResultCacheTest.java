@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MethodResultCacheTest {
+
+    private static AnalysisOptions optionsOf(Object... keyValues) {
+        Map<String, Object> options = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            options.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return new AnalysisOptions(options);
+    }
+
+    @Test
+    public void testIgnoredOptions() {
+        Assert.assertEquals(
+                MethodResultCache.keyOf(optionsOf("edge-refine", false)),
+                MethodResultCache.keyOf(optionsOf("threads", 4,
+                        "edge-refine", false, "cache-dir", "out/cache",
+                        "metrics", "out/metrics.jsonl")));
+    }
+
+    @Test
+    public void testOrderOfOptions() {
+        Assert.assertEquals(
+                MethodResultCache.keyOf(optionsOf("solver", "wto", "prune-dead", true)),
+                MethodResultCache.keyOf(optionsOf("prune-dead", true, "solver", "wto")));
+    }
+
+    /**
+     * Values which look like the separators of the string form
+     * of the options still give different keys.
+     */
+    @Test
+    public void testValuesWithSeparators() {
+        Assert.assertNotEquals(
+                MethodResultCache.keyOf(optionsOf("a", "1, b=2")),
+                MethodResultCache.keyOf(optionsOf("a", "1", "b", "2")));
+        Assert.assertNotEquals(
+                MethodResultCache.keyOf(optionsOf("metrics", "m, a=1")),
+                MethodResultCache.keyOf(optionsOf("a", "1")));
+    }
+}
@@ -22,8 +22,23 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodResultCache;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class DeadCodeTest {
 
@@ -58,4 +73,247 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    /**
+     * Runs the analyses with several threads, including the solvers whose
+     * results are shared and lazily filled, and expects the same output
+     * as the sequential runs.
+     */
+    @Test
+    public void testMultiThreaded() {
+        for (String inputClass : new String[]{
+                "ControlFlowUnreachable", "UnreachableIfBranch",
+                "UnreachableSwitchBranch", "DeadAssignment", "Loops"}) {
+            for (String solver : new String[]{
+                    "priority", "sparse", "parallel;parallel-threshold:0"}) {
+                Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                        DeadCodeDetection.ID, "threads:4",
+                        "-a", "livevar=strongly:false;threads:4;solver:" + solver,
+                        "-a", "constprop=edge-refine:false;threads:4;solver:" + solver);
+            }
+        }
+    }
+
+    @Test
+    public void testLoopsWorkListSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:worklist",
+                "-a", "constprop=edge-refine:false;solver:worklist");
+    }
+
+    @Test
+    public void testLoopsBlockSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:block",
+                "-a", "constprop=edge-refine:false;solver:block");
+    }
+
+    @Test
+    public void testLoopsSparseSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:sparse",
+                "-a", "constprop=edge-refine:false;solver:sparse");
+    }
+
+    @Test
+    public void testLoopsWTOSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:wto",
+                "-a", "constprop=edge-refine:false;solver:wto");
+    }
+
+    /**
+     * Threshold 0 makes the parallel solver solve the regions of even
+     * the small CFGs of the test, instead of falling back to the
+     * sequential solver.
+     */
+    @Test
+    public void testLoopsParallelSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:parallel;parallel-threshold:0",
+                "-a", "constprop=edge-refine:false;solver:parallel;parallel-threshold:0");
+    }
+
+    @Test
+    public void testLoopsPruneDead() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;prune-dead:true");
+    }
+
+    @Test
+    public void testUnreachableBranchDemandDriven() {
+        for (String inputClass : new String[]{
+                "UnreachableIfBranch", "UnreachableSwitchBranch"}) {
+            Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID, "demand-driven:true",
+                    "-a", "livevar=strongly:false",
+                    "-a", "constprop=edge-refine:false");
+        }
+    }
+
+    /**
+     * With demand-driven conditions, deadcode does not require constprop,
+     * so the plan runs without it.
+     */
+    @Test
+    public void testUnreachableBranchWithoutConstprop() {
+        for (String inputClass : new String[]{
+                "UnreachableIfBranch", "UnreachableSwitchBranch", "Loops"}) {
+            Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID, "demand-driven:true",
+                    "-a", "livevar=strongly:false");
+        }
+    }
+
+    @Test
+    public void testSCCP() {
+        for (String inputClass : new String[]{
+                "ControlFlowUnreachable", "UnreachableIfBranch",
+                "UnreachableSwitchBranch", "DeadAssignment", "Loops"}) {
+            testSCCP(inputClass);
+        }
+    }
+
+    /**
+     * The second branch is only dead when the constant is taken from the
+     * feasible path, which dense constant propagation does not do.
+     */
+    @Test
+    public void testConditionalConstantSCCP() {
+        testSCCP("ConditionalConstant");
+    }
+
+    private static void testSCCP(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "sccp:true",
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false");
+    }
+
+    @Test
+    public void testLoopsOffHeap() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;fact-store:off-heap",
+                "-a", "constprop=edge-refine:false;fact-store:off-heap");
+    }
+
+    @Test
+    public void testLoopsIntervals() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "intervals:true",
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false");
+    }
+
+    /**
+     * The branch is only dead when the range of the loop counter is
+     * known, as constant propagation gives NAC to the counter.
+     */
+    @Test
+    public void testLoopRangeIntervals() {
+        Tests.test("LoopRange", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "intervals:true",
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false");
+    }
+
+    /**
+     * Live variable analysis reports the metrics of the gen/kill solver
+     * by default, and the ones of the given solver otherwise.
+     */
+    @Test
+    public void testLoopsMetrics() throws IOException {
+        for (String solver : new String[]{ "", ";solver:worklist" }) {
+            Path metrics = Files.createTempFile("metrics", ".jsonl");
+            Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID,
+                    "-a", "livevar=strongly:false" + solver + ";metrics:" + metrics,
+                    "-a", "constprop=edge-refine:false;metrics:" + metrics);
+            List<String> lines = Files.readAllLines(metrics);
+            Files.delete(metrics);
+            String livevarSolver = solver.isEmpty() ? "genkill" : "worklist";
+            Assert.assertTrue(lines.stream().anyMatch(l ->
+                    l.startsWith("{\"analysis\":\"livevar\",")
+                            && l.contains("\"solver\":\"" + livevarSolver + "\"")));
+            Assert.assertTrue(lines.stream().anyMatch(l -> l.contains("\"analysis\":\"constprop\"")));
+        }
+    }
+
+    /**
+     * Runs the analyses with caches twice, and expects the second run to
+     * take all results from the caches and give the same output. A change
+     * of the options of constprop, which deadcode requires, misses the
+     * cache of deadcode.
+     */
+    @Test
+    public void testLoopsCached() throws IOException {
+        Path cacheDir = Files.createTempDirectory("cache");
+        String constprop = "constprop=edge-refine:false;cache-dir:" + cacheDir;
+        List<String> outputs = new ArrayList<>();
+        for (int i = 0; i < 2; ++i) {
+            testCached(cacheDir, constprop);
+            String stats = getCacheStats(DeadCodeDetection.ID);
+            if (i == 0) {
+                Assert.assertTrue(stats, stats.contains(": 0/"));
+            } else {
+                Assert.assertTrue(stats, stats.matches(".*: (\\d+)/\\1 hits \\(100\\.0%\\)"));
+                String cpStats = getCacheStats(ConstantPropagation.ID);
+                Assert.assertTrue(cpStats, cpStats.endsWith("(100.0%)"));
+            }
+            outputs.add(getDeadCode());
+        }
+        Assert.assertEquals(outputs.get(0), outputs.get(1));
+        testCached(cacheDir, constprop + ";prune-dead:true");
+        String stats = getCacheStats(DeadCodeDetection.ID);
+        Assert.assertTrue(stats, stats.contains(": 0/"));
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> cached = files.toList();
+            Assert.assertFalse(cached.isEmpty());
+            for (Path file : cached) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(cacheDir);
+    }
+
+    private static void testCached(Path cacheDir, String constprop) {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "cache-dir:" + cacheDir,
+                "-a", "livevar=strongly:false;cache-dir:" + cacheDir,
+                "-a", constprop);
+    }
+
+    private static String getCacheStats(String id) {
+        MethodResultCache cache = World.get().getResult(
+                MethodResultCache.getResultKey(id));
+        return cache.getStats();
+    }
+
+    /**
+     * @return the dead code found by the last run, by method.
+     */
+    private static String getDeadCode() {
+        StringBuilder builder = new StringBuilder();
+        World.get().getClassHierarchy().applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .sorted(Comparator.comparing(JMethod::getSignature))
+                .forEach(m -> {
+                    Set<Stmt> deadCode = m.getIR().getResult(DeadCodeDetection.ID);
+                    builder.append(m.getSignature()).append('\n');
+                    deadCode.stream()
+                            .sorted(Comparator.comparing(Stmt::getIndex))
+                            .forEach(stmt -> builder.append(stmt.getIndex())
+                                    .append(": ").append(stmt).append('\n'));
+                });
+        return builder.toString();
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CPFactTest {
+
+    private static final List<Var> VARS = makeVars(64);
+
+    private static List<Var> makeVars(int n) {
+        List<Var> vars = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        return vars;
+    }
+
+    private static Var v(int i) {
+        return VARS.get(i);
+    }
+
+    @Test
+    public void testPackedValues() {
+        for (int c : new int[]{0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            long packed = PackedValue.makeConstant(c);
+            Assert.assertTrue(PackedValue.isConstant(packed));
+            Assert.assertEquals(c, PackedValue.getConstant(packed));
+            Assert.assertEquals(Value.makeConstant(c), PackedValue.toValue(packed));
+            Assert.assertEquals(packed, PackedValue.pack(Value.makeConstant(c)));
+        }
+        Assert.assertTrue(PackedValue.isUndef(PackedValue.pack(Value.getUndef())));
+        Assert.assertTrue(PackedValue.isNAC(PackedValue.pack(Value.getNAC())));
+        Assert.assertFalse(PackedValue.isConstant(PackedValue.NAC));
+        Assert.assertFalse(PackedValue.isConstant(PackedValue.UNDEF));
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        CPFact fact = new CPFact();
+        Assert.assertEquals(Value.getUndef(), fact.get(v(1)));
+        Assert.assertTrue(fact.update(v(1), Value.makeConstant(0)));
+        Assert.assertFalse(fact.update(v(1), Value.makeConstant(0)));
+        Assert.assertTrue(fact.update(v(1), Value.getNAC()));
+        Assert.assertEquals(Value.getNAC(), fact.get(v(1)));
+        // setting UNDEF removes the variable
+        Assert.assertTrue(fact.update(v(1), Value.getUndef()));
+        Assert.assertEquals(0, fact.keySet().size());
+        Assert.assertNull(fact.remove(v(1)));
+    }
+
+    @Test
+    public void testCollidingSlots() {
+        // indexes 1, 9, 17 share the home slot of the initial table,
+        // and deleting the first must keep the others reachable
+        CPFact fact = new CPFact();
+        fact.update(v(1), Value.makeConstant(1));
+        fact.update(v(9), Value.makeConstant(9));
+        fact.update(v(17), Value.makeConstant(17));
+        fact.update(v(2), Value.makeConstant(2));
+        fact.remove(v(1));
+        Assert.assertEquals(Value.makeConstant(9), fact.get(v(9)));
+        Assert.assertEquals(Value.makeConstant(17), fact.get(v(17)));
+        Assert.assertEquals(Value.makeConstant(2), fact.get(v(2)));
+        Assert.assertEquals(Value.getUndef(), fact.get(v(1)));
+        Assert.assertEquals(3, fact.keySet().size());
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        CPFact a = new CPFact();
+        a.update(v(1), Value.makeConstant(1));
+        a.update(v(2), Value.makeConstant(2));
+        CPFact b = a.copy();
+        CPFact c = b.copy();
+        Assert.assertEquals(a, b);
+        // updating a copy must not change the facts sharing its storage
+        b.update(v(1), Value.getNAC());
+        b.update(v(3), Value.makeConstant(3));
+        Assert.assertEquals(Value.makeConstant(1), a.get(v(1)));
+        Assert.assertEquals(Value.getUndef(), a.get(v(3)));
+        Assert.assertEquals(Value.makeConstant(1), c.get(v(1)));
+        a.remove(v(2));
+        Assert.assertEquals(Value.makeConstant(2), c.get(v(2)));
+        Assert.assertEquals(Value.makeConstant(2), b.get(v(2)));
+        c.update(v(2), Value.makeConstant(20));
+        Assert.assertEquals(Value.makeConstant(2), b.get(v(2)));
+        Assert.assertEquals(Value.getUndef(), a.get(v(2)));
+    }
+
+    @Test
+    public void testCopyFromSharesThenSeparates() {
+        CPFact source = new CPFact();
+        source.update(v(4), Value.makeConstant(4));
+        CPFact target = new CPFact();
+        // an empty target shares the storage of the source
+        Assert.assertTrue(target.copyFrom(source));
+        Assert.assertFalse(target.copyFrom(source));
+        target.update(v(4), Value.getNAC());
+        Assert.assertEquals(Value.makeConstant(4), source.get(v(4)));
+        source.update(v(5), Value.makeConstant(5));
+        Assert.assertEquals(Value.getUndef(), target.get(v(5)));
+    }
+
+    @Test
+    public void testCopyFromExcept() {
+        CPFact source = new CPFact();
+        source.update(v(1), Value.makeConstant(1));
+        source.update(v(2), Value.makeConstant(2));
+        CPFact target = new CPFact();
+        Assert.assertTrue(target.copyFromExcept(source, v(1)));
+        Assert.assertEquals(Value.getUndef(), target.get(v(1)));
+        Assert.assertEquals(Value.makeConstant(2), target.get(v(2)));
+        target.update(v(2), Value.getNAC());
+        Assert.assertEquals(Value.makeConstant(2), source.get(v(2)));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        CPFact a = new CPFact();
+        CPFact b = new CPFact();
+        // insertion order differs, and b grows through several rehashes
+        for (int i = 0; i < 20; ++i) {
+            a.update(v(i), Value.makeConstant(i));
+        }
+        for (int i = 40; i >= 0; --i) {
+            b.update(v(i), Value.makeConstant(i));
+        }
+        for (int i = 20; i <= 40; ++i) {
+            b.remove(v(i));
+        }
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    /**
+     * Applies random updates to a family of copies, and checks each fact
+     * against a plain map, so that any aliasing between copies shows up.
+     */
+    @Test
+    public void testRandomAgainstMaps() {
+        Random random = new Random(0);
+        List<CPFact> facts = new ArrayList<>();
+        List<Map<Var, Value>> maps = new ArrayList<>();
+        facts.add(new CPFact());
+        maps.add(new HashMap<>());
+        for (int step = 0; step < 5000; ++step) {
+            int i = random.nextInt(facts.size());
+            CPFact fact = facts.get(i);
+            Map<Var, Value> map = maps.get(i);
+            int op = random.nextInt(10);
+            Var var = v(random.nextInt(VARS.size()));
+            if (op == 0 && facts.size() < 16) {
+                facts.add(fact.copy());
+                maps.add(new HashMap<>(map));
+            } else if (op <= 2) {
+                fact.remove(var);
+                map.remove(var);
+            } else {
+                Value value = random.nextInt(4) == 0 ? Value.getNAC()
+                        : Value.makeConstant(random.nextInt(3));
+                fact.update(var, value);
+                map.put(var, value);
+            }
+            for (int j = 0; j < facts.size(); ++j) {
+                for (Var u : VARS) {
+                    Assert.assertEquals(maps.get(j).getOrDefault(u, Value.getUndef()),
+                            facts.get(j).get(u));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.TestCFGs;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+public class IntervalAnalysisTest {
+
+    private static final Interval I0_9 = Interval.make(0, 9);
+
+    private static final Interval I5_20 = Interval.make(5, 20);
+
+    private static void assertRefined(ConditionExp.Op op, Interval i1, Interval i2,
+                                      Interval r1, Interval r2) {
+        Interval[] refined = IntervalAnalysis.refine(op, i1, i2);
+        Assert.assertNotNull(op.toString(), refined);
+        Assert.assertEquals(op.toString(), r1, refined[0]);
+        Assert.assertEquals(op.toString(), r2, refined[1]);
+    }
+
+    @Test
+    public void testRefine() {
+        assertRefined(ConditionExp.Op.EQ, I0_9, I5_20,
+                Interval.make(5, 9), Interval.make(5, 9));
+        assertRefined(ConditionExp.Op.LT, I0_9, I5_20, I0_9, I5_20);
+        assertRefined(ConditionExp.Op.LT, I5_20, I0_9,
+                Interval.make(5, 8), Interval.make(6, 9));
+        assertRefined(ConditionExp.Op.LE, I5_20, I0_9,
+                Interval.make(5, 9), Interval.make(5, 9));
+        assertRefined(ConditionExp.Op.GT, I0_9, I5_20,
+                Interval.make(6, 9), Interval.make(5, 8));
+        assertRefined(ConditionExp.Op.GE, I0_9, Interval.makeConstant(9),
+                Interval.makeConstant(9), Interval.makeConstant(9));
+        // x != c cuts c off the bounds of x
+        assertRefined(ConditionExp.Op.NE, I0_9, Interval.makeConstant(0),
+                Interval.make(1, 9), Interval.makeConstant(0));
+        assertRefined(ConditionExp.Op.NE, I0_9, Interval.makeConstant(5),
+                I0_9, Interval.makeConstant(5));
+    }
+
+    @Test
+    public void testRefineInfeasible() {
+        Interval i20 = Interval.makeConstant(20);
+        Assert.assertNull(IntervalAnalysis.refine(ConditionExp.Op.GT, I0_9, i20));
+        Assert.assertNull(IntervalAnalysis.refine(ConditionExp.Op.EQ, I0_9, i20));
+        Assert.assertNull(IntervalAnalysis.refine(ConditionExp.Op.GE, I0_9, i20));
+        Assert.assertNull(IntervalAnalysis.refine(ConditionExp.Op.LT, i20, I0_9));
+        Assert.assertNull(IntervalAnalysis.refine(ConditionExp.Op.NE, i20, i20));
+    }
+
+    /**
+     * Checks the feasibility of the edges of {@code if (a op a)},
+     * where a is in [0, 9]. The intervals of the operands alone
+     * cannot decide the condition.
+     */
+    private static void assertSameOperands(ConditionExp.Op op, boolean holds) {
+        List<Var> vars = TestCFGs.makeIntVars(2);
+        Var a = vars.get(0), b = vars.get(1);
+        If ifStmt = new If(new ConditionExp(op, a, a));
+        List<Stmt> stmts = List.of(ifStmt,
+                new AssignLiteral(b, IntLiteral.get(1)), new Return());
+        ifStmt.setTarget(stmts.get(2));
+        CFG<Stmt> cfg = TestCFGs.build(vars, stmts);
+        IntervalFact in = new IntervalFact();
+        in.update(a, I0_9);
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(ifStmt)) {
+            boolean taken = edge.getKind() == Edge.Kind.IF_TRUE;
+            Assert.assertEquals(op + " " + edge.getKind(),
+                    taken == holds, IntervalAnalysis.isFeasible(edge, in));
+        }
+        Assert.assertEquals(Interval.makeConstant(holds ? 1 : 0),
+                IntervalAnalysis.evaluate(ifStmt.getCondition(), in));
+    }
+
+    @Test
+    public void testSameOperands() {
+        assertSameOperands(ConditionExp.Op.EQ, true);
+        assertSameOperands(ConditionExp.Op.NE, false);
+        assertSameOperands(ConditionExp.Op.LT, false);
+        assertSameOperands(ConditionExp.Op.LE, true);
+        assertSameOperands(ConditionExp.Op.GT, false);
+        assertSameOperands(ConditionExp.Op.GE, true);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntervalTest {
+
+    private static final int MIN = Integer.MIN_VALUE;
+
+    private static final int MAX = Integer.MAX_VALUE;
+
+    @Test
+    public void testMake() {
+        Assert.assertEquals(Interval.makeConstant(3), Interval.make(3, 3));
+        Assert.assertNull(Interval.make(4, 3));
+        Assert.assertSame(Interval.getTop(), Interval.make(MIN, MAX));
+        // bounds beyond int may wrap around
+        Assert.assertSame(Interval.getTop(), Interval.make(0, MAX + 1L));
+        Assert.assertSame(Interval.getTop(), Interval.make(MIN - 1L, 0));
+    }
+
+    @Test
+    public void testJoinIntersect() {
+        Interval i = Interval.make(0, 9);
+        Assert.assertSame(i, i.join(Interval.make(2, 5)));
+        Assert.assertEquals(Interval.make(-1, 9), i.join(Interval.makeConstant(-1)));
+        Assert.assertEquals(Interval.make(0, 20), i.join(Interval.make(15, 20)));
+        Assert.assertSame(i, i.intersect(Interval.getTop()));
+        Assert.assertEquals(Interval.make(5, 9), i.intersect(Interval.make(5, 20)));
+        Assert.assertNull(i.intersect(Interval.make(10, 20)));
+    }
+
+    @Test
+    public void testWiden() {
+        Interval i = Interval.make(0, 9);
+        Assert.assertSame(i, i.widen(Interval.make(1, 9)));
+        Assert.assertEquals(Interval.make(0, MAX), i.widen(Interval.make(0, 10)));
+        Assert.assertEquals(Interval.make(MIN, 9), i.widen(Interval.make(-1, 9)));
+        Assert.assertSame(Interval.getTop(), i.widen(Interval.make(-1, 10)));
+        // widening stabilizes an increasing chain in one step
+        Interval w = Interval.makeConstant(0).widen(Interval.make(0, 1));
+        Assert.assertSame(w, w.widen(Interval.make(0, 2)));
+    }
+
+    @Test
+    public void testNarrow() {
+        Interval i = Interval.make(0, MAX);
+        Assert.assertEquals(Interval.make(0, 10), i.narrow(Interval.make(0, 10)));
+        // finite bounds are kept
+        Assert.assertEquals(Interval.make(0, 10), i.narrow(Interval.make(5, 10)));
+        Assert.assertEquals(Interval.make(-3, 7),
+                Interval.getTop().narrow(Interval.make(-3, 7)));
+        Interval finite = Interval.make(1, 2);
+        Assert.assertSame(finite, finite.narrow(Interval.make(0, 10)));
+        // narrowing to an empty interval keeps the interval
+        Interval upper = Interval.make(5, MAX);
+        Assert.assertSame(upper, upper.narrow(Interval.make(0, 3)));
+    }
+
+    @Test
+    public void testToString() {
+        Assert.assertEquals("[0, 9]", Interval.make(0, 9).toString());
+        Assert.assertEquals("[-inf, +inf]", Interval.getTop().toString());
+    }
+}
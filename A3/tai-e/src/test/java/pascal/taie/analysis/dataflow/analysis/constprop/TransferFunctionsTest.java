@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ComparisonExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.List;
+
+public class TransferFunctionsTest {
+
+    private static final Var I1 = new Var(null, "i1", PrimitiveType.INT, 0);
+
+    private static final Var I2 = new Var(null, "i2", PrimitiveType.INT, 1);
+
+    private static final Var L1 = new Var(null, "l1", PrimitiveType.LONG, 2);
+
+    private static final Var L2 = new Var(null, "l2", PrimitiveType.LONG, 3);
+
+    private static final Var F1 = new Var(null, "f1", PrimitiveType.FLOAT, 4);
+
+    private static final Var F2 = new Var(null, "f2", PrimitiveType.FLOAT, 5);
+
+    /**
+     * Checks that the compiled evaluator of each expression gives
+     * the same value as {@link ConstantPropagation#evaluatePacked}.
+     */
+    private static void assertAgree(List<Exp> exps, CPFact in) {
+        for (Exp exp : exps) {
+            Assert.assertEquals(exp.toString(),
+                    ConstantPropagation.evaluatePacked(exp, in),
+                    TransferFunctions.compile(exp).evaluate(in));
+        }
+    }
+
+    private static List<Exp> comparisons() {
+        return List.of(
+                new ComparisonExp(ComparisonExp.Op.CMP, L1, L2),
+                new ComparisonExp(ComparisonExp.Op.CMPL, F1, F2),
+                new ComparisonExp(ComparisonExp.Op.CMPG, F1, F2));
+    }
+
+    @Test
+    public void testComparisons() {
+        CPFact in = new CPFact();
+        // long and float variables never hold values
+        assertAgree(comparisons(), in);
+        Assert.assertTrue(PackedValue.isUndef(TransferFunctions.compile(
+                comparisons().get(0)).evaluate(in)));
+        in.update(L1, Value.getNAC());
+        in.update(F2, Value.getNAC());
+        assertAgree(comparisons(), in);
+    }
+
+    @Test
+    public void testIntExps() {
+        List<Exp> exps = List.of(
+                IntLiteral.get(42),
+                I1,
+                new ArithmeticExp(ArithmeticExp.Op.ADD, I1, I2),
+                new ArithmeticExp(ArithmeticExp.Op.DIV, I1, I2),
+                new ConditionExp(ConditionExp.Op.LT, I1, I2));
+        CPFact in = new CPFact();
+        assertAgree(exps, in);
+        in.update(I1, Value.makeConstant(7));
+        assertAgree(exps, in);
+        in.update(I2, Value.makeConstant(0));
+        assertAgree(exps, in);
+        in.update(I2, Value.makeConstant(3));
+        assertAgree(exps, in);
+        in.update(I2, Value.getNAC());
+        assertAgree(exps, in);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class BitSetFactTest {
+
+    /**
+     * Universe spanning three words, so that the bits at the
+     * word boundaries are covered.
+     */
+    private static final List<Var> UNIVERSE = makeVars(130);
+
+    private static List<Var> makeVars(int n) {
+        List<Var> vars = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        return vars;
+    }
+
+    private static BitSetFact<Var> factOf(int... indexes) {
+        BitSetFact<Var> fact = new BitSetFact<>(UNIVERSE);
+        for (int i : indexes) {
+            fact.add(UNIVERSE.get(i));
+        }
+        return fact;
+    }
+
+    private static Set<Integer> indexesOf(SetFact<Var> fact) {
+        return fact.stream().map(Var::getIndex).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testAddRemoveContains() {
+        BitSetFact<Var> fact = factOf();
+        Assert.assertTrue(fact.isEmpty());
+        Assert.assertTrue(fact.add(UNIVERSE.get(63)));
+        Assert.assertFalse(fact.add(UNIVERSE.get(63)));
+        Assert.assertTrue(fact.add(UNIVERSE.get(64)));
+        Assert.assertTrue(fact.add(UNIVERSE.get(129)));
+        Assert.assertEquals(3, fact.size());
+        Assert.assertTrue(fact.contains(UNIVERSE.get(64)));
+        Assert.assertFalse(fact.contains(UNIVERSE.get(0)));
+        Assert.assertTrue(fact.remove(UNIVERSE.get(64)));
+        Assert.assertFalse(fact.remove(UNIVERSE.get(64)));
+        Assert.assertEquals(Set.of(63, 129), indexesOf(fact));
+    }
+
+    @Test
+    public void testForeignElements() {
+        BitSetFact<Var> fact = factOf(5);
+        // same index, but not the element of the universe
+        Var other = new Var(null, "other", PrimitiveType.INT, 5);
+        Assert.assertFalse(fact.contains(other));
+        Assert.assertFalse(fact.remove(other));
+        Assert.assertTrue(fact.contains(UNIVERSE.get(5)));
+        try {
+            fact.add(other);
+            Assert.fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIterationOrder() {
+        BitSetFact<Var> fact = factOf(129, 0, 64, 63, 1);
+        List<Integer> order = fact.stream().map(Var::getIndex).toList();
+        Assert.assertEquals(List.of(0, 1, 63, 64, 129), order);
+        fact.removeIf(v -> v.getIndex() % 2 == 1);
+        Assert.assertEquals(Set.of(0, 64), indexesOf(fact));
+    }
+
+    @Test
+    public void testUnionIntersect() {
+        BitSetFact<Var> a = factOf(1, 64, 100);
+        BitSetFact<Var> b = factOf(1, 65, 129);
+        Assert.assertTrue(a.union(b));
+        Assert.assertFalse(a.union(b));
+        Assert.assertEquals(Set.of(1, 64, 65, 100, 129), indexesOf(a));
+        Assert.assertEquals(Set.of(1, 65, 129), indexesOf(b));
+        Assert.assertTrue(a.intersect(factOf(1, 65, 128)));
+        Assert.assertFalse(a.intersect(factOf(1, 65, 128)));
+        Assert.assertEquals(Set.of(1, 65), indexesOf(a));
+    }
+
+    @Test
+    public void testUnionExcept() {
+        BitSetFact<Var> a = factOf(0);
+        Assert.assertTrue(a.unionExcept(factOf(64, 65), UNIVERSE.get(64)));
+        Assert.assertEquals(Set.of(0, 65), indexesOf(a));
+        Assert.assertFalse(a.unionExcept(factOf(64), UNIVERSE.get(64)));
+    }
+
+    @Test
+    public void testMixWithSetFact() {
+        BitSetFact<Var> a = factOf(3);
+        SetFact<Var> plain = new SetFact<>(List.of(UNIVERSE.get(70)));
+        Assert.assertTrue(a.union(plain));
+        Assert.assertEquals(Set.of(3, 70), indexesOf(a));
+        Assert.assertEquals(plain.unionWith(factOf(3)), a);
+        Assert.assertEquals(a, plain.unionWith(factOf(3)));
+        Assert.assertEquals(plain.unionWith(factOf(3)).hashCode(), a.hashCode());
+        // facts over a different universe are not word-compatible
+        List<Var> otherUniverse = new ArrayList<>(UNIVERSE);
+        BitSetFact<Var> b = new BitSetFact<>(otherUniverse);
+        b.add(UNIVERSE.get(3));
+        Assert.assertTrue(b.union(a));
+        Assert.assertEquals(a, b);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        BitSetFact<Var> a = factOf(1, 64);
+        BitSetFact<Var> copy = a.copy();
+        Assert.assertEquals(a, copy);
+        copy.add(UNIVERSE.get(2));
+        a.remove(UNIVERSE.get(64));
+        Assert.assertEquals(Set.of(1), indexesOf(a));
+        Assert.assertEquals(Set.of(1, 2, 64), indexesOf(copy));
+        BitSetFact<Var> target = factOf(100);
+        target.set(copy);
+        copy.clear();
+        Assert.assertEquals(Set.of(1, 2, 64), indexesOf(target));
+        Assert.assertTrue(copy.isEmpty());
+    }
+
+    @Test
+    public void testSetWords() {
+        BitSetFact<Var> fact = factOf(5);
+        long[] words = {0, 0, 1L | (1L << 63), 1L << 1, 1L};
+        fact.setWords(words, 2);
+        Assert.assertEquals(Set.of(0, 63, 65, 128), indexesOf(fact));
+    }
+
+    @Test
+    public void testEmptyUniverse() {
+        BitSetFact<Var> fact = new BitSetFact<>(List.of());
+        Assert.assertTrue(fact.isEmpty());
+        Assert.assertEquals(0, fact.size());
+        Assert.assertEquals(fact, fact.copy());
+    }
+}
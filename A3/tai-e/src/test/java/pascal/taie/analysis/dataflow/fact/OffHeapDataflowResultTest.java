@@ -0,0 +1,172 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.IntervalAnalysis;
+import pascal.taie.analysis.graph.cfg.TestCFGs;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.Var;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class OffHeapDataflowResultTest {
+
+    private static final List<Var> VARS = TestCFGs.makeIntVars(100);
+
+    private static final BitSetFactCodec<Var> CODEC = new BitSetFactCodec<>(VARS);
+
+    private static SetFact<Var> factOf(int... indexes) {
+        SetFact<Var> fact = new BitSetFact<>(VARS);
+        for (int i : indexes) {
+            fact.add(VARS.get(i));
+        }
+        return fact;
+    }
+
+    /**
+     * @return a result whose nodes are the first n variables.
+     */
+    private static DataflowResult<Var, SetFact<Var>> makeResult(int n) {
+        DataflowResult<Var, SetFact<Var>> result = new DataflowResult<>();
+        for (int i = 0; i < n; ++i) {
+            result.setInFact(VARS.get(i), factOf(i));
+            result.setOutFact(VARS.get(i), factOf(i, 99 - i));
+        }
+        return result;
+    }
+
+    @Test
+    public void testCopyOfIsExactSize() {
+        DataflowResult<Var, SetFact<Var>> result = makeResult(10);
+        List<Var> nodes = VARS.subList(0, 10);
+        OffHeapDataflowResult<Var, SetFact<Var>> offHeap =
+                OffHeapDataflowResult.copyOf(result, nodes, CODEC, 4);
+        long size = 0;
+        for (Var node : nodes) {
+            size += CODEC.sizeOf(result.getInFact(node))
+                    + CODEC.sizeOf(result.getOutFact(node));
+        }
+        Assert.assertEquals(size, offHeap.getCapacity());
+        for (Var node : nodes) {
+            Assert.assertEquals(result.getInFact(node), offHeap.getInFact(node));
+            Assert.assertEquals(result.getOutFact(node), offHeap.getOutFact(node));
+        }
+        Assert.assertNull(offHeap.getInFact(VARS.get(50)));
+    }
+
+    /**
+     * Codec of facts which are the numbers of bytes of their encodings,
+     * for results larger than a chunk.
+     */
+    private static final FactCodec<Integer> SIZE_CODEC = new FactCodec<>() {
+
+        @Override
+        public int sizeOf(Integer fact) {
+            return fact;
+        }
+
+        @Override
+        public void encode(Integer fact, ByteBuffer buffer) {
+            buffer.putInt(fact);
+            buffer.position(buffer.position() + fact - Integer.BYTES);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * A copy larger than a chunk is split into chunks, which are filled
+     * up when the sizes of the facts divide the chunk size.
+     */
+    @Test
+    public void testCopyOfSpansChunks() {
+        int factSize = 1 << 18;
+        List<Integer> nodes = IntStream.range(0, 10).boxed().toList();
+        DataflowResult<Integer, Integer> result = new DataflowResult<>();
+        for (Integer node : nodes) {
+            result.setInFact(node, factSize);
+            result.setOutFact(node, factSize);
+        }
+        OffHeapDataflowResult<Integer, Integer> offHeap =
+                OffHeapDataflowResult.copyOf(result, nodes, SIZE_CODEC, 4);
+        Assert.assertEquals(20L * factSize, offHeap.getCapacity());
+        for (Integer node : nodes) {
+            Assert.assertEquals(Integer.valueOf(factSize), offHeap.getInFact(node));
+            Assert.assertEquals(Integer.valueOf(factSize), offHeap.getOutFact(node));
+        }
+    }
+
+    @Test
+    public void testEmptyCopyReservesNothing() {
+        OffHeapDataflowResult<Var, SetFact<Var>> offHeap = OffHeapDataflowResult
+                .copyOf(new DataflowResult<>(), List.of(), CODEC, 4);
+        Assert.assertEquals(0, offHeap.getCapacity());
+    }
+
+    @Test
+    public void testUpdates() {
+        OffHeapDataflowResult<Var, SetFact<Var>> offHeap =
+                new OffHeapDataflowResult<>(CODEC, 4);
+        int size = CODEC.sizeOf(factOf());
+        // the first chunk only holds the first fact
+        offHeap.setInFact(VARS.get(0), factOf(1, 2));
+        Assert.assertEquals(size, offHeap.getCapacity());
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < VARS.size(); ++i) {
+                offHeap.setOutFact(VARS.get(i), factOf(i, round));
+            }
+        }
+        // chunks grow with the capacity, so the capacity stays
+        // within twice the encoded size
+        Assert.assertTrue(offHeap.getCapacity() <= 2L * size * (3 * VARS.size() + 1));
+        for (int i = 0; i < VARS.size(); ++i) {
+            Assert.assertEquals(factOf(i, 2), offHeap.getOutFact(VARS.get(i)));
+        }
+        Assert.assertEquals(factOf(1, 2), offHeap.getInFact(VARS.get(0)));
+        offHeap.setInFact(VARS.get(0), null);
+        Assert.assertNull(offHeap.getInFact(VARS.get(0)));
+    }
+
+    @Test
+    public void testUnsupportedFactStore() {
+        // accepted by analyses that have codecs
+        new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID,
+                "strongly", false, "fact-store", "off-heap"));
+        try {
+            new IntervalAnalysis(new AnalysisConfig(IntervalAnalysis.ID,
+                    "fact-store", "off-heap"));
+            Assert.fail("expected ConfigException");
+        } catch (ConfigException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.TestCFGs;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class BlockSolverTest {
+
+    private static final LiveVariableAnalysis LIVE_VAR = new LiveVariableAnalysis(
+            new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+
+    private static final ConstantPropagation CONST_PROP = new ConstantPropagation(
+            new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+
+    private static Set<Var> varsOf(SetFact<Var> fact) {
+        return fact.stream().collect(Collectors.toSet());
+    }
+
+    /**
+     * Solves given analysis on given CFG by the block solvers,
+     * and by the FIFO work-list solver.
+     */
+    private static <Fact> void assertSameAsWorkList(
+            DataflowAnalysis<Stmt, Fact> analysis, CFG<Stmt> cfg) {
+        DataflowResult<Stmt, Fact> expected = new WorkListSolver<>(analysis).solve(cfg);
+        for (String kind : new String[]{ Solver.BLOCK, Solver.SPARSE }) {
+            DataflowResult<Stmt, Fact> result = Solver.makeSolver(analysis, kind).solve(cfg);
+            for (Stmt stmt : cfg) {
+                Assert.assertEquals(expected.getInFact(stmt), result.getInFact(stmt));
+                Assert.assertEquals(expected.getOutFact(stmt), result.getOutFact(stmt));
+            }
+        }
+    }
+
+    /**
+     * The backward transfer of a block of even length starts from the
+     * second scratch fact.
+     */
+    @Test
+    public void testBackwardEvenBlock() {
+        List<Var> vars = TestCFGs.makeIntVars(1);
+        Var x = vars.get(0);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(1)),
+                new Return());
+        CFG<Stmt> cfg = TestCFGs.build(vars, stmts);
+        for (String kind : new String[]{ Solver.BLOCK, Solver.SPARSE }) {
+            DataflowResult<Stmt, SetFact<Var>> result =
+                    Solver.makeSolver(LIVE_VAR, kind).solve(cfg);
+            for (Stmt stmt : stmts) {
+                Assert.assertTrue(result.getInFact(stmt).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testBackwardUseInBlock() {
+        List<Var> vars = TestCFGs.makeIntVars(3);
+        Var x = vars.get(0), y = vars.get(1), z = vars.get(2);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(1)), // 0
+                new Copy(y, x),                          // 1
+                new Copy(x, z),                          // 2
+                new Return());                           // 3
+        CFG<Stmt> cfg = TestCFGs.build(vars, stmts);
+        for (String kind : new String[]{ Solver.BLOCK, Solver.SPARSE }) {
+            DataflowResult<Stmt, SetFact<Var>> result =
+                    Solver.makeSolver(LIVE_VAR, kind).solve(cfg);
+            Assert.assertEquals(Set.of(z), varsOf(result.getInFact(stmts.get(0))));
+            Assert.assertEquals(Set.of(x, z), varsOf(result.getInFact(stmts.get(1))));
+            Assert.assertEquals(Set.of(z), varsOf(result.getInFact(stmts.get(2))));
+            Assert.assertTrue(result.getInFact(stmts.get(3)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testBackward() {
+        Random random = new Random(0);
+        for (int i = 0; i < 20; ++i) {
+            assertSameAsWorkList(LIVE_VAR, TestCFGs.makeRandom(random, 8, 40 + i));
+        }
+    }
+
+    @Test
+    public void testForward() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20; ++i) {
+            assertSameAsWorkList(CONST_PROP, TestCFGs.makeRandom(random, 8, 40 + i));
+        }
+    }
+}
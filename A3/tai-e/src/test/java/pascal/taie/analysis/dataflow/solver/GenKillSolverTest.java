@@ -0,0 +1,266 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.analysis.ReachingDefinitionAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.TestCFGs;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class GenKillSolverTest {
+
+    private static final ReachingDefinitionAnalysis REACH_DEF =
+            new ReachingDefinitionAnalysis(new AnalysisConfig(ReachingDefinitionAnalysis.ID));
+
+    /**
+     * Must analysis of the variables that are assigned on every path
+     * from the entry, which is solved together with reaching definitions.
+     */
+    private static final GenKillAnalysis<Stmt, Var> ASSIGNED = new GenKillAnalysis<>() {
+
+        @Override
+        public boolean isForward() {
+            return true;
+        }
+
+        @Override
+        public boolean isMay() {
+            return false;
+        }
+
+        @Override
+        public List<Var> getUniverse(CFG<Stmt> cfg) {
+            return cfg.getIR().getVars();
+        }
+
+        @Override
+        public void computeGenKill(CFG<Stmt> cfg, GenKillSets<Stmt, Var> sets) {
+            for (Stmt stmt : cfg.getIR()) {
+                if (stmt.getDef().orElse(null) instanceof Var var) {
+                    sets.gen(stmt, var);
+                }
+            }
+        }
+    };
+
+    private static Set<Integer> indexesOf(SetFact<Stmt> fact) {
+        return fact.stream().map(Stmt::getIndex).collect(Collectors.toSet());
+    }
+
+    private static AssignLiteral assign(Var var, int value) {
+        return new AssignLiteral(var, IntLiteral.get(value));
+    }
+
+    private static If ifLess(Var v1, Var v2) {
+        return new If(new ConditionExp(ConditionExp.Op.LT, v1, v2));
+    }
+
+    @Test
+    public void testReachDefBranch() {
+        List<Var> vars = TestCFGs.makeIntVars(3);
+        Var x = vars.get(0), y = vars.get(1), z = vars.get(2);
+        If branch = ifLess(x, y);
+        Goto skip = new Goto();
+        List<Stmt> stmts = List.of(
+                assign(x, 1),        // 0
+                assign(y, 2),        // 1
+                branch,              // 2
+                assign(x, 3),        // 3
+                skip,                // 4
+                assign(y, 4),        // 5
+                new Copy(z, x),      // 6
+                new Return());       // 7
+        branch.setTarget(stmts.get(5));
+        skip.setTarget(stmts.get(6));
+        CFG<Stmt> cfg = TestCFGs.build(vars, stmts);
+        DataflowResult<Stmt, SetFact<Stmt>> result = GenKillSolver.solve(cfg, REACH_DEF);
+        Assert.assertEquals(Set.of(0, 1), indexesOf(result.getInFact(stmts.get(3))));
+        Assert.assertEquals(Set.of(1, 3), indexesOf(result.getOutFact(stmts.get(3))));
+        Assert.assertEquals(Set.of(0, 5), indexesOf(result.getOutFact(stmts.get(5))));
+        Assert.assertEquals(Set.of(0, 1, 3, 5), indexesOf(result.getInFact(stmts.get(6))));
+        Assert.assertEquals(Set.of(0, 1, 3, 5, 6), indexesOf(result.getOutFact(stmts.get(6))));
+    }
+
+    @Test
+    public void testReachDefLoop() {
+        List<Var> vars = TestCFGs.makeIntVars(2);
+        Var i = vars.get(0), n = vars.get(1);
+        If loop = ifLess(i, n);
+        Goto back = new Goto();
+        List<Stmt> stmts = List.of(
+                assign(i, 0),        // 0
+                assign(n, 10),       // 1
+                loop,                // 2
+                new Return(),        // 3
+                new Copy(i, n),      // 4
+                back);               // 5
+        loop.setTarget(stmts.get(4));
+        back.setTarget(stmts.get(2));
+        CFG<Stmt> cfg = TestCFGs.build(vars, stmts);
+        DataflowResult<Stmt, SetFact<Stmt>> result = GenKillSolver.solve(cfg, REACH_DEF);
+        Assert.assertEquals(Set.of(0, 1, 4), indexesOf(result.getInFact(stmts.get(2))));
+        Assert.assertEquals(Set.of(0, 1, 4), indexesOf(result.getInFact(stmts.get(3))));
+        Assert.assertEquals(Set.of(1, 4), indexesOf(result.getOutFact(stmts.get(4))));
+    }
+
+    /**
+     * Checks the joint solving of a may and a must analysis, whose facts
+     * span several words, against the separate solving of each analysis
+     * and against a plain iterative solver.
+     */
+    @Test
+    public void testJointSolve() {
+        Random random = new Random(0);
+        for (int round = 0; round < 20; ++round) {
+            CFG<Stmt> cfg = TestCFGs.makeRandom(random, 70, 150);
+            List<DataflowResult<Stmt, ? extends SetFact<?>>> joint =
+                    GenKillSolver.solve(cfg, List.of(REACH_DEF, ASSIGNED));
+            Assert.assertEquals(2, joint.size());
+            DataflowResult<Stmt, SetFact<Stmt>> reachDef = GenKillSolver.solve(cfg, REACH_DEF);
+            DataflowResult<Stmt, SetFact<Var>> assigned = GenKillSolver.solve(cfg, ASSIGNED);
+            Map<Stmt, Set<Stmt>> expectedReachDef = solveIteratively(cfg, REACH_DEF);
+            Map<Stmt, Set<Var>> expectedAssigned = solveIteratively(cfg, ASSIGNED);
+            for (Stmt stmt : cfg) {
+                Assert.assertEquals(reachDef.getOutFact(stmt), joint.get(0).getOutFact(stmt));
+                Assert.assertEquals(reachDef.getInFact(stmt), joint.get(0).getInFact(stmt));
+                Assert.assertEquals(assigned.getOutFact(stmt), joint.get(1).getOutFact(stmt));
+                Assert.assertEquals(assigned.getInFact(stmt), joint.get(1).getInFact(stmt));
+                Assert.assertEquals(expectedReachDef.get(stmt),
+                        reachDef.getOutFact(stmt).stream().collect(Collectors.toSet()));
+                Assert.assertEquals(expectedAssigned.get(stmt),
+                        assigned.getOutFact(stmt).stream().collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    @Test
+    public void testDifferentDirections() {
+        GenKillAnalysis<Stmt, Var> backward = new GenKillAnalysis<>() {
+
+            @Override
+            public boolean isForward() {
+                return false;
+            }
+
+            @Override
+            public boolean isMay() {
+                return true;
+            }
+
+            @Override
+            public List<Var> getUniverse(CFG<Stmt> cfg) {
+                return cfg.getIR().getVars();
+            }
+
+            @Override
+            public void computeGenKill(CFG<Stmt> cfg, GenKillSets<Stmt, Var> sets) {
+            }
+        };
+        List<Var> vars = TestCFGs.makeIntVars(1);
+        CFG<Stmt> cfg = TestCFGs.build(vars, List.of(assign(vars.get(0), 0), new Return()));
+        try {
+            GenKillSolver.solve(cfg, List.of(REACH_DEF, backward));
+            Assert.fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Solves given forward analysis by plain iteration over sets, where
+     * the facts of the nodes other than the entry start from the universe
+     * for must analyses.
+     *
+     * @return the OUT facts of the nodes.
+     */
+    private static <E extends Indexable> Map<Stmt, Set<E>>
+    solveIteratively(CFG<Stmt> cfg, GenKillAnalysis<Stmt, E> analysis) {
+        Map<Stmt, Set<E>> gens = new HashMap<>();
+        Map<Stmt, Set<E>> kills = new HashMap<>();
+        analysis.computeGenKill(cfg, new GenKillAnalysis.GenKillSets<>() {
+            @Override
+            public void gen(Stmt node, E e) {
+                gens.computeIfAbsent(node, n -> new HashSet<>()).add(e);
+            }
+
+            @Override
+            public void kill(Stmt node, E e) {
+                kills.computeIfAbsent(node, n -> new HashSet<>()).add(e);
+            }
+        });
+        Set<E> universe = new HashSet<>(analysis.getUniverse(cfg));
+        Map<Stmt, Set<E>> outs = new HashMap<>();
+        for (Stmt stmt : cfg) {
+            outs.put(stmt, cfg.isEntry(stmt) || analysis.isMay()
+                    ? new HashSet<>() : new HashSet<>(universe));
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Stmt stmt : cfg) {
+                if (cfg.isEntry(stmt)) {
+                    continue;
+                }
+                Set<E> in = analysis.isMay() ? new HashSet<>() : new HashSet<>(universe);
+                for (Stmt pred : cfg.getPredsOf(stmt)) {
+                    if (analysis.isMay()) {
+                        in.addAll(outs.get(pred));
+                    } else {
+                        in.retainAll(outs.get(pred));
+                    }
+                }
+                in.removeAll(kills.getOrDefault(stmt, Set.of()));
+                in.addAll(gens.getOrDefault(stmt, Set.of()));
+                if (!in.equals(outs.get(stmt))) {
+                    outs.put(stmt, in);
+                    changed = true;
+                }
+            }
+        }
+        return outs;
+    }
+}
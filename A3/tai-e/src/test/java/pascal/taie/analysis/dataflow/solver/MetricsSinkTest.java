@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MetricsSinkTest {
+
+    private static SolverMetrics makeMetrics(String method) {
+        SolverMetrics metrics = new SolverMetrics(method, "worklist", 3);
+        metrics.visitNode(1);
+        metrics.countTransfer();
+        return metrics;
+    }
+
+    @Test
+    public void testJsonLines() throws IOException {
+        Path file = Files.createTempFile("metrics", ".jsonl");
+        Files.writeString(file, "stale\n");
+        try {
+            World.reset();
+            MetricsSink livevar = MetricsSink.jsonLines(file, "livevar");
+            // the sinks of the same file in a run share the writer
+            MetricsSink constprop = MetricsSink.jsonLines(
+                    file.getParent().resolve(".").resolve(file.getFileName()),
+                    "constprop");
+            livevar.accept(makeMetrics("m1"));
+            constprop.accept(makeMetrics("m2"));
+            livevar.accept(makeMetrics("m3"));
+            MetricsSink.flushAll();
+            List<String> lines = Files.readAllLines(file);
+            Assert.assertEquals(3, lines.size());
+            Assert.assertTrue(lines.get(0).startsWith("{\"analysis\":\"livevar\","));
+            Assert.assertTrue(lines.get(1).startsWith("{\"analysis\":\"constprop\","));
+            Assert.assertTrue(lines.get(2).contains("\"m3\""));
+            // the next run starts the file anew
+            World.reset();
+            MetricsSink.jsonLines(file, "livevar").accept(makeMetrics("m4"));
+            MetricsSink.flushAll();
+            lines = Files.readAllLines(file);
+            Assert.assertEquals(1, lines.size());
+            Assert.assertTrue(lines.get(0).contains("\"m4\""));
+        } finally {
+            World.reset();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testConcurrentLines() throws Exception {
+        Path file = Files.createTempFile("metrics", ".jsonl");
+        try {
+            World.reset();
+            MetricsSink sink = MetricsSink.jsonLines(file, "constprop");
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; ++t) {
+                int id = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; ++i) {
+                        sink.accept(makeMetrics("m" + id + "_" + i));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            MetricsSink.flushAll();
+            List<String> lines = Files.readAllLines(file);
+            Assert.assertEquals(4000, lines.size());
+            for (String line : lines) {
+                Assert.assertTrue(line, line.startsWith("{\"analysis\":")
+                        && line.endsWith("}"));
+            }
+        } finally {
+            World.reset();
+            Files.delete(file);
+        }
+    }
+}
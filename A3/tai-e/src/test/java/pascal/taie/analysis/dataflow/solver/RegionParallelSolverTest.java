@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.TestCFGs;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Random;
+
+public class RegionParallelSolverTest {
+
+    /**
+     * Solves given analysis on given CFG by region solving, which is
+     * forced by threshold 0, and by the FIFO work-list solver.
+     * The CFGs are built from segments, so that they have many regions.
+     */
+    private static <Fact> void assertSameAsWorkList(
+            DataflowAnalysis<Stmt, Fact> analysis, CFG<Stmt> cfg) {
+        DataflowResult<Stmt, Fact> expected = new WorkListSolver<>(analysis).solve(cfg);
+        DataflowResult<Stmt, Fact> result = new RegionParallelSolver<>(analysis, 0).solve(cfg);
+        for (Stmt stmt : cfg) {
+            Assert.assertEquals(expected.getInFact(stmt), result.getInFact(stmt));
+            Assert.assertEquals(expected.getOutFact(stmt), result.getOutFact(stmt));
+        }
+    }
+
+    /**
+     * Like {@link #assertSameAsWorkList}, but compares with the priority
+     * work-list solver, which applies edge transfers as the region solver.
+     */
+    private static <Fact> void assertSameAsPriority(
+            DataflowAnalysis<Stmt, Fact> analysis, CFG<Stmt> cfg) {
+        DataflowResult<Stmt, Fact> expected = new PriorityWorkListSolver<>(analysis).solve(cfg);
+        DataflowResult<Stmt, Fact> result = new RegionParallelSolver<>(analysis, 0).solve(cfg);
+        for (Stmt stmt : cfg) {
+            Assert.assertEquals(expected.getInFact(stmt), result.getInFact(stmt));
+            Assert.assertEquals(expected.getOutFact(stmt), result.getOutFact(stmt));
+        }
+    }
+
+    @Test
+    public void testForward() {
+        ConstantPropagation constprop = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+        Random random = new Random(0);
+        for (int i = 0; i < 20; ++i) {
+            assertSameAsWorkList(constprop, TestCFGs.makeRandom(random, 8, 200, 10));
+        }
+    }
+
+    @Test
+    public void testBackward() {
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+        Random random = new Random(1);
+        for (int i = 0; i < 20; ++i) {
+            assertSameAsWorkList(livevar, TestCFGs.makeRandom(random, 8, 200, 10));
+        }
+    }
+
+    /**
+     * @return an analysis like given one, except that no fact flows
+     * through the false edges of the conditional jumps of given CFG,
+     * which needs edge transfers.
+     */
+    private static <Fact> DataflowAnalysis<Stmt, Fact> cutFalseEdges(
+            DataflowAnalysis<Stmt, Fact> analysis, CFG<Stmt> cfg) {
+        return new DataflowAnalysis<>() {
+
+            @Override
+            public boolean isForward() {
+                return analysis.isForward();
+            }
+
+            @Override
+            public Fact newBoundaryFact(CFG<Stmt> cfg) {
+                return analysis.newBoundaryFact(cfg);
+            }
+
+            @Override
+            public Fact newInitialFact() {
+                return analysis.newInitialFact(cfg);
+            }
+
+            @Override
+            public void meetInto(Fact fact, Fact target) {
+                analysis.meetInto(fact, target);
+            }
+
+            @Override
+            public boolean transferNode(Stmt stmt, Fact in, Fact out) {
+                return analysis.transferNode(stmt, in, out);
+            }
+
+            @Override
+            public boolean needTransferEdge(Edge<Stmt> edge) {
+                return edge.getKind() == Edge.Kind.IF_FALSE;
+            }
+
+            @Override
+            public Fact transferEdge(Edge<Stmt> edge, Fact nodeFact) {
+                return analysis.newInitialFact(cfg);
+            }
+        };
+    }
+
+    @Test
+    public void testEdgeTransfer() {
+        ConstantPropagation constprop = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+        Random random = new Random(3);
+        for (int i = 0; i < 20; ++i) {
+            CFG<Stmt> cfg = TestCFGs.makeRandom(random, 8, 200, 10);
+            assertSameAsPriority(cutFalseEdges(constprop, cfg), cfg);
+            assertSameAsPriority(cutFalseEdges(livevar, cfg), cfg);
+        }
+    }
+
+    /**
+     * Below the threshold, the CFG is solved sequentially,
+     * with the same result.
+     */
+    @Test
+    public void testSequentialFallback() {
+        ConstantPropagation constprop = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+        CFG<Stmt> cfg = TestCFGs.makeRandom(new Random(2), 8, 200);
+        DataflowResult<Stmt, ?> parallel = Solver.makeSolver(
+                constprop, Solver.PARALLEL, 0).solve(cfg);
+        DataflowResult<Stmt, ?> sequential = Solver.makeSolver(
+                constprop, Solver.PARALLEL).solve(cfg);
+        for (Stmt stmt : cfg) {
+            Assert.assertEquals(sequential.getOutFact(stmt), parallel.getOutFact(stmt));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+public class DominatorsTest {
+
+    private static final int ENTRY = 12;
+
+    private static final int EXIT = 13;
+
+    /**
+     * Builds the CFG of
+     * <pre>
+     *  0: a = 0
+     *  1: if (a < b) goto 8     // header of the outer loop
+     *  2: c = 0
+     *  3: if (c < b) goto 6     // header of the inner loop
+     *  4: c = 1
+     *  5: goto 3
+     *  6: a = 1
+     *  7: goto 1
+     *  8: if (a < c) goto 10    // enters the cycle of 9 and 10 at both
+     *  9: a = 2
+     * 10: if (c < a) goto 9
+     * 11: return
+     * </pre>
+     * whose cycle of 9 and 10 is irreducible.
+     */
+    private static Dominators build() {
+        List<Var> vars = TestCFGs.makeIntVars(3);
+        Var a = vars.get(0), b = vars.get(1), c = vars.get(2);
+        If outer = ifLess(a, b);
+        If inner = ifLess(c, b);
+        Goto innerBack = new Goto();
+        Goto outerBack = new Goto();
+        If split = ifLess(a, c);
+        If cycle = ifLess(c, a);
+        List<Stmt> stmts = List.of(
+                assign(a, 0), outer, assign(c, 0), inner, assign(c, 1),
+                innerBack, assign(a, 1), outerBack, split, assign(a, 2),
+                cycle, new Return());
+        outer.setTarget(stmts.get(8));
+        inner.setTarget(stmts.get(6));
+        innerBack.setTarget(stmts.get(3));
+        outerBack.setTarget(stmts.get(1));
+        split.setTarget(stmts.get(10));
+        cycle.setTarget(stmts.get(9));
+        return Dominators.getResult(TestCFGs.build(vars, stmts).getIR());
+    }
+
+    private static AssignLiteral assign(Var var, int value) {
+        return new AssignLiteral(var, IntLiteral.get(value));
+    }
+
+    private static If ifLess(Var v1, Var v2) {
+        return new If(new ConditionExp(ConditionExp.Op.LT, v1, v2));
+    }
+
+    @Test
+    public void testImmediateDominators() {
+        Dominators dom = build();
+        Assert.assertEquals(ENTRY, dom.getEntry());
+        Assert.assertEquals(EXIT, dom.getExit());
+        int[] idoms = {ENTRY, 0, 1, 2, 3, 4, 3, 6, 1, 8, 8, 10, -1, 11};
+        for (int node = 0; node < idoms.length; ++node) {
+            Assert.assertEquals("idom of " + node,
+                    idoms[node], dom.getImmediateDominator(node));
+        }
+        Assert.assertTrue(dom.dominates(1, 7));
+        Assert.assertTrue(dom.dominates(3, 5));
+        Assert.assertFalse(dom.dominates(3, 8));
+        // neither node of the irreducible cycle dominates the other
+        Assert.assertFalse(dom.dominates(9, 10));
+        Assert.assertFalse(dom.dominates(10, 9));
+    }
+
+    @Test
+    public void testDominanceFrontiers() {
+        Dominators dom = build();
+        int[][] frontiers = {
+                {}, {1}, {1}, {1, 3}, {3}, {3}, {1}, {1},
+                {}, {10}, {9}, {}, {}, {}};
+        for (int node = 0; node < frontiers.length; ++node) {
+            Assert.assertArrayEquals("frontier of " + node,
+                    frontiers[node], dom.getDominanceFrontier(node));
+        }
+    }
+
+    @Test
+    public void testPostDominators() {
+        Dominators dom = build();
+        Assert.assertEquals(1, dom.getImmediatePostDominator(0));
+        Assert.assertEquals(8, dom.getImmediatePostDominator(1));
+        Assert.assertEquals(6, dom.getImmediatePostDominator(3));
+        Assert.assertEquals(3, dom.getImmediatePostDominator(5));
+        Assert.assertEquals(10, dom.getImmediatePostDominator(8));
+        Assert.assertEquals(10, dom.getImmediatePostDominator(9));
+        Assert.assertEquals(EXIT, dom.getImmediatePostDominator(11));
+        Assert.assertEquals(-1, dom.getImmediatePostDominator(EXIT));
+    }
+
+    @Test
+    public void testLoops() {
+        Dominators dom = build();
+        Assert.assertEquals(2, dom.getNumberOfLoops());
+        Assert.assertTrue(dom.isLoopHeader(1));
+        Assert.assertTrue(dom.isLoopHeader(3));
+        Assert.assertEquals(1, dom.getParentLoop(3));
+        Assert.assertEquals(-1, dom.getParentLoop(1));
+        Assert.assertEquals(3, dom.getLoopHeader(4));
+        Assert.assertEquals(1, dom.getLoopHeader(6));
+        Assert.assertEquals(2, dom.getLoopDepth(5));
+        Assert.assertEquals(1, dom.getLoopDepth(7));
+        Assert.assertTrue(dom.isInLoop(4, 1));
+        Assert.assertFalse(dom.isInLoop(6, 3));
+        // the irreducible cycle has no header
+        for (int node : new int[]{0, 8, 9, 10, 11}) {
+            Assert.assertEquals(-1, dom.getLoopHeader(node));
+            Assert.assertEquals(0, dom.getLoopDepth(node));
+        }
+    }
+}
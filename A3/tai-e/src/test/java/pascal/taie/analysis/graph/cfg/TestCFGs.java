@@ -0,0 +1,126 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds control-flow graphs of small methods for unit tests,
+ * without loading any program.
+ */
+public final class TestCFGs {
+
+    private TestCFGs() {
+    }
+
+    /**
+     * @return n int variables named v0, v1, ..., where vi has index i.
+     */
+    public static List<Var> makeIntVars(int n) {
+        List<Var> vars = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        return vars;
+    }
+
+    /**
+     * Builds the CFG, without exceptional edges, of a method whose
+     * variables are {@code vars} and whose body is {@code stmts}.
+     * The statements are indexed by their positions, and the CFG
+     * is stored in the IR.
+     */
+    public static CFG<Stmt> build(List<Var> vars, List<Stmt> stmts) {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+            stmts.get(i).setLineNumber(i + 1);
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                vars, stmts, List.of());
+        CFGBuilder builder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", "none", "dump", false));
+        CFG<Stmt> cfg = builder.analyze(ir);
+        ir.storeResult(CFGBuilder.ID, cfg);
+        return cfg;
+    }
+
+    /**
+     * Builds the CFG of a random method of int assignments, copies
+     * and conditional jumps to random targets. All statements are
+     * reachable, as every jump is conditional.
+     */
+    public static CFG<Stmt> makeRandom(Random random, int nVars, int nStmts) {
+        return makeRandom(random, nVars, nStmts, nStmts);
+    }
+
+    /**
+     * Builds the CFG like {@link #makeRandom(Random, int, int)}, but the
+     * statements are split into segments of given size, and the jumps
+     * only target the statements in the same segment. Loops thus stay
+     * inside the segments, and the CFG has many strongly connected
+     * components.
+     */
+    public static CFG<Stmt> makeRandom(
+            Random random, int nVars, int nStmts, int segmentSize) {
+        List<Var> vars = makeIntVars(nVars);
+        List<Stmt> stmts = new ArrayList<>(nStmts);
+        List<If> ifs = new ArrayList<>();
+        for (int i = 0; i < nStmts - 1; ++i) {
+            Var var = vars.get(random.nextInt(nVars));
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    If ifStmt = new If(new ConditionExp(ConditionExp.Op.LT,
+                            var, vars.get(random.nextInt(nVars))));
+                    ifs.add(ifStmt);
+                    stmts.add(ifStmt);
+                }
+                case 1 -> stmts.add(new Copy(var, vars.get(random.nextInt(nVars))));
+                default -> stmts.add(new AssignLiteral(var,
+                        IntLiteral.get(random.nextInt(3))));
+            }
+        }
+        stmts.add(new Return());
+        for (If ifStmt : ifs) {
+            int start = stmts.indexOf(ifStmt) / segmentSize * segmentSize;
+            int end = Math.min(start + segmentSize, nStmts);
+            ifStmt.setTarget(stmts.get(start + random.nextInt(end - start)));
+        }
+        return build(vars, stmts);
+    }
+}
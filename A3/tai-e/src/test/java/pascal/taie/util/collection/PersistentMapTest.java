@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class PersistentMapTest {
+
+    /**
+     * Key whose hash code is chosen by the test, so that keys can
+     * collide, or share long prefixes of hash bits.
+     */
+    private record Key(String name, int hash) {
+
+        /**
+         * @return a key whose hash, as spread by {@link PersistentMap},
+         * is given value.
+         */
+        static Key withSpreadHash(String name, int spread) {
+            return new Key(name, spread ^ (spread >>> 16));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PersistentMap<String, Integer> map = new PersistentMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put("a", 1));
+        Assert.assertNull(map.put("b", 2));
+        Assert.assertEquals(1, (int) map.put("a", 10));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(10, (int) map.get("a"));
+        Assert.assertTrue(map.containsKey("b"));
+        Assert.assertNull(map.get("c"));
+        Assert.assertNull(map.get(null));
+        Assert.assertEquals(2, (int) map.remove("b"));
+        Assert.assertNull(map.remove("b"));
+        Assert.assertNull(map.remove(null));
+        Assert.assertEquals(Map.of("a", 10), map);
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testNullsRejected() {
+        PersistentMap<String, Integer> map = new PersistentMap<>();
+        try {
+            map.put(null, 1);
+            Assert.fail("expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            map.put("a", null);
+            Assert.fail("expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIteration() {
+        PersistentMap<Integer, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < 1000; ++i) {
+            map.put(i, i * i);
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+            Assert.assertEquals(e.getKey() * e.getKey(), (int) e.getValue());
+            Assert.assertTrue(seen.add(e.getKey()));
+        }
+        Assert.assertEquals(1000, seen.size());
+        Map<Integer, Integer> viaForEach = new HashMap<>();
+        map.forEach(viaForEach::put);
+        Assert.assertEquals(map, viaForEach);
+        Assert.assertEquals(viaForEach, map);
+        Assert.assertEquals(viaForEach.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testIteratorIsSnapshot() {
+        PersistentMap<Integer, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < 100; ++i) {
+            map.put(i, i);
+        }
+        Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator();
+        map.clear();
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            ++count;
+        }
+        Assert.assertEquals(100, count);
+    }
+
+    @Test
+    public void testHashCollisions() {
+        PersistentMap<Key, Integer> map = new PersistentMap<>();
+        Key a = new Key("a", 42);
+        Key b = new Key("b", 42);
+        Key c = new Key("c", 42);
+        Key d = new Key("d", 43);
+        map.put(a, 1);
+        map.put(b, 2);
+        map.put(c, 3);
+        map.put(d, 4);
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(2, (int) map.get(b));
+        Assert.assertNull(map.get(new Key("e", 42)));
+        Assert.assertEquals(2, (int) map.put(b, 20));
+        Assert.assertEquals(2, (int) map.remove(a) + 1);
+        Assert.assertNull(map.get(a));
+        Assert.assertEquals(20, (int) map.get(b));
+        map.remove(c);
+        map.remove(b);
+        Assert.assertEquals(Map.of(d, 4), map);
+        // maps built in different orders have the same trie
+        PersistentMap<Key, Integer> m1 = new PersistentMap<>();
+        PersistentMap<Key, Integer> m2 = new PersistentMap<>();
+        m1.put(a, 1);
+        m1.put(b, 2);
+        m2.put(b, 2);
+        m2.put(a, 1);
+        Assert.assertEquals(m1, m2);
+    }
+
+    @Test
+    public void testDeepTrie() {
+        // the hashes only differ in the highest bits,
+        // so the keys are split at the deepest levels
+        Key k0 = Key.withSpreadHash("k0", 0);
+        Key k1 = Key.withSpreadHash("k1", 1 << 31);
+        Key k2 = Key.withSpreadHash("k2", 1 << 30);
+        Key k3 = Key.withSpreadHash("k3", (1 << 31) | (1 << 30));
+        PersistentMap<Key, Integer> map = new PersistentMap<>();
+        map.put(k0, 0);
+        map.put(k1, 1);
+        map.put(k2, 2);
+        map.put(k3, 3);
+        Assert.assertEquals(Map.of(k0, 0, k1, 1, k2, 2, k3, 3), map);
+        Assert.assertEquals(1, (int) map.remove(k1));
+        Assert.assertEquals(0, (int) map.remove(k0));
+        Assert.assertEquals(Map.of(k2, 2, k3, 3), map);
+        map.remove(k2);
+        map.remove(k3);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertEquals(new PersistentMap<Key, Integer>(), map);
+    }
+
+    @Test
+    public void testStructuralSharing() throws ReflectiveOperationException {
+        PersistentMap<Integer, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < 100; ++i) {
+            map.put(i, i);
+        }
+        PersistentMap<Integer, Integer> copy = map.copy();
+        Assert.assertSame(rootOf(map), rootOf(copy));
+        // equal updates do not change the trie
+        copy.put(5, 5);
+        Assert.assertSame(rootOf(map), rootOf(copy));
+        // removing an absent key does not change the trie
+        copy.remove(1000);
+        Assert.assertSame(rootOf(map), rootOf(copy));
+        copy.put(5, -5);
+        Assert.assertNotSame(rootOf(map), rootOf(copy));
+        Assert.assertEquals(5, (int) map.get(5));
+        Assert.assertEquals(-5, (int) copy.get(5));
+        map.remove(6);
+        Assert.assertEquals(6, (int) copy.get(6));
+        Assert.assertEquals(99, map.size());
+        Assert.assertEquals(100, copy.size());
+        copy.put(5, 5);
+        copy.remove(6);
+        Assert.assertEquals(map, copy);
+        // copying through the constructor shares the trie as well
+        Assert.assertSame(rootOf(map), rootOf(new PersistentMap<>(map)));
+    }
+
+    private static Object rootOf(PersistentMap<?, ?> map)
+            throws ReflectiveOperationException {
+        Field root = PersistentMap.class.getDeclaredField("root");
+        root.setAccessible(true);
+        return root.get(map);
+    }
+
+    /**
+     * Applies random updates to a family of copies, with many colliding
+     * keys, and checks each map against a {@link HashMap}.
+     */
+    @Test
+    public void testRandomAgainstHashMap() {
+        Random random = new Random(0);
+        Key[] keys = new Key[300];
+        for (int i = 0; i < keys.length; ++i) {
+            // few distinct hashes, so collisions are frequent
+            keys[i] = new Key("k" + i, random.nextInt(64) * 0x9E3779B9);
+        }
+        PersistentMap<Key, Integer>[] maps = newArray(8);
+        Map<Key, Integer>[] expected = newExpectedArray(8);
+        maps[0] = new PersistentMap<>();
+        expected[0] = new HashMap<>();
+        int n = 1;
+        for (int step = 0; step < 20000; ++step) {
+            int i = random.nextInt(n);
+            Key key = keys[random.nextInt(keys.length)];
+            int op = random.nextInt(10);
+            if (op == 0 && n < maps.length) {
+                maps[n] = maps[i].copy();
+                expected[n] = new HashMap<>(expected[i]);
+                ++n;
+            } else if (op <= 3) {
+                Assert.assertEquals(expected[i].remove(key), maps[i].remove(key));
+            } else {
+                int value = random.nextInt(5);
+                Assert.assertEquals(expected[i].put(key, value), maps[i].put(key, value));
+            }
+            Assert.assertEquals(expected[i].size(), maps[i].size());
+        }
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(expected[i], maps[i]);
+            Assert.assertEquals(maps[i], expected[i]);
+            Assert.assertEquals(maps[i], new PersistentMap<>(expected[i]));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PersistentMap<Key, Integer>[] newArray(int n) {
+        return (PersistentMap<Key, Integer>[]) new PersistentMap<?, ?>[n];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Integer>[] newExpectedArray(int n) {
+        return (Map<Key, Integer>[]) new Map<?, ?>[n];
+    }
+}
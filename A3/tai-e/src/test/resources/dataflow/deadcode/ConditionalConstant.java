@@ -0,0 +1,19 @@
+class ConditionalConstant {
+
+    int branch() {
+        int x = 10;
+        int y;
+        if (x > 1) {
+            y = 2;
+        } else {
+            y = 3; // unreachable branch
+        }
+        int z;
+        if (y > 2) {
+            z = 100; // unreachable branch, y is NAC for plain CP
+        } else {
+            z = 200;
+        }
+        return z;
+    }
+}
@@ -0,0 +1,12 @@
+class LoopRange {
+
+    int loop() {
+        int x = 0;
+        for (int i = 0; i < 10; i++) {
+            if (i > 20) {
+                x = 1; // unreachable branch, i is NAC for constprop
+            }
+        }
+        return x;
+    }
+}
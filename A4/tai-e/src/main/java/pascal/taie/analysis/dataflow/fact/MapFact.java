@@ -22,7 +22,7 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
-import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentMap;
 
 import java.util.Comparator;
 import java.util.Map;
@@ -34,6 +34,10 @@ import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * The mappings are held by a {@link PersistentMap}, so that copying
+ * a fact takes constant time and the copies share their structure
+ * until they are updated.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -51,7 +55,7 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = new PersistentMap<>(map);
     }
 
     /**
@@ -87,6 +91,11 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (map.isEmpty()) {
+            // share the structure of given fact
+            map.putAll(fact.map);
+            return !map.isEmpty();
+        }
         boolean changed = false;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
             changed |= update(entry.getKey(), entry.getValue());
@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.MetricsSink;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
@@ -34,6 +35,8 @@ import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
 
+import java.nio.file.Path;
+
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
  *
@@ -121,7 +124,12 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        // option "metrics" gives the file which the per-method metrics
+        // of the solver are appended to as JSON lines
+        String metricsFile = getOptions().getString("metrics");
+        solver = new InterSolver<>(this, icfg, metricsFile != null
+                ? MetricsSink.jsonLines(Path.of(metricsFile), getId())
+                : null);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
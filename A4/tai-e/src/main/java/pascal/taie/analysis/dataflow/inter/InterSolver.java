@@ -23,13 +23,17 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.MetricsSink;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.SetQueue;
 
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -50,19 +54,71 @@ class InterSolver<Method, Node, Fact> {
 
     private Queue<Node> workList;
 
+    /**
+     * Sink of the metrics of each method, or null if the metrics
+     * are not collected.
+     */
+    private final MetricsSink sink;
+
+    /**
+     * Metrics of each method, which are collected only if a sink is given.
+     */
+    private Map<Method, SolverMetrics> metrics;
+
+    /**
+     * Number of the nodes of each method in the work-list, which is
+     * kept only if a sink is given, for the high-water mark of the
+     * work-list of each method.
+     */
+    private Map<Method, Integer> workListSizes;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, null);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, MetricsSink sink) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.sink = sink;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
+        if (sink != null) {
+            initializeMetrics();
+        }
         initialize();
         doSolve();
+        if (sink != null) {
+            reportMetrics();
+        }
         return result;
     }
 
+    private void initializeMetrics() {
+        Map<Method, Integer> nodes = Maps.newMap();
+        for (Node node : icfg) {
+            nodes.merge(icfg.getContainingMethodOf(node), 1, Integer::sum);
+        }
+        metrics = Maps.newMap(nodes.size());
+        nodes.forEach((method, n) -> metrics.put(method,
+                new SolverMetrics(String.valueOf(method), "inter-worklist", n)));
+        workListSizes = Maps.newMap(nodes.size());
+    }
+
+    private void reportMetrics() {
+        for (Node node : icfg) {
+            SolverMetrics m = metrics.get(icfg.getContainingMethodOf(node));
+            m.recordFact(result.getInFact(node));
+            m.recordFact(result.getOutFact(node));
+        }
+        metrics.values().forEach(sink::accept);
+        // the whole program is solved at once, so its metrics are complete
+        MetricsSink.flushAll();
+    }
+
     /**
      * 你需要在 initialize() 中初始化 ICFG 节点的 IN/OUT fact，
      *      2. 在初始化的过程中，过程间求解器需要初始化程序中所有的 IN/OUT fact，
@@ -99,26 +155,55 @@ class InterSolver<Method, Node, Fact> {
 
         workList = new LinkedList<>();
         for (Node node: icfg) {
-            workList.offer(node);
+            offer(node);
         }
 
         // 在过程间数据流分析中，为了计算一个节点的 IN fact，我们需要先对该节点的前驱的 OUT fact 应用 edge transfer，然后把得到结果 meet 进该节点的 IN fact。
         while (!workList.isEmpty()) {
             // Pick a basic block B from Worklist
             Node node = workList.poll();
+            SolverMetrics m = null;
+            long start = 0;
+            if (metrics != null) {
+                Method method = icfg.getContainingMethodOf(node);
+                m = metrics.get(method);
+                start = System.nanoTime();
+                m.visitNode(workListSizes.merge(method, -1, Integer::sum));
+            }
             // IN[B] = ⊔P a predecessor of B OUT[P];
             for (ICFGEdge<Node> inEdge: icfg.getInEdgesOf(node)) {
+                if (m != null) {
+                    m.countEdgeTransfer();
+                    m.countMeet();
+                }
                 analysis.meetInto(
                         analysis.transferEdge(inEdge, result.getOutFact(inEdge.getSource())),
                         result.getInFact(node));
             }
             // OUT[B] = genB U (IN[B] - killB);
+            if (m != null) {
+                m.countTransfer();
+            }
             boolean outChanged = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+            if (m != null) {
+                m.addNanos(System.nanoTime() - start);
+            }
             if (outChanged) {
                 for (Node suc: icfg.getSuccsOf(node)) {
-                    workList.offer(suc);
+                    offer(suc);
                 }
             }
         }
     }
+
+    /**
+     * Adds given node to the work-list, and counts it in the work-list
+     * of its method if the metrics are collected.
+     */
+    private void offer(Node node) {
+        workList.offer(node);
+        if (workListSizes != null) {
+            workListSizes.merge(icfg.getContainingMethodOf(node), 1, Integer::sum);
+        }
+    }
 }
@@ -107,21 +107,12 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
             }
             case VIRTUAL, INTERFACE -> {
                 // c = declared type of receiver variable at callSite
-                Queue<JClass> queue = new LinkedList<>();
-                queue.offer(targetMethodClass);
-                while (!queue.isEmpty()) {
-                    JClass jClass = queue.poll();
+                // 遍历 c 及其所有子类（含子接口及其实现类）
+                for (JClass jClass : hierarchy.getAllSubclassesOf(targetMethodClass)) {
                     JMethod jMethod = dispatch(jClass, targetMethodSignature);
                     if (null != jMethod) {
                         T.add(jMethod);
                     }
-                    // add subclass
-                    if (jClass.isInterface()) {
-                        queue.addAll(hierarchy.getDirectImplementorsOf(jClass));
-                        queue.addAll(hierarchy.getDirectSubinterfacesOf(jClass));
-                    } else {
-                        queue.addAll(hierarchy.getDirectSubclassesOf(jClass));
-                    }
                 }
             }
             case DYNAMIC, OTHER -> {
@@ -141,19 +132,15 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * Dispatch(𝑐, 𝑚) =
      * 1. return m', if c contains non-abstract method m' that has the same name and descriptor as m
      * 2. Dispatch(c', m), c' is superclass of c
+     * If no such m' exists, the default method m' in the superinterfaces
+     * of c is returned, as the JVM does.
      *
      * @return the dispatched target method, or null if no satisfying method
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
         // TODO - finish me
-        JMethod jMethod = jclass.getDeclaredMethod(subsignature);
-        if (null != jMethod && !jMethod.isAbstract()) {
-            return jMethod;
-        }
-        if (jclass.getSuperClass() != null){
-            return dispatch(jclass.getSuperClass(), subsignature);
-        }
-        return null;
+        // 由 class hierarchy 查找（含接口的 default 方法），结果缓存在 jclass 的分派表中
+        return hierarchy.dispatch(jclass, subsignature);
     }
 }
@@ -24,6 +24,7 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.config.Configs;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.exp.InvokeDynamic;
@@ -32,13 +33,20 @@ import pascal.taie.ir.exp.InvokeInterface;
 import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -73,6 +81,36 @@ public final class CallGraphs {
         return getCallKind(invoke.getInvokeExp());
     }
 
+    /**
+     * Resolves the callee of a call site on a receiver object of given type,
+     * by the dispatch tables of {@link ClassHierarchy#dispatch}.
+     * The type is ignored for static and special calls.
+     *
+     * @return the callee, or null if it cannot be resolved.
+     */
+    public static @Nullable
+    JMethod resolveCallee(Type type, Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        return switch (getCallKind(callSite)) {
+            case VIRTUAL, INTERFACE -> {
+                // arrays dispatch their methods on java.lang.Object
+                JClass receiverClass = type instanceof ClassType classType
+                        ? classType.getJClass()
+                        : hierarchy.getJREClass(ClassNames.OBJECT);
+                yield receiverClass != null
+                        ? hierarchy.dispatch(receiverClass, methodRef.getSubsignature())
+                        : null;
+            }
+            case SPECIAL -> hierarchy.dispatch(
+                    methodRef.getDeclaringClass(), methodRef.getSubsignature());
+            case STATIC -> methodRef.getDeclaringClass()
+                    .getDeclaredMethod(methodRef.getSubsignature());
+            default -> throw new AnalysisException(
+                    "Cannot resolve Invoke: " + callSite);
+        };
+    }
+
     /**
      * Dumps call graph to dot file.
      */
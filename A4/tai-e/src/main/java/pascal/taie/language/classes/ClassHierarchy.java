@@ -75,6 +75,21 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if subclass is a (direct or indirect) subclass of
+     * superclass, or subclass implements superclass, or the two classes
+     * are the same. Every class and interface is a subclass of java.lang.Object.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @return the given class and its direct and indirect subclasses.
+     * If the given class is an interface, the result consists of its
+     * direct and indirect subinterfaces (including itself), and the
+     * implementors of them and their subclasses.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -87,6 +102,17 @@ public interface ClassHierarchy {
 
     @Nullable JMethod resolveMethod(MethodRef methodRef);
 
+    /**
+     * Dispatches a virtual call on an object of given class: looks up the
+     * non-abstract method of given subsignature in the class and its
+     * superclasses, and then the default methods in their superinterfaces.
+     * The results are memoized in the dispatch table of the class,
+     * and this method can be called concurrently.
+     *
+     * @return the dispatched method, or null if no such method is found.
+     */
+    @Nullable JMethod dispatch(JClass receiverClass, Subsignature subsignature);
+
     /**
      * Obtains a method declared in a JRE class by its signature.
      *
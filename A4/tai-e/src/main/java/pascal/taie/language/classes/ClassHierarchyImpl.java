@@ -65,6 +65,12 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Index for the queries of indirect subclasses, which is built on
+     * the first such query, and dropped when a class is added.
+     */
+    private volatile TypeConeIndex typeConeIndex;
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -97,6 +103,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public void addClass(JClass jclass) {
+        typeConeIndex = null;
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
@@ -160,6 +167,30 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        return getTypeConeIndex().isSubclass(superclass, subclass);
+    }
+
+    @Override
+    public Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        return getTypeConeIndex().getAllSubclassesOf(jclass);
+    }
+
+    private TypeConeIndex getTypeConeIndex() {
+        TypeConeIndex index = typeConeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = typeConeIndex;
+                if (index == null) {
+                    index = new TypeConeIndex(this);
+                    typeConeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
@@ -193,6 +224,13 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return null;
     }
 
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass receiverClass, Subsignature subsignature) {
+        return receiverClass.getDispatchedMethod(subsignature,
+                s -> lookupMethod(receiverClass, s, false));
+    }
+
     private JMethod lookupMethod(JClass jclass, Subsignature subsignature,
                                  boolean allowAbstract) {
         for (JClass c = jclass; c != null; c = c.getSuperClass()) {
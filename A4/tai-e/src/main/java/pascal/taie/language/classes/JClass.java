@@ -33,7 +33,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -67,6 +71,13 @@ public class JClass extends AbstractResultHolder implements Annotated {
 
     private AnnotationHolder annotationHolder;
 
+    /**
+     * Memoized results of virtual dispatch on this class,
+     * see {@link ClassHierarchy#dispatch(JClass, Subsignature)}.
+     */
+    private final ConcurrentMap<Subsignature, Optional<JMethod>> dispatchTable
+            = new ConcurrentHashMap<>();
+
     /**
      * If this class is application class.
      */
@@ -229,6 +240,18 @@ public class JClass extends AbstractResultHolder implements Annotated {
         return declaredMethods.get(subSignature);
     }
 
+    /**
+     * @return the method dispatched on this class for given subsignature,
+     * which is looked up by given function at the first query of the
+     * subsignature, and memoized for the later queries.
+     */
+    @Nullable
+    JMethod getDispatchedMethod(Subsignature subsignature,
+                                Function<Subsignature, JMethod> lookup) {
+        return dispatchTable.computeIfAbsent(subsignature,
+                s -> Optional.ofNullable(lookup.apply(s))).orElse(null);
+    }
+
     public @Nullable
     JMethod getClinit() {
         return getDeclaredMethod(Subsignature.getClinit());
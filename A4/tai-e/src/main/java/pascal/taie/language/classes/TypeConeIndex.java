@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static pascal.taie.util.collection.Sets.newHybridSet;
+
+/**
+ * Index of the subclasses of the classes in a {@link ClassHierarchy}.
+ * <p>
+ * The (non-interface) classes are numbered by a preorder traversal
+ * of the tree formed by their superclasses, thus the subclasses of each
+ * class take a contiguous range of numbers, which starts from the number
+ * of the class itself. The subclasses of each interface, i.e.,
+ * its implementors and their subclasses, are kept as a bit set of these
+ * numbers, which is computed when the interface is first queried.
+ * <p>
+ * The index is immutable once built, except for the memoized results of
+ * interfaces, which are safe to compute concurrently.
+ */
+final class TypeConeIndex {
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * The classes ordered by their numbers.
+     */
+    private final JClass[] classes;
+
+    private final Map<JClass, Integer> numbers;
+
+    /**
+     * ends[i] is the number after the last subclass of classes[i].
+     */
+    private final int[] ends;
+
+    private final ConcurrentMap<JClass, InterfaceCone> interfaceCones
+            = new ConcurrentHashMap<>();
+
+    TypeConeIndex(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        List<JClass> allClasses = hierarchy.allClasses()
+                .filter(c -> !c.isInterface())
+                .toList();
+        classes = new JClass[allClasses.size()];
+        numbers = Maps.newMap(allClasses.size());
+        ends = new int[allClasses.size()];
+        int next = 0;
+        for (JClass jclass : allClasses) {
+            if (!numbers.containsKey(jclass)) {
+                JClass root = jclass;
+                while (root.getSuperClass() != null) {
+                    root = root.getSuperClass();
+                }
+                next = number(root, next);
+            }
+        }
+    }
+
+    /**
+     * Numbers the classes in the tree rooted by given class,
+     * starting from given number.
+     *
+     * @return the number after the last class in the tree.
+     */
+    private int number(JClass root, int next) {
+        int number = next++;
+        classes[number] = root;
+        numbers.put(root, number);
+        for (JClass subclass : hierarchy.getDirectSubclassesOf(root)) {
+            next = number(subclass, next);
+        }
+        ends[number] = next;
+        return next;
+    }
+
+    /**
+     * @return true if subclass is in {@link #getAllSubclassesOf(JClass)}
+     * of superclass, or superclass is java.lang.Object.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass == subclass) {
+            return true;
+        }
+        if (superclass.isInterface()) {
+            InterfaceCone cone = getInterfaceCone(superclass);
+            return subclass.isInterface()
+                    ? cone.subinterfaces().contains(subclass)
+                    : cone.implementors().get(numbers.get(subclass));
+        } else if (subclass.isInterface()) {
+            return superclass.getName().equals(ClassNames.OBJECT);
+        } else {
+            int number = numbers.get(superclass);
+            int subNumber = numbers.get(subclass);
+            return number <= subNumber && subNumber < ends[number];
+        }
+    }
+
+    /**
+     * @return the given class and its direct and indirect subclasses.
+     * If the given class is an interface, the result consists of its
+     * direct and indirect subinterfaces (including itself), and the
+     * implementors of them and their subclasses.
+     */
+    List<JClass> getAllSubclassesOf(JClass jclass) {
+        if (jclass.isInterface()) {
+            return getInterfaceCone(jclass).all();
+        } else {
+            int number = numbers.get(jclass);
+            return Collections.unmodifiableList(
+                    Arrays.asList(classes).subList(number, ends[number]));
+        }
+    }
+
+    private InterfaceCone getInterfaceCone(JClass iface) {
+        InterfaceCone cone = interfaceCones.get(iface);
+        if (cone == null) {
+            // may be computed by multiple threads, and all results are equal
+            cone = computeInterfaceCone(iface);
+            InterfaceCone prev = interfaceCones.putIfAbsent(iface, cone);
+            if (prev != null) {
+                cone = prev;
+            }
+        }
+        return cone;
+    }
+
+    private InterfaceCone computeInterfaceCone(JClass iface) {
+        Set<JClass> subinterfaces = newHybridSet();
+        List<JClass> all = new ArrayList<>();
+        List<JClass> workList = new ArrayList<>();
+        subinterfaces.add(iface);
+        workList.add(iface);
+        BitSet implementors = new BitSet(classes.length);
+        while (!workList.isEmpty()) {
+            JClass i = workList.remove(workList.size() - 1);
+            all.add(i);
+            for (JClass subinterface : hierarchy.getDirectSubinterfacesOf(i)) {
+                if (subinterfaces.add(subinterface)) {
+                    workList.add(subinterface);
+                }
+            }
+            for (JClass implementor : hierarchy.getDirectImplementorsOf(i)) {
+                int number = numbers.get(implementor);
+                implementors.set(number, ends[number]);
+            }
+        }
+        implementors.stream().forEach(i -> all.add(classes[i]));
+        return new InterfaceCone(subinterfaces, implementors,
+                Collections.unmodifiableList(all));
+    }
+
+    /**
+     * Subclasses of an interface.
+     *
+     * @param subinterfaces the direct and indirect subinterfaces,
+     *                      including the interface itself
+     * @param implementors  numbers of the implementors and their subclasses
+     * @param all           all of the above
+     */
+    private record InterfaceCone(Set<JClass> subinterfaces,
+                                 BitSet implementors,
+                                 List<JClass> all) {
+    }
+}
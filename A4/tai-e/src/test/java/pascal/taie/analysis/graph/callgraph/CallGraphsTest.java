@@ -0,0 +1,175 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInterface;
+import pascal.taie.ir.exp.InvokeSpecial;
+import pascal.taie.ir.exp.InvokeStatic;
+import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.classes.TestHierarchy;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.VoidType;
+
+import java.util.List;
+
+public class CallGraphsTest {
+
+    private TestHierarchy h;
+
+    private JMethod container;
+
+    /**
+     * Builds
+     * <pre>
+     * interface Greeter { default void greet(); abstract void name(); }
+     * interface Polite extends Greeter {}
+     * interface Friendly extends Greeter {}
+     * class Person implements Polite, Friendly { void name(); }
+     * class Student extends Person { void name(); }
+     * class Robot implements Greeter { void greet(); void name(); }
+     * class Main { static void main(); }
+     * </pre>
+     * where Person inherits greet() through both sides of a diamond.
+     */
+    @Before
+    public void setUp() {
+        h = new TestHierarchy("hashCode");
+        h.addInterface("Greeter", List.of(), "greet", "abstract name");
+        h.addInterface("Polite", "Greeter");
+        h.addInterface("Friendly", "Greeter");
+        h.addClass("Person", null, List.of("Polite", "Friendly"), "name");
+        h.addClass("Student", "Person", List.of(), "name");
+        h.addClass("Robot", null, List.of("Greeter"), "greet", "name");
+        container = h.addClass("Main", null, List.of(), "static main")
+                .getDeclaredMethod("main");
+        World world = new World();
+        world.setClassHierarchy(h.getHierarchy());
+        World.set(world);
+    }
+
+    @After
+    public void tearDown() {
+        World.reset();
+    }
+
+    private JClass getClass(String name) {
+        return h.loadClass(name);
+    }
+
+    private JMethod getMethod(String className, String methodName) {
+        return getClass(className).getDeclaredMethod(methodName);
+    }
+
+    private static MethodRef makeRef(JClass jclass, String name, boolean isStatic) {
+        return MethodRef.get(jclass, name, List.of(), VoidType.VOID, isStatic);
+    }
+
+    private Invoke makeInvoke(String kind, String className, String methodName) {
+        JClass jclass = getClass(className);
+        MethodRef ref = makeRef(jclass, methodName, kind.equals("static"));
+        Var base = new Var(container, "v", jclass.getType(), 0);
+        InvokeExp invokeExp = switch (kind) {
+            case "virtual" -> new InvokeVirtual(ref, base, List.of());
+            case "interface" -> new InvokeInterface(ref, base, List.of());
+            case "special" -> new InvokeSpecial(ref, base, List.of());
+            case "static" -> new InvokeStatic(ref, List.of());
+            default -> throw new IllegalArgumentException(kind);
+        };
+        return new Invoke(container, invokeExp);
+    }
+
+    private JMethod resolve(String receiver, Invoke callSite) {
+        return CallGraphs.resolveCallee(getClass(receiver).getType(), callSite);
+    }
+
+    @Test
+    public void testVirtualCall() {
+        Invoke callSite = makeInvoke("virtual", "Person", "name");
+        Assert.assertEquals(getMethod("Person", "name"), resolve("Person", callSite));
+        Assert.assertEquals(getMethod("Student", "name"), resolve("Student", callSite));
+    }
+
+    @Test
+    public void testInheritedDefaultMethod() {
+        JMethod greet = getMethod("Greeter", "greet");
+        Assert.assertEquals(greet,
+                resolve("Person", makeInvoke("virtual", "Person", "greet")));
+        Assert.assertEquals(greet,
+                resolve("Student", makeInvoke("virtual", "Person", "greet")));
+        Invoke callSite = makeInvoke("interface", "Greeter", "greet");
+        Assert.assertEquals(greet, resolve("Person", callSite));
+        Assert.assertEquals(getMethod("Robot", "greet"), resolve("Robot", callSite));
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        // the abstract method is never the callee
+        Invoke callSite = makeInvoke("interface", "Greeter", "name");
+        Assert.assertNull(resolve("Greeter", callSite));
+        Assert.assertEquals(getMethod("Robot", "name"), resolve("Robot", callSite));
+    }
+
+    @Test
+    public void testSpecialAndStaticCalls() {
+        // the receiver type is ignored
+        Assert.assertEquals(getMethod("Greeter", "greet"),
+                resolve("Robot", makeInvoke("special", "Student", "greet")));
+        Assert.assertEquals(container,
+                resolve("Person", makeInvoke("static", "Main", "main")));
+    }
+
+    @Test
+    public void testArrayReceiver() {
+        JClass object = getClass(ClassNames.OBJECT);
+        Type arrayType = new ArrayType(object.getType(), 1, object.getType());
+        Invoke callSite = makeInvoke("virtual", ClassNames.OBJECT, "hashCode");
+        Assert.assertEquals(object.getDeclaredMethod("hashCode"),
+                CallGraphs.resolveCallee(arrayType, callSite));
+    }
+
+    @Test
+    public void testMemoized() {
+        Invoke callSite = makeInvoke("virtual", "Person", "missing");
+        Assert.assertNull(resolve("Student", callSite));
+        Assert.assertNull(resolve("Student", callSite));
+        Subsignature greet = getMethod("Greeter", "greet").getSubsignature();
+        JMethod callee = h.getHierarchy().dispatch(getClass("Student"), greet);
+        Assert.assertSame(callee, h.getHierarchy().dispatch(getClass("Student"), greet));
+        Assert.assertSame(callee,
+                resolve("Student", makeInvoke("virtual", "Student", "greet")));
+    }
+}
@@ -50,4 +50,9 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testDefaultMethod() {
+        test("DefaultMethod");
+    }
 }
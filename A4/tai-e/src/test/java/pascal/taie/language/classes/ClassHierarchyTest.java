@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ClassHierarchyTest {
+
+    /**
+     * Length of the deep chain of subclasses.
+     */
+    private static final int DEPTH = 200;
+
+    /**
+     * Builds
+     * <pre>
+     * interface I; interface J extends I; interface K;
+     * interface L extends J, K;
+     * class A implements J; class B extends A; class C extends B;
+     * class D implements K; class E extends D implements L;
+     * class F extends D;
+     * class Chain0; class Chain(i) extends Chain(i-1) implements K (i = 1..);
+     * </pre>
+     */
+    private static TestHierarchy build() {
+        TestHierarchy h = new TestHierarchy();
+        h.addInterface("I");
+        h.addInterface("J", "I");
+        h.addInterface("K");
+        h.addInterface("L", "J", "K");
+        h.addClass("A", null, "J");
+        h.addClass("B", "A");
+        h.addClass("C", "B");
+        h.addClass("D", null, "K");
+        h.addClass("E", "D", "L");
+        h.addClass("F", "D");
+        h.addClass("Chain0", null);
+        for (int i = 1; i < DEPTH; ++i) {
+            h.addClass("Chain" + i, "Chain" + (i - 1), "K");
+        }
+        return h;
+    }
+
+    /**
+     * Computes the subclasses of given class from the direct subclasses,
+     * subinterfaces and implementors, as CHA did before the index.
+     */
+    private static Set<JClass> walkSubclasses(ClassHierarchy hierarchy, JClass jclass) {
+        Set<JClass> result = new HashSet<>();
+        Deque<JClass> workList = new ArrayDeque<>();
+        workList.add(jclass);
+        while (!workList.isEmpty()) {
+            JClass c = workList.poll();
+            if (result.add(c)) {
+                if (c.isInterface()) {
+                    workList.addAll(hierarchy.getDirectSubinterfacesOf(c));
+                    workList.addAll(hierarchy.getDirectImplementorsOf(c));
+                } else {
+                    workList.addAll(hierarchy.getDirectSubclassesOf(c));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<JClass> classes(TestHierarchy h, String... names) {
+        Set<JClass> result = new HashSet<>();
+        for (String name : names) {
+            result.add(h.loadClass(name));
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetAllSubclassesOf() {
+        TestHierarchy h = build();
+        ClassHierarchy hierarchy = h.getHierarchy();
+        Assert.assertEquals(classes(h, "I", "J", "L", "A", "B", "C", "E"),
+                new HashSet<>(hierarchy.getAllSubclassesOf(h.loadClass("I"))));
+        Assert.assertEquals(classes(h, "J", "L", "A", "B", "C", "E"),
+                new HashSet<>(hierarchy.getAllSubclassesOf(h.loadClass("J"))));
+        Assert.assertEquals(classes(h, "A", "B", "C"),
+                new HashSet<>(hierarchy.getAllSubclassesOf(h.loadClass("A"))));
+        Assert.assertEquals(classes(h, "C"),
+                new HashSet<>(hierarchy.getAllSubclassesOf(h.loadClass("C"))));
+        // E is reached from K both as a subclass of D and an implementor of L
+        List<JClass> subclassesOfK = List.copyOf(
+                hierarchy.getAllSubclassesOf(h.loadClass("K")));
+        Assert.assertEquals(new HashSet<>(subclassesOfK).size(), subclassesOfK.size());
+        Assert.assertTrue(subclassesOfK.contains(h.loadClass("E")));
+        // K and L, D and its subclasses, and the chain but Chain0
+        Assert.assertEquals(2 + 3 + DEPTH - 1, subclassesOfK.size());
+        for (JClass jclass : h.getLoadedClasses()) {
+            Assert.assertEquals(jclass.toString(),
+                    walkSubclasses(hierarchy, jclass),
+                    new HashSet<>(hierarchy.getAllSubclassesOf(jclass)));
+        }
+    }
+
+    @Test
+    public void testObject() {
+        TestHierarchy h = build();
+        ClassHierarchy hierarchy = h.getHierarchy();
+        JClass object = h.loadClass(ClassNames.OBJECT);
+        // the subclasses of Object are all classes, but not the interfaces
+        Set<JClass> classes = new HashSet<>();
+        for (JClass jclass : h.getLoadedClasses()) {
+            if (!jclass.isInterface()) {
+                classes.add(jclass);
+            }
+            Assert.assertTrue(jclass.toString(), hierarchy.isSubclass(object, jclass));
+            Assert.assertEquals(jclass == object,
+                    hierarchy.isSubclass(jclass, object));
+        }
+        Assert.assertEquals(classes, new HashSet<>(hierarchy.getAllSubclassesOf(object)));
+    }
+
+    @Test
+    public void testIsSubclass() {
+        TestHierarchy h = build();
+        ClassHierarchy hierarchy = h.getHierarchy();
+        JClass i = h.loadClass("I"), j = h.loadClass("J"), k = h.loadClass("K");
+        JClass a = h.loadClass("A"), c = h.loadClass("C"), e = h.loadClass("E");
+        Assert.assertTrue(hierarchy.isSubclass(i, j));
+        Assert.assertFalse(hierarchy.isSubclass(j, i));
+        Assert.assertTrue(hierarchy.isSubclass(i, h.loadClass("L")));
+        Assert.assertTrue(hierarchy.isSubclass(i, c));
+        Assert.assertTrue(hierarchy.isSubclass(i, e));
+        Assert.assertTrue(hierarchy.isSubclass(k, e));
+        Assert.assertFalse(hierarchy.isSubclass(k, a));
+        Assert.assertFalse(hierarchy.isSubclass(a, i));
+        Assert.assertTrue(hierarchy.isSubclass(a, c));
+        Assert.assertFalse(hierarchy.isSubclass(c, a));
+        Assert.assertFalse(hierarchy.isSubclass(h.loadClass("F"), e));
+        for (JClass sup : h.getLoadedClasses()) {
+            Set<JClass> subclasses = walkSubclasses(hierarchy, sup);
+            for (JClass sub : h.getLoadedClasses()) {
+                if (!sup.getName().equals(ClassNames.OBJECT)) {
+                    Assert.assertEquals(sup + " :> " + sub,
+                            subclasses.contains(sub), hierarchy.isSubclass(sup, sub));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeepChain() {
+        TestHierarchy h = build();
+        ClassHierarchy hierarchy = h.getHierarchy();
+        JClass first = h.loadClass("Chain0");
+        JClass middle = h.loadClass("Chain" + DEPTH / 2);
+        JClass last = h.loadClass("Chain" + (DEPTH - 1));
+        Assert.assertEquals(DEPTH, hierarchy.getAllSubclassesOf(first).size());
+        Assert.assertEquals(DEPTH - DEPTH / 2,
+                hierarchy.getAllSubclassesOf(middle).size());
+        Assert.assertEquals(List.of(last), List.copyOf(hierarchy.getAllSubclassesOf(last)));
+        Assert.assertTrue(hierarchy.isSubclass(first, last));
+        Assert.assertTrue(hierarchy.isSubclass(middle, last));
+        Assert.assertFalse(hierarchy.isSubclass(last, middle));
+        Assert.assertTrue(hierarchy.isSubclass(h.loadClass("K"), middle));
+        Assert.assertFalse(hierarchy.isSubclass(h.loadClass("K"), first));
+    }
+
+    @Test
+    public void testAddClassAfterQuery() {
+        TestHierarchy h = build();
+        ClassHierarchy hierarchy = h.getHierarchy();
+        JClass a = h.loadClass("A");
+        Assert.assertEquals(3, hierarchy.getAllSubclassesOf(a).size());
+        JClass g = h.addClass("G", "C");
+        Assert.assertEquals(4, hierarchy.getAllSubclassesOf(a).size());
+        Assert.assertTrue(hierarchy.isSubclass(h.loadClass("I"), g));
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.VoidType;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds class hierarchies of a few classes for unit tests,
+ * without loading any program. All classes, including
+ * java.lang.Object, are loaded by this loader.
+ * <p>
+ * The methods of the classes take no parameters and return void.
+ * Each method is given by its name, optionally preceded by its
+ * modifiers, e.g., "abstract foo" or "static bar".
+ */
+public final class TestHierarchy implements JClassLoader {
+
+    private final Map<String, JClass> classes = new LinkedHashMap<>();
+
+    private final ClassHierarchy hierarchy = new ClassHierarchyImpl();
+
+    /**
+     * @param objectMethods methods of java.lang.Object
+     */
+    public TestHierarchy(String... objectMethods) {
+        hierarchy.setDefaultClassLoader(this);
+        hierarchy.setBootstrapClassLoader(this);
+        add(ClassNames.OBJECT, EnumSet.of(Modifier.PUBLIC), null,
+                List.of(), objectMethods);
+    }
+
+    public ClassHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    @Override
+    public @Nullable JClass loadClass(String name) {
+        return classes.get(name);
+    }
+
+    @Override
+    public Collection<JClass> getLoadedClasses() {
+        return classes.values();
+    }
+
+    /**
+     * Adds a class, which extends given superclass, or java.lang.Object
+     * if it is null, and implements given interfaces.
+     */
+    public JClass addClass(String name, @Nullable String superClass,
+                           String... interfaces) {
+        return addClass(name, superClass, List.of(interfaces));
+    }
+
+    /**
+     * Adds a class like {@link #addClass(String, String, String...)},
+     * which declares given methods.
+     */
+    public JClass addClass(String name, @Nullable String superClass,
+                           List<String> interfaces, String... methods) {
+        return add(name, EnumSet.of(Modifier.PUBLIC),
+                loadClass(superClass != null ? superClass : ClassNames.OBJECT),
+                interfaces, methods);
+    }
+
+    /**
+     * Adds an interface, which extends given interfaces.
+     */
+    public JClass addInterface(String name, String... superinterfaces) {
+        return addInterface(name, List.of(superinterfaces));
+    }
+
+    /**
+     * Adds an interface like {@link #addInterface(String, String...)},
+     * which declares given methods. The methods without modifier
+     * "abstract" are default methods.
+     */
+    public JClass addInterface(String name, List<String> superinterfaces,
+                               String... methods) {
+        return add(name, EnumSet.of(Modifier.PUBLIC, Modifier.INTERFACE,
+                Modifier.ABSTRACT), loadClass(ClassNames.OBJECT),
+                superinterfaces, methods);
+    }
+
+    private JClass add(String name, Set<Modifier> modifiers,
+                       @Nullable JClass superClass, List<String> interfaces,
+                       String... methods) {
+        JClass jclass = new JClass(this, name);
+        List<JMethod> declaredMethods = Arrays.stream(methods)
+                .map(method -> makeMethod(jclass, method))
+                .toList();
+        jclass.build(new Builder(jclass, modifiers, superClass,
+                interfaces.stream().map(this::loadClass).toList(),
+                declaredMethods));
+        classes.put(name, jclass);
+        hierarchy.addClass(jclass);
+        return jclass;
+    }
+
+    private static JMethod makeMethod(JClass jclass, String method) {
+        String[] words = method.split(" ");
+        Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC);
+        for (int i = 0; i < words.length - 1; ++i) {
+            modifiers.add(Modifier.valueOf(words[i].toUpperCase()));
+        }
+        return new JMethod(jclass, words[words.length - 1], modifiers,
+                List.of(), VoidType.VOID, List.of(),
+                AnnotationHolder.emptyHolder(), null, null);
+    }
+
+    private record Builder(JClass jclass, Set<Modifier> modifiers,
+                           JClass superClass, List<JClass> interfaces,
+                           List<JMethod> methods)
+            implements JClassBuilder {
+
+        @Override
+        public void build(JClass jclass) {
+            jclass.build(this);
+        }
+
+        @Override
+        public Set<Modifier> getModifiers() {
+            return modifiers;
+        }
+
+        @Override
+        public String getSimpleName() {
+            return jclass.getName();
+        }
+
+        @Override
+        public ClassType getClassType() {
+            return new ClassType(jclass.getClassLoader(), jclass.getName());
+        }
+
+        @Override
+        public JClass getSuperClass() {
+            return superClass;
+        }
+
+        @Override
+        public Collection<JClass> getInterfaces() {
+            return interfaces;
+        }
+
+        @Override
+        public JClass getOuterClass() {
+            return null;
+        }
+
+        @Override
+        public Collection<JField> getDeclaredFields() {
+            return List.of();
+        }
+
+        @Override
+        public Collection<JMethod> getDeclaredMethods() {
+            return methods;
+        }
+
+        @Override
+        public AnnotationHolder getAnnotationHolder() {
+            return AnnotationHolder.emptyHolder();
+        }
+
+        @Override
+        public boolean isApplication() {
+            return true;
+        }
+    }
+}
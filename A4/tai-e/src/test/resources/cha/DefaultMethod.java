@@ -0,0 +1,32 @@
+interface Greeter {
+    default void greet() {
+    }
+}
+
+interface Polite extends Greeter {
+}
+
+interface Friendly extends Greeter {
+}
+
+public class DefaultMethod {
+
+    public static void main(String[] args) {
+        Person p = new Person();
+        p.greet();
+        Greeter g = p;
+        g.greet();
+        // loads Robot, which overrides the default method
+        Greeter r = new Robot();
+    }
+}
+
+// inherits Greeter.greet() through both sides of a diamond
+class Person implements Polite, Friendly {
+}
+
+class Robot implements Greeter {
+
+    public void greet() {
+    }
+}